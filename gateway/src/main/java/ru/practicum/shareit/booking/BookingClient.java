@@ -2,15 +2,18 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchangeFactory;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -18,23 +21,19 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, ServerExchangeFactory exchangeFactory,
+                         ResponseCache responseCache) {
+        super(API_PREFIX, exchangeFactory.create(serverUrl + API_PREFIX), responseCache);
     }
 
-    public ResponseEntity<Object> getBookingsByStatus(long userId, BookingState state) {
+    public Mono<ResponseEntity<byte[]>> getBookingsByStatus(long userId, BookingState state) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name()
         );
         return get("?state={state}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<byte[]>> getBookings(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -43,14 +42,19 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getOwnerBookingsByStatus(long userId, BookingState state) {
+    public Mono<ResponseEntity<byte[]>> getBookingsPage(long userId, BookingState state, String cursor, Integer size) {
+        return get("?state={state}&cursor={cursor}" + (size != null ? "&size={size}" : ""), userId,
+                                                        cursorPageParameters(state, cursor, size));
+    }
+
+    public Mono<ResponseEntity<byte[]>> getOwnerBookingsByStatus(long userId, BookingState state) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name()
         );
         return get("/owner?state={state}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getOwnerBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<byte[]>> getOwnerBookings(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -59,15 +63,47 @@ public class BookingClient extends BaseClient {
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public Mono<ResponseEntity<byte[]>> getOwnerBookingsPage(long userId, BookingState state, String cursor, Integer size) {
+        return get("/owner?state={state}&cursor={cursor}" + (size != null ? "&size={size}" : ""), userId,
+                                                             cursorPageParameters(state, cursor, size));
+    }
+
+    public Mono<ResponseEntity<ResponseBodyEmitter>> exportBookings(long userId, BookingState state, String format,
+                                                                     HttpServletResponse response) {
+        return stream("/export?state={state}&format={format}", userId, exportParameters(state, format), response);
+    }
+
+    public Mono<ResponseEntity<ResponseBodyEmitter>> exportOwnerBookings(long userId, BookingState state,
+                                                                          String format, HttpServletResponse response) {
+        return stream("/owner/export?state={state}&format={format}", userId, exportParameters(state, format), response);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
+    public Mono<ResponseEntity<byte[]>> bookItem(long userId, BookItemRequestDto requestDto) {
+        return post("", userId, requestDto)
+                .doOnTerminate(() -> responseCache.invalidate("/items/" + requestDto.getItemId()));
+    }
+
+    public Mono<ResponseEntity<byte[]>> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approve(Long id, Boolean approved, Long bookerId) {
-        return patch("/" + id + "?approved=" + approved, bookerId, null, null);
+    public Mono<ResponseEntity<byte[]>> approve(Long id, Boolean approved, Long bookerId) {
+        return patch("/" + id + "?approved=" + approved, bookerId, null, null)
+                .doOnTerminate(() -> responseCache.invalidatePathsStartingWith("/items/"));
+    }
+
+    private Map<String, Object> exportParameters(BookingState state, String format) {
+        return Map.of(
+                "state", state.name(),
+                "format", format
+        );
+    }
+
+    private Map<String, Object> cursorPageParameters(BookingState state, String cursor, Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("cursor", cursor);
+        parameters.put("size", size);
+        return parameters;
     }
-}
\ No newline at end of file
+}
@@ -6,11 +6,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.BadRequestException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -18,55 +22,110 @@ import javax.validation.Valid;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final List<String> EXPORT_FORMATS = List.of("ndjson", "csv");
+
     private final BookingClient bookingClient;
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
-                                              @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                              @RequestParam(value = "from", required = false) Integer from,
-                                              @RequestParam(value = "size", required = false) Integer size) {
+    public Mono<ResponseEntity<byte[]>> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                    @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                    @RequestParam(value = "from", required = false) Integer from,
+                                                    @RequestParam(value = "size", required = false) Integer size,
+                                                    @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new BadRequestException("Unknown state: " + stateParam));
 
-        if (from == null) {
+        if (cursor != null) {
+            return bookingClient.getBookingsPage(userId, state, cursor, size);
+        }
+        if (from == null && size == null) {
             return bookingClient.getBookingsByStatus(userId, state);
         }
+        checkPageSettings(from, size);
         return bookingClient.getBookings(userId, state, from, size);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnerBookings(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                   @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                   @RequestParam(value = "from", required = false) Integer from,
-                                                   @RequestParam(value = "size", required = false) Integer size) {
+    public Mono<ResponseEntity<byte[]>> getOwnerBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                         @RequestParam(value = "from", required = false) Integer from,
+                                                         @RequestParam(value = "size", required = false) Integer size,
+                                                         @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new BadRequestException("Unknown state: " + stateParam));
 
-        if (from == null) {
+        if (cursor != null) {
+            return bookingClient.getOwnerBookingsPage(userId, state, cursor, size);
+        }
+        if (from == null && size == null) {
             return bookingClient.getOwnerBookingsByStatus(userId, state);
         }
+        checkPageSettings(from, size);
         return bookingClient.getOwnerBookings(userId, state, from, size);
     }
 
+    @GetMapping("/export")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> exportBookings(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", defaultValue = "all") String stateParam,
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        return bookingClient.exportBookings(userId, parseState(stateParam), checkExportFormat(format), response);
+    }
+
+    @GetMapping("/owner/export")
+    public Mono<ResponseEntity<ResponseBodyEmitter>> exportOwnerBookings(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "state", defaultValue = "all") String stateParam,
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        return bookingClient.exportOwnerBookings(userId, parseState(stateParam), checkExportFormat(format), response);
+    }
+
     @PostMapping
-    public ResponseEntity<Object> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
-                                           @RequestBody @Valid BookItemRequestDto requestDto) {
+    public Mono<ResponseEntity<byte[]>> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @RequestBody @Valid BookItemRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.bookItem(userId, requestDto);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
-                                             @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<byte[]>> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                   @PathVariable Long bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> approve(@RequestHeader("X-Sharer-User-Id") Long bookerId,
-                                          @PathVariable("id") Long id,
-                                          @RequestParam(name = "approved") Boolean approved) {
+    public Mono<ResponseEntity<byte[]>> approve(@RequestHeader("X-Sharer-User-Id") Long bookerId,
+                                                @PathVariable("id") Long id,
+                                                @RequestParam(name = "approved") Boolean approved) {
 
         return bookingClient.approve(id, approved, bookerId);
     }
-}
\ No newline at end of file
+
+    private static BookingState parseState(String stateParam) {
+        return BookingState.from(stateParam)
+                .orElseThrow(() -> new BadRequestException("Unknown state: " + stateParam));
+    }
+
+    private static void checkPageSettings(Integer from, Integer size) {
+        if (from == null || size == null) {
+            String message = from == null
+                    ? "Wrong pageable settings : from is not set , size is " + size
+                    : "Wrong pageable settings : size is not set , from is " + from;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+    }
+
+    private static String checkExportFormat(String format) {
+        String exportFormat = format.toLowerCase();
+        if (!EXPORT_FORMATS.contains(exportFormat)) {
+            String message = "Unknown export format : " + format;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return exportFormat;
+    }
+}
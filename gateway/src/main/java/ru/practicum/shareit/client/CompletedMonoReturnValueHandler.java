@@ -0,0 +1,87 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Writes a controller result that is already complete on the servlet thread, like its value had been returned
+ * instead of the Mono, so the request doesn't go through an async dispatch. Results still pending go the
+ * usual async way.
+ */
+public class CompletedMonoReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandlerComposite delegates;
+
+    public CompletedMonoReturnValueHandler(HandlerMethodReturnValueHandlerComposite delegates) {
+        this.delegates = delegates;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return Mono.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        if (returnValue == null) {
+            delegates.handleReturnValue(null, returnType, mavContainer, webRequest);
+            return;
+        }
+        CompletableFuture<?> result = ((Mono<?>) returnValue).toFuture();
+        if (!result.isDone()) {
+            delegates.handleReturnValue(Mono.fromFuture(result), returnType, mavContainer, webRequest);
+            return;
+        }
+        Object value;
+        try {
+            value = result.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+        ResolvableType valueType = ResolvableType.forMethodParameter(returnType).getGeneric();
+        delegates.handleReturnValue(value, new ValueParameter(returnType, valueType), mavContainer, webRequest);
+    }
+
+    private static Exception rethrow(Throwable error) {
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        return (Exception) error;
+    }
+
+    /**
+     * The controller method return type with the Mono value type in place of the Mono.
+     */
+    private static class ValueParameter extends MethodParameter {
+        private final ResolvableType valueType;
+
+        ValueParameter(MethodParameter returnType, ResolvableType valueType) {
+            super(returnType);
+            this.valueType = valueType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return valueType.toClass();
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return valueType.getType();
+        }
+
+        @Override
+        public ValueParameter clone() {
+            return new ValueParameter(this, valueType);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http-client")
+public class HttpClientProperties {
+    /**
+     * Connections kept open to the server over all routes.
+     */
+    private int maxConnections = 400;
+
+    /**
+     * Connections to one host, all gateway clients share the server route.
+     */
+    private int maxConnectionsPerRoute = 200;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * How long a request waits for a free pooled connection before failing.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Used when the server response does not set a Keep-Alive timeout.
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    private Duration idleEvictionTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Pooled connections idle longer than this are checked for staleness before reuse.
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    /**
+     * Largest response body the reactive mode holds in memory, like the blocking mode it buffers whole responses.
+     * Exports are streamed and not limited by it.
+     */
+    private DataSize maxInMemorySize = DataSize.ofMegabytes(16);
+}
@@ -0,0 +1,201 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponents;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches successful GET responses of the server per path, query and user.
+ * A fresh entry is returned without a server call, a stale one is revalidated with its ETag.
+ * Only fresh entries count as cache hits; a stale entry counts as a miss, and its revalidation is counted
+ * in {@code cache.revalidations} by whether the server answered it unchanged.
+ * Writes passing through the gateway evict the entries of the resources they change.
+ * <p>
+ * Every path has a generation, taken from one clock when the path is first loaded or evicted, and entries
+ * are only served with the generation of their path, so evicting a path doesn't look at the cached entries.
+ * A response loaded while its path was evicted keeps the old generation and is not stored, other paths are
+ * not affected. Evicting a prefix records the clock, paths under it get a new generation when next used.
+ */
+@Component
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+@Slf4j
+public class ResponseCache {
+    private static final int MAX_PATH_GENERATIONS = 100_000;
+    private static final String CACHE_NAME = "gatewayResponses";
+
+    private final ResponseCacheProperties properties;
+    private final Cache<Key, Entry> cache;
+    private final ConcurrentStatsCounter stats = new ConcurrentStatsCounter();
+    private final Cache<String, Long> pathGenerations;
+    private final Map<String, Long> prefixGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final Counter unchangedRevalidations;
+    private final Counter changedRevalidations;
+
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((Key key, Entry entry) -> key.weight() + entry.getBody().length)
+                .expireAfterWrite(properties.getExpireAfter())
+                .recordStats(() -> stats)
+                .build();
+        // a forgotten generation only turns the entries of its path into misses
+        this.pathGenerations = Caffeine.newBuilder()
+                .maximumSize(MAX_PATH_GENERATIONS)
+                .expireAfterAccess(properties.getExpireAfter())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.unchangedRevalidations = revalidations(meterRegistry, "unchanged");
+        this.changedRevalidations = revalidations(meterRegistry, "changed");
+    }
+
+    private static Counter revalidations(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.revalidations")
+                .description("Stale cached responses revalidated with the server by their ETag")
+                .tag("cache", CACHE_NAME)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public Key key(UriComponents uri, @Nullable Long userId) {
+        return new Key(uri.getPath(), uri.getQuery(), userId);
+    }
+
+    /**
+     * @param loader sends the GET to the server, with If-None-Match when the argument is not null
+     */
+    public Mono<ResponseEntity<byte[]>> get(Key key, Function<String, Mono<ResponseEntity<byte[]>>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(null);
+        }
+        long generation = generation(key.getPath());
+        Entry cached = cache.asMap().get(key);
+        if (cached != null && cached.getGeneration() != generation) {
+            cache.asMap().remove(key, cached);
+            cached = null;
+        }
+        if (cached != null && cached.getFreshUntil() > System.currentTimeMillis()) {
+            stats.recordHits(1);
+            return Mono.just(cached.toResponse());
+        }
+        stats.recordMisses(1);
+        Entry revalidated = cached;
+        return loader.apply(revalidated != null ? revalidated.getEtag() : null)
+                .map(response -> {
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && revalidated != null) {
+                        unchangedRevalidations.increment();
+                        store(key, revalidated.refreshed(freshUntil()));
+                        return revalidated.toResponse();
+                    }
+                    if (revalidated != null) {
+                        changedRevalidations.increment();
+                    }
+                    if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                        store(key, Entry.of(response, freshUntil(), generation));
+                    } else {
+                        cache.invalidate(key);
+                    }
+                    return response;
+                });
+    }
+
+    public void invalidate(String path) {
+        pathGenerations.put(path, clock.incrementAndGet());
+    }
+
+    public void invalidatePathsStartingWith(String pathPrefix) {
+        prefixGenerations.put(pathPrefix, clock.incrementAndGet());
+    }
+
+    public void invalidateAll() {
+        invalidatePathsStartingWith("");
+        cache.invalidateAll();
+    }
+
+    /**
+     * Skips responses loaded before an eviction of their path that happened while they were in flight.
+     */
+    private void store(Key key, Entry entry) {
+        if (generation(key.getPath()) == entry.getGeneration()) {
+            cache.put(key, entry);
+        } else {
+            log.debug("Response for {} not cached, resource changed while loading", key);
+        }
+    }
+
+    private long generation(String path) {
+        Long generation = pathGenerations.getIfPresent(path);
+        if (generation != null && generation > prefixGeneration(path)) {
+            return generation;
+        }
+        return pathGenerations.asMap().compute(path, (p, current) ->
+                current != null && current > prefixGeneration(p) ? current : clock.incrementAndGet());
+    }
+
+    private long prefixGeneration(String path) {
+        long generation = 0;
+        for (Map.Entry<String, Long> prefix : prefixGenerations.entrySet()) {
+            if (path.startsWith(prefix.getKey())) {
+                generation = Math.max(generation, prefix.getValue());
+            }
+        }
+        return generation;
+    }
+
+    private long freshUntil() {
+        return System.currentTimeMillis() + properties.getFreshFor().toMillis();
+    }
+
+    @Value
+    public static class Key {
+        String path;
+        String query;
+        Long userId;
+
+        int weight() {
+            return path.length() + (query != null ? query.length() : 0);
+        }
+    }
+
+    @Value
+    static class Entry {
+        HttpHeaders headers;
+        byte[] body;
+        String etag;
+        long freshUntil;
+        long generation;
+
+        static Entry of(ResponseEntity<byte[]> response, long freshUntil, long generation) {
+            return new Entry(HttpHeaders.readOnlyHttpHeaders(response.getHeaders()), response.getBody(),
+                    response.getHeaders().getETag(), freshUntil, generation);
+        }
+
+        Entry refreshed(long freshUntil) {
+            return new Entry(headers, body, etag, freshUntil, generation);
+        }
+
+        ResponseEntity<byte[]> toResponse() {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+    }
+}
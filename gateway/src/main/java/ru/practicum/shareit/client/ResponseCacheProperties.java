@@ -0,0 +1,31 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.response-cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+
+    /**
+     * Total size of cached response bodies.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+
+    /**
+     * How long a cached response is served without asking the server. Bounds staleness caused by
+     * writes that did not pass through this gateway instance.
+     */
+    private Duration freshFor = Duration.ofSeconds(5);
+
+    /**
+     * How long a response is kept for revalidation with If-None-Match after it stops being fresh.
+     */
+    private Duration expireAfter = Duration.ofMinutes(10);
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Receives a streamed server response: the status and headers first, then the body through the returned stream.
+ */
+@FunctionalInterface
+public interface ResponseStreamTarget {
+    OutputStream open(HttpStatus status, HttpHeaders headers) throws IOException;
+}
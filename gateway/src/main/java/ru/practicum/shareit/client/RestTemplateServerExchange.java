@@ -0,0 +1,124 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Blocking mode: the request is sent on the servlet thread when the controller result is subscribed, the result
+ * is complete by then and is written without an async dispatch.
+ * Bodies go both ways as bytes: the rest template only needs its byte array converter, so it doesn't ask
+ * Jackson whether it can read byte arrays on every call, which serializes concurrent requests on a lock.
+ * Uploads go to the request factory directly, the rest template interceptors would buffer the whole body.
+ */
+public class RestTemplateServerExchange implements ServerExchange {
+    private final RestTemplate rest;
+    private final ClientHttpRequestFactory requestFactory;
+    private final ObjectMapper objectMapper;
+
+    public RestTemplateServerExchange(RestTemplate rest, ClientHttpRequestFactory requestFactory,
+                                      ObjectMapper objectMapper) {
+        this.rest = rest;
+        this.requestFactory = requestFactory;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return Mono.fromCallable(() -> send(method, path, new HttpEntity<>(toBytes(body), headers), parameters));
+    }
+
+    /**
+     * Copies the body to the target on the calling thread, the result is empty.
+     */
+    @Override
+    public Mono<ResponseEntity<ResponseBodyEmitter>> stream(HttpMethod method, String path, HttpHeaders headers,
+                                                            @Nullable Map<String, Object> parameters,
+                                                            ResponseStreamTarget target) {
+        return Mono.fromCallable(() -> {
+            copy(method, path, headers, parameters, target);
+            return null;
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<byte[]>> upload(HttpMethod method, String path, HttpHeaders headers, InputStream body) {
+        return Mono.fromCallable(() -> sendBody(method, path, headers, body));
+    }
+
+    private void copy(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters,
+                      ResponseStreamTarget target) throws IOException {
+        RequestCallback requestCallback = request -> request.getHeaders().addAll(headers);
+        ResponseExtractor<Void> responseExtractor = response -> {
+            StreamUtils.copy(response.getBody(), target.open(response.getStatusCode(), response.getHeaders()));
+            return null;
+        };
+        try {
+            if (parameters != null) {
+                rest.execute(path, method, requestCallback, responseExtractor, parameters);
+            } else {
+                rest.execute(path, method, requestCallback, responseExtractor);
+            }
+        } catch (HttpStatusCodeException e) {
+            target.open(e.getStatusCode(), e.getResponseHeaders()).write(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    private ResponseEntity<byte[]> sendBody(HttpMethod method, String path, HttpHeaders headers, InputStream body)
+            throws IOException {
+        ClientHttpRequest request = requestFactory.createRequest(rest.getUriTemplateHandler().expand(path), method);
+        request.getHeaders().addAll(headers);
+        if (request instanceof StreamingHttpOutputMessage) {
+            ((StreamingHttpOutputMessage) request).setBody(body::transferTo);
+        } else {
+            body.transferTo(request.getBody());
+        }
+        try (ClientHttpResponse response = request.execute()) {
+            return ResponseEntity.status(response.getRawStatusCode())
+                    .headers(response.getHeaders())
+                    .body(StreamUtils.copyToByteArray(response.getBody()));
+        }
+    }
+
+    private ResponseEntity<byte[]> send(HttpMethod method, String path, HttpEntity<byte[]> requestEntity,
+                                        @Nullable Map<String, Object> parameters) {
+        try {
+            if (parameters != null) {
+                return rest.exchange(path, method, requestEntity, byte[].class, parameters);
+            }
+            return rest.exchange(path, method, requestEntity, byte[].class);
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .headers(e.getResponseHeaders())
+                    .body(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    @Nullable
+    private byte[] toBytes(@Nullable Object body) throws JsonProcessingException {
+        if (body == null || body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Sends one gateway request to the server and returns the raw response body, error statuses are returned, not thrown.
+ */
+public interface ServerExchange {
+    Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                          @Nullable Map<String, Object> parameters, @Nullable Object body);
+
+    /**
+     * Relays the response body piece by piece, so a body of any size passes with constant memory. Error statuses
+     * are relayed the same way. Either the body is copied to the target and the result is empty, or the result
+     * has the server status and headers with an emitter the body is sent through.
+     */
+    Mono<ResponseEntity<ResponseBodyEmitter>> stream(HttpMethod method, String path, HttpHeaders headers,
+                                                     @Nullable Map<String, Object> parameters,
+                                                     ResponseStreamTarget target);
+
+    /**
+     * Sends the request body read from the stream piece by piece, so a body of any size passes with constant
+     * memory. The read timeout starts once the body is sent. The response is returned whole.
+     */
+    Mono<ResponseEntity<byte[]>> upload(HttpMethod method, String path, HttpHeaders headers, InputStream body);
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Reactive mode: no thread waits for the server, the servlet thread is released until the response arrives.
+ * Streamed bodies go both ways on worker threads, the servlet thread doesn't wait for them either.
+ */
+public class WebClientServerExchange implements ServerExchange {
+    private static final int STREAM_PREFETCH = 8;
+    private static final int UPLOAD_BUFFER_SIZE = 8192;
+    private static final long NO_TIMEOUT = 0;
+
+    private final WebClient webClient;
+
+    public WebClientServerExchange(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @Override
+    public Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        WebClient.RequestBodySpec request = request(method, path, headers, parameters);
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+        return spec.exchangeToMono(response -> response.toEntity(byte[].class));
+    }
+
+    /**
+     * Returns the server status and headers as soon as they arrive, the body follows through the emitter.
+     */
+    @Override
+    public Mono<ResponseEntity<ResponseBodyEmitter>> stream(HttpMethod method, String path, HttpHeaders headers,
+                                                            @Nullable Map<String, Object> parameters,
+                                                            ResponseStreamTarget target) {
+        return request(method, path, headers, parameters)
+                .retrieve()
+                .onStatus(HttpStatus::isError, clientResponse -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .map(response -> ResponseEntity.status(response.getStatusCode())
+                        .headers(response.getHeaders())
+                        .body(new BodyEmitter(response.getBody() != null ? response.getBody() : Flux.empty())));
+    }
+
+    /**
+     * The body is read on a worker thread as the connection asks for more, so the event loop never blocks
+     * on the stream and only a few buffers are held at a time.
+     */
+    @Override
+    public Mono<ResponseEntity<byte[]>> upload(HttpMethod method, String path, HttpHeaders headers, InputStream body) {
+        Flux<DataBuffer> buffers = DataBufferUtils
+                .readInputStream(() -> body, DefaultDataBufferFactory.sharedInstance, UPLOAD_BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+        return request(method, path, headers, null)
+                .body(BodyInserters.fromDataBuffers(buffers))
+                .exchangeToMono(response -> response.toEntity(byte[].class));
+    }
+
+    private WebClient.RequestBodySpec request(HttpMethod method, String path, HttpHeaders headers,
+                                              @Nullable Map<String, Object> parameters) {
+        WebClient.RequestBodySpec request = parameters != null
+                ? webClient.method(method).uri(path, parameters)
+                : webClient.method(method).uri(path);
+        request.headers(requestHeaders -> requestHeaders.addAll(headers));
+        return request;
+    }
+
+    /**
+     * Subscribes to the body while the gateway response is committed with the server status and headers, pieces
+     * are written on a worker thread one by one, with only a few prefetched from the event loop. Pieces left
+     * when the gateway client goes away are released. The export runs as long as the server keeps sending,
+     * the read timeout still applies between pieces.
+     */
+    private static class BodyEmitter extends ResponseBodyEmitter {
+        private final Flux<DataBuffer> body;
+
+        BodyEmitter(Flux<DataBuffer> body) {
+            super(NO_TIMEOUT);
+            this.body = body;
+        }
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            Disposable subscription = body
+                    .publishOn(Schedulers.boundedElastic(), STREAM_PREFETCH)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .subscribe(this::write, this::completeWithError, this::complete);
+            onTimeout(subscription::dispose);
+            onError(error -> subscription.dispose());
+        }
+
+        private void write(DataBuffer buffer) {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            DataBufferUtils.release(buffer);
+            try {
+                send(bytes);
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+    }
+}
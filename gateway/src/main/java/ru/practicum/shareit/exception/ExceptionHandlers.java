@@ -5,6 +5,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.shareit.item.dto.ItemImportResult;
 
 import java.util.Map;
 
@@ -17,6 +18,12 @@ public class ExceptionHandlers {
         return Map.of("error", e.getMessage());
     }
 
+    @ExceptionHandler({ImportRejectedException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ItemImportResult handleImportRejected(final ImportRejectedException e) {
+        return e.getResult();
+    }
+
     @ExceptionHandler({NotFoundException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Map<String, String> handleNotFound(final RuntimeException e) {
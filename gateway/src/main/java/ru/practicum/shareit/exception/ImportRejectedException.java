@@ -0,0 +1,16 @@
+package ru.practicum.shareit.exception;
+
+import ru.practicum.shareit.item.dto.ItemImportResult;
+
+public class ImportRejectedException extends RuntimeException {
+    private final ItemImportResult result;
+
+    public ImportRejectedException(ItemImportResult result) {
+        super("Rejected rows of import : " + result.getFailed());
+        this.result = result;
+    }
+
+    public ItemImportResult getResult() {
+        return result;
+    }
+}
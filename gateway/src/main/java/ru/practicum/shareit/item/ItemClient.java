@@ -2,57 +2,124 @@ package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchangeFactory;
 import ru.practicum.shareit.item.dto.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private static final String SEARCH_PATH = API_PREFIX + "/search";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, ServerExchangeFactory exchangeFactory,
+                      ResponseCache responseCache) {
+        super(API_PREFIX, exchangeFactory.create(serverUrl + API_PREFIX), responseCache);
+    }
+
+    public Mono<ResponseEntity<byte[]>> addItem(Long ownerId, ItemDto itemDto) {
+        return post("", ownerId, itemDto)
+                .doOnTerminate(() -> {
+                    responseCache.invalidate(SEARCH_PATH);
+                    if (itemDto.getRequestId() != null) {
+                        responseCache.invalidate("/requests/" + itemDto.getRequestId());
+                    }
+                });
+    }
+
+    public Mono<ResponseEntity<byte[]>> importItems(Long ownerId, List<ItemDto> items) {
+        return post("/batch", ownerId, items)
+                .doOnTerminate(this::invalidateImportedItemViews);
+    }
+
+    public Mono<ResponseEntity<byte[]>> importItems(Long ownerId, InputStream ndjson) {
+        return upload("/batch", ownerId, ndjson, MediaType.APPLICATION_NDJSON)
+                .doOnTerminate(this::invalidateImportedItemViews);
     }
 
-    public ResponseEntity<Object> addItem(Long ownerId, ItemDto itemDto) {
-        return post("", ownerId, itemDto);
+    public Mono<ResponseEntity<byte[]>> updateItem(Long itemId, Long ownerId, ItemDto item) {
+        return patch("/" + itemId, ownerId, item)
+                .doOnTerminate(() -> {
+                    responseCache.invalidate(API_PREFIX + "/" + itemId);
+                    responseCache.invalidate(SEARCH_PATH);
+                    responseCache.invalidatePathsStartingWith("/requests/");
+                });
     }
 
-    public ResponseEntity<Object> updateItem(Long itemId, Long ownerId, ItemDto item) {
-        return patch("/" + itemId, ownerId, item);
+    public Mono<ResponseEntity<byte[]>> updateItems(Long ownerId, List<ItemDto> items) {
+        return patch("", ownerId, items)
+                .doOnTerminate(() -> {
+                    items.forEach(item -> responseCache.invalidate(API_PREFIX + "/" + item.getId()));
+                    responseCache.invalidate(SEARCH_PATH);
+                    responseCache.invalidatePathsStartingWith("/requests/");
+                });
     }
 
-    public ResponseEntity<Object> getItem(Long itemId, Long ownerId) {
-        return get("/" + itemId, ownerId);
+    public Mono<ResponseEntity<byte[]>> getItem(Long itemId, Long ownerId) {
+        return getCached("/" + itemId, ownerId);
     }
 
-    public ResponseEntity<Object> getUserItems(Long ownerId) {
+    public Mono<ResponseEntity<byte[]>> getUserItems(Long ownerId) {
         return get("", ownerId);
     }
 
-    public ResponseEntity<Object> search(String searchingText) {
+    public Mono<ResponseEntity<byte[]>> search(String searchingText, Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("text", searchingText);
+        StringBuilder path = new StringBuilder("/search?text={text}");
+        if (from != null) {
+            parameters.put("from", from);
+            path.append("&from={from}");
+        }
+        if (size != null) {
+            parameters.put("size", size);
+            path.append("&size={size}");
+        }
+        return getCached(path.toString(), null, parameters);
+    }
+
+    public Mono<ResponseEntity<byte[]>> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
         Map<String, Object> parameters = Map.of(
-                "text", searchingText
+                "from", from,
+                "to", to
         );
-        return get("/search?text={text}", null, parameters);
+        return get("/" + itemId + "/availability?from={from}&to={to}", null, parameters);
     }
 
-    public ResponseEntity<?> addComment(Long userId, Long itemId, Comment comment) {
-        return post("/" + itemId + "/comment", userId, comment);
+    public Mono<ResponseEntity<byte[]>> getMatchingRequests(Long itemId, Long ownerId) {
+        return get("/" + itemId + "/matching-requests", ownerId);
+    }
+
+    public Mono<ResponseEntity<byte[]>> getComments(Long itemId, String cursor, Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("cursor", cursor);
+        parameters.put("size", size);
+        return get("/" + itemId + "/comments?cursor={cursor}" + (size != null ? "&size={size}" : ""), null, parameters);
     }
-}
 
+    public Mono<ResponseEntity<byte[]>> addComment(Long userId, Long itemId, Comment comment) {
+        return post("/" + itemId + "/comment", userId, comment)
+                .doOnTerminate(() -> {
+                    responseCache.invalidate(API_PREFIX + "/" + itemId);
+                    responseCache.invalidate(SEARCH_PATH);
+                });
+    }
+
+    private void invalidateImportedItemViews() {
+        responseCache.invalidate(SEARCH_PATH);
+        responseCache.invalidatePathsStartingWith("/requests/");
+    }
+}
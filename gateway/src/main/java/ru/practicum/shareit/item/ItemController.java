@@ -1,14 +1,26 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ImportRejectedException;
 import ru.practicum.shareit.item.dto.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -17,58 +29,167 @@ import ru.practicum.shareit.item.dto.ItemDto;
 @Validated
 public class ItemController {
     private final ItemClient itemClient;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
-    public ResponseEntity<?> add(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                 @RequestBody ItemDto item) {
-        if (item.getAvailable() == null) {
-            String message = "Not found item available";
-            log.warn(message);
-            throw new BadRequestException(message);
-        }
-        if (item.getName().isEmpty() || item.getName().isBlank()) {
-            String message = "Not found item name";
-            log.warn(message);
-            throw new BadRequestException(message);
-        }
-        if (item.getDescription() == null) {
-            String message = "Not found item description";
+    public Mono<ResponseEntity<byte[]>> add(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                            @RequestBody ItemDto item) {
+        String message = validateNewItem(item);
+        if (message != null) {
             log.warn(message);
             throw new BadRequestException(message);
         }
         return itemClient.addItem(ownerId, item);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> importItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                    @RequestBody List<ItemDto> items) {
+        ItemImportResult rejected = new ItemImportResult();
+        for (int i = 0; i < items.size(); i++) {
+            String message = validateNewItem(items.get(i));
+            if (message != null) {
+                rejected.addError(i + 1, message);
+            }
+        }
+        rejectInvalidRows(rejected);
+        return itemClient.importItems(ownerId, items);
+    }
+
+    /**
+     * Every line is checked while the body is passed to the server, rows the gateway rejects are reported
+     * in the server's result like the rows the server rejects. Row numbers count blank lines, like the server does.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> importItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                    InputStream ndjson) {
+        ItemImportFilter lines = new ItemImportFilter(ndjson, this::validateNewItemLine);
+        return itemClient.importItems(ownerId, lines)
+                .flatMap(response -> Mono.fromCallable(() -> mergeRejected(response, lines.getRejected())));
+    }
+
     @PatchMapping("/{id}")
-    public ResponseEntity<?> update(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                    @PathVariable("id") Long itemId,
-                                    @RequestBody ItemDto item) {
+    public Mono<ResponseEntity<byte[]>> update(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                               @PathVariable("id") Long itemId,
+                                               @RequestBody ItemDto item) {
         return itemClient.updateItem(itemId, ownerId, item);
     }
 
+    @PatchMapping
+    public Mono<ResponseEntity<byte[]>> updateAll(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                  @RequestBody List<ItemDto> items) {
+        if (items.stream().anyMatch(item -> item.getId() == null)) {
+            String message = "Not found id of updated item";
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return itemClient.updateItems(ownerId, items);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getItem(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                     @PathVariable("id") Long itemId) {
+    public Mono<ResponseEntity<byte[]>> getItem(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                @PathVariable("id") Long itemId) {
         return itemClient.getItem(itemId, ownerId);
     }
 
     @GetMapping
-    public ResponseEntity<?> getUserItems(@RequestHeader("X-Sharer-User-Id") Long ownerId) {
+    public Mono<ResponseEntity<byte[]>> getUserItems(@RequestHeader("X-Sharer-User-Id") Long ownerId) {
         return itemClient.getUserItems(ownerId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> search(@RequestParam(value = "text") String searchingText) {
-        return itemClient.search(searchingText);
+    public Mono<ResponseEntity<byte[]>> search(@RequestParam(value = "text") String searchingText,
+                                               @RequestParam(value = "from", required = false) Integer from,
+                                               @RequestParam(value = "size", required = false) Integer size) {
+        if (from != null && from < 0 || size != null && size < 1) {
+            String message = "Wrong pageable settings : from is " + from + " , size is " + size;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return itemClient.search(searchingText, from, size);
+    }
+
+    @GetMapping("/{id}/availability")
+    public Mono<ResponseEntity<byte[]>> getAvailability(@PathVariable("id") Long itemId,
+                                                        @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            String message = "Wrong availability period : from " + from + " is not before to " + to;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return itemClient.getAvailability(itemId, from, to);
+    }
+
+    @GetMapping("/{id}/matching-requests")
+    public Mono<ResponseEntity<byte[]>> getMatchingRequests(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                            @PathVariable("id") Long itemId) {
+        return itemClient.getMatchingRequests(itemId, ownerId);
+    }
+
+    @GetMapping("/{id}/comments")
+    public Mono<ResponseEntity<byte[]>> getComments(@PathVariable("id") Long itemId,
+                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "size", required = false) Integer size) {
+        if (size != null && size < 1) {
+            String message = "Wrong pageable settings : size is " + size + " , can't be < 1";
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return itemClient.getComments(itemId, cursor, size);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<?> addComment(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                        @PathVariable("itemId") Long itemId,
-                                        @RequestBody Comment comment) {
+    public Mono<ResponseEntity<byte[]>> addComment(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                   @PathVariable("itemId") Long itemId,
+                                                   @RequestBody Comment comment) {
         if (comment.getText().isBlank() || comment.getText().isEmpty()) {
             throw new BadRequestException("Comment cant be empty");
         }
         return itemClient.addComment(userId, itemId, comment);
     }
+
+    private static String validateNewItem(ItemDto item) {
+        if (item == null) {
+            return "Not found item";
+        }
+        if (item.getAvailable() == null) {
+            return "Not found item available";
+        }
+        if (item.getName() == null || item.getName().isBlank()) {
+            return "Not found item name";
+        }
+        if (item.getDescription() == null) {
+            return "Not found item description";
+        }
+        return null;
+    }
+
+    private String validateNewItemLine(String line) {
+        try {
+            return validateNewItem(objectMapper.readValue(line, ItemDto.class));
+        } catch (JsonProcessingException e) {
+            return "Wrong item json : " + e.getOriginalMessage();
+        }
+    }
+
+    private ResponseEntity<byte[]> mergeRejected(ResponseEntity<byte[]> response, ItemImportResult rejected)
+            throws IOException {
+        if (rejected.getFailed() == 0 || !response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        log.warn("Отклонены строки импорта вещей: {}", rejected.getFailed());
+        ItemImportResult result = objectMapper.readValue(response.getBody(), ItemImportResult.class);
+        result.merge(rejected);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .body(objectMapper.writeValueAsBytes(result));
+    }
+
+    private static void rejectInvalidRows(ItemImportResult rejected) {
+        if (rejected.getFailed() > 0) {
+            log.warn("Отклонен импорт вещей, ошибок в строках: {}", rejected.getFailed());
+            throw new ImportRejectedException(rejected);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.dto.ItemImportResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Passes an NDJSON import to the server line by line while it is read. A line the check returns an error for
+ * is sent as a blank line instead, so the server skips it and numbers the following rows as the client did;
+ * its error is kept in {@link #getRejected()}. Lines are split like the server's reader does.
+ */
+class ItemImportFilter extends InputStream {
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final BufferedReader reader;
+    private final Function<String, String> check;
+    private final ItemImportResult rejected = new ItemImportResult();
+    private byte[] line = NO_BYTES;
+    private int position;
+    private long row;
+
+    ItemImportFilter(InputStream ndjson, Function<String, String> check) {
+        this.reader = new BufferedReader(new InputStreamReader(ndjson, UTF_8));
+        this.check = check;
+    }
+
+    ItemImportResult getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextLine()) {
+            return -1;
+        }
+        return line[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextLine()) {
+            return -1;
+        }
+        int count = Math.min(length, line.length - position);
+        System.arraycopy(line, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean nextLine() throws IOException {
+        while (position == line.length) {
+            String next = reader.readLine();
+            if (next == null) {
+                return false;
+            }
+            row++;
+            String error = next.isBlank() ? null : check.apply(next);
+            if (error != null) {
+                rejected.addError(row, error);
+                next = "";
+            }
+            line = (next + "\n").getBytes(UTF_8);
+            position = 0;
+        }
+        return true;
+    }
+}
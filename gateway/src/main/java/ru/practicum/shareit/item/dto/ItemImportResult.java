@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Same shape as the server's import result, so rows rejected by the gateway are reported
+ * the way the server reports its own.
+ */
+@Data
+public class ItemImportResult {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long imported;
+    private long failed;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public void addError(long row, String error) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, error));
+        }
+    }
+
+    /**
+     * Adds the rows rejected elsewhere, keeping the listed errors in row order and within the limit.
+     */
+    public void merge(ItemImportResult other) {
+        failed += other.failed;
+        errors.addAll(other.errors);
+        errors.sort(Comparator.comparingLong(RowError::getRow));
+        if (errors.size() > MAX_REPORTED_ERRORS) {
+            errors.subList(MAX_REPORTED_ERRORS, errors.size()).clear();
+        }
+    }
+
+    @Data
+    public static class RowError {
+        private final long row;
+        private final String error;
+    }
+}
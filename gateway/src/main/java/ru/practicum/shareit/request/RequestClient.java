@@ -2,14 +2,15 @@ package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchangeFactory;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,36 +18,43 @@ public class RequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public RequestClient(@Value("${shareit-server.url}") String serverUrl, ServerExchangeFactory exchangeFactory,
+                         ResponseCache responseCache) {
+        super(API_PREFIX, exchangeFactory.create(serverUrl + API_PREFIX), responseCache);
     }
 
-    public ResponseEntity<Object> addRequest(Long requesterId, ItemRequestDto itemRequest) {
+    public Mono<ResponseEntity<byte[]>> addRequest(Long requesterId, ItemRequestDto itemRequest) {
         return post("", requesterId, itemRequest);
     }
 
-    public ResponseEntity<Object> getResponses(Long requesterId) {
+    public Mono<ResponseEntity<byte[]>> getResponses(Long requesterId) {
         return get("", requesterId);
     }
 
-    public ResponseEntity<?> getByRequestId(Long requestId, Long requesterId) {
-        return get("/" + requestId, requesterId);
+    public Mono<ResponseEntity<byte[]>> getByRequestId(Long requestId, Long requesterId) {
+        return getCached("/" + requestId, requesterId);
+    }
+
+    public Mono<ResponseEntity<byte[]>> getMatches(Long requestId, Long userId) {
+        return get("/" + requestId + "/matches", userId);
     }
 
-    public ResponseEntity<?> getAllItemRequestsOfRequester(Long requesterId) {
+    public Mono<ResponseEntity<byte[]>> getAllItemRequestsOfRequester(Long requesterId) {
         return get("/all", requesterId);
     }
 
-    public ResponseEntity<?> getAllItemRequestsOfRequesterPageable(Long requesterId, Integer from, Integer size) {
+    public Mono<ResponseEntity<byte[]>> getAllItemRequestsOfRequesterPageable(Long requesterId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
         return get("/all?from={from}&size={size}", requesterId, parameters);
     }
-}
\ No newline at end of file
+
+    public Mono<ResponseEntity<byte[]>> getItemRequestsPage(Long requesterId, String cursor, Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("cursor", cursor);
+        parameters.put("size", size);
+        return get("/all?cursor={cursor}" + (size != null ? "&size={size}" : ""), requesterId, parameters);
+    }
+}
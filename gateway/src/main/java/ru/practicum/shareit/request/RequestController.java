@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
@@ -18,8 +19,8 @@ public class RequestController {
     private final RequestClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> add(@RequestHeader("X-Sharer-User-Id") Long requesterId,
-                                      @RequestBody ItemRequestDto itemRequest) {
+    public Mono<ResponseEntity<byte[]>> add(@RequestHeader("X-Sharer-User-Id") Long requesterId,
+                                            @RequestBody ItemRequestDto itemRequest) {
         if (itemRequest.getDescription() == null) {
             throw new BadRequestException("Not find request description");
         }
@@ -27,23 +28,44 @@ public class RequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> get(@RequestHeader("X-Sharer-User-Id") Long requesterId) {
+    public Mono<ResponseEntity<byte[]>> get(@RequestHeader("X-Sharer-User-Id") Long requesterId) {
         return requestClient.getResponses(requesterId);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getByRequestId(@RequestHeader("X-Sharer-User-Id") Long requesterId,
-                                            @PathVariable("id") Long requestId) {
+    public Mono<ResponseEntity<byte[]>> getByRequestId(@RequestHeader("X-Sharer-User-Id") Long requesterId,
+                                                       @PathVariable("id") Long requestId) {
         return requestClient.getByRequestId(requestId, requesterId);
     }
 
+    @GetMapping("/{id}/matches")
+    public Mono<ResponseEntity<byte[]>> getMatches(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                   @PathVariable("id") Long requestId) {
+        return requestClient.getMatches(requestId, userId);
+    }
+
     @GetMapping("/all")
-    public ResponseEntity<?> getAllItemRequestWithPageable(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long requesterId,
-                                                           @RequestParam(value = "from", required = false) Integer from,
-                                                           @RequestParam(value = "size", required = false) Integer size) {
-        if (from == null) {
+    public Mono<ResponseEntity<byte[]>> getAllItemRequestWithPageable(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long requesterId,
+                                                                      @RequestParam(value = "from", required = false) Integer from,
+                                                                      @RequestParam(value = "size", required = false) Integer size,
+                                                                      @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return requestClient.getItemRequestsPage(requesterId, cursor, size);
+        }
+        if (from == null && size == null) {
             return requestClient.getAllItemRequestsOfRequester(requesterId);
         }
+        checkPageSettings(from, size);
         return requestClient.getAllItemRequestsOfRequesterPageable(requesterId, from, size);
     }
+
+    private static void checkPageSettings(Integer from, Integer size) {
+        if (from == null || size == null) {
+            String message = from == null
+                    ? "Wrong pageable settings : from is not set , size is " + size
+                    : "Wrong pageable settings : size is not set , from is " + from;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+    }
 }
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -22,7 +23,7 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<?> create(@RequestBody @Valid UserDto user) {
+    public Mono<ResponseEntity<byte[]>> create(@RequestBody @Valid UserDto user) {
         if (user.getName() == null) {
             String message = "User name is absent";
             log.error(message);
@@ -37,23 +38,23 @@ public class UserController {
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<?> update(@RequestBody @Valid UserDto user,
-                                    @PathVariable("id") long id) {
+    public Mono<ResponseEntity<byte[]>> update(@RequestBody @Valid UserDto user,
+                                               @PathVariable("id") long id) {
         return userClient.updateUser(id, user);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUser(@PathVariable("id") Long id) {
+    public Mono<ResponseEntity<byte[]>> getUser(@PathVariable("id") Long id) {
         return userClient.getUser(id);
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllUsers() {
+    public Mono<ResponseEntity<byte[]>> getAllUsers() {
         return userClient.getAllUser();
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable("id") Long id) {
+    public Mono<ResponseEntity<byte[]>> delete(@PathVariable("id") Long id) {
         return userClient.deleteUser(id);
     }
 }
@@ -0,0 +1,113 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=blocking"
+})
+class BookingExportStreamingTest {
+    private static final String BOOKING_LINE = "{\"id\":1,\"status\":\"APPROVED\"}\n";
+
+    private static StubServer server;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    private volatile String exportBody;
+    private volatile int exportStatus;
+    private volatile String requestedUri;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> server.url());
+    }
+
+    /**
+     * Started per class, the reactive subclass runs the same tests against its own server.
+     */
+    @BeforeAll
+    static void startServer() {
+        server = new StubServer(10);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+        exportBody = BOOKING_LINE.repeat(50_000);
+        exportStatus = 200;
+        server.setHandler(this::exportBookings);
+    }
+
+    @Test
+    void largeExportIsRelayedWithServerHeadersTest() {
+        ResponseEntity<String> response = get("/bookings/export?state=past");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(exportBody, response.getBody());
+        assertEquals("application/x-ndjson", response.getHeaders().getFirst("Content-Type"));
+        assertEquals("attachment; filename=bookings.ndjson", response.getHeaders().getFirst("Content-Disposition"));
+        assertNull(response.getHeaders().getFirst("X-Stub-Hop"));
+        assertEquals("/bookings/export?state=PAST&format=ndjson", requestedUri);
+    }
+
+    @Test
+    void serverErrorIsPassedAsIsTest() {
+        exportStatus = 404;
+        exportBody = "{\"error\":\"Не найден пользователь id: 1\"}";
+
+        ResponseEntity<String> response = get("/bookings/owner/export");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(exportBody, response.getBody());
+        assertEquals("/bookings/owner/export?state=ALL&format=ndjson", requestedUri);
+    }
+
+    private ResponseEntity<String> get(String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", "1");
+        return rest.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private void exportBookings(HttpExchange exchange) throws IOException {
+        requestedUri = exchange.getRequestURI().toString();
+        byte[] body = exportBody.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", exportStatus == 200 ? "application/x-ndjson" : "application/json");
+        if (exportStatus == 200) {
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=bookings.ndjson");
+        }
+        exchange.getResponseHeaders().set("Connection", "X-Stub-Hop");
+        exchange.getResponseHeaders().set("X-Stub-Hop", "stub");
+        exchange.sendResponseHeaders(exportStatus, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < body.length; i += 64 * 1024) {
+                out.write(body, i, Math.min(64 * 1024, body.length - i));
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the gateway once in each client mode with the same 50 servlet threads and sends 500 concurrent
+ * clients through it to a server answering in one second. The blocking mode holds a servlet thread for
+ * every proxied request, so at most 50 of them reach the server together; the reactive mode releases
+ * the thread and keeps all of them in flight. Throughput, server-side concurrency, peak gateway threads
+ * and peak heap of both runs are logged.
+ * <p>
+ * The blocking mode can't pass 50 requests per second here, so the reactive mode must be at least
+ * 1.3 times faster. That leaves room for a single-core build where it soon waits for the cpu and runs
+ * 1.7 to 3 times faster. On a machine with spare cores pass a higher ratio, like
+ * {@code -Dgateway.benchmark.min-reactive-speedup=3}.
+ */
+@Slf4j
+class ClientModeBenchmarkTest {
+    private static final int CLIENTS = 500;
+    private static final int REQUESTS = 500;
+    private static final int WARMUP_REQUESTS = 200;
+    private static final int SERVLET_THREADS = 50;
+    private static final Duration SERVER_DELAY = Duration.ofSeconds(1);
+    private static final double MIN_REACTIVE_SPEEDUP =
+            Double.parseDouble(System.getProperty("gateway.benchmark.min-reactive-speedup", "1.3"));
+
+    private static final StubServer server = new StubServer(CLIENTS);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void reactiveModeKeepsMoreRequestsInFlightTest() {
+        server.setDelay(SERVER_DELAY);
+
+        Result blocking = benchmark("blocking");
+        Result reactive = benchmark("reactive");
+
+        assertTrue(blocking.maxInFlight <= SERVLET_THREADS, "blocking in flight " + blocking.maxInFlight);
+        assertTrue(reactive.maxInFlight > 2 * SERVLET_THREADS, "reactive in flight " + reactive.maxInFlight);
+        assertTrue(reactive.throughput > MIN_REACTIVE_SPEEDUP * blocking.throughput,
+                "throughput blocking " + blocking.throughput + ", reactive " + reactive.throughput);
+    }
+
+    private Result benchmark(String mode) {
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class).run(
+                "--server.port=0",
+                "--shareit-server.url=" + server.url(),
+                "--shareit-server.client-mode=" + mode,
+                "--shareit-server.response-cache.enabled=false",
+                "--shareit-server.http-client.max-connections=" + CLIENTS,
+                "--shareit-server.http-client.max-connections-per-route=" + CLIENTS,
+                "--shareit-server.http-client.connection-request-timeout=30s",
+                "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                "--server.tomcat.accept-count=" + CLIENTS,
+                "--logging.level.org.springframework.web.client.RestTemplate=INFO")) {
+            URI uri = URI.create("http://localhost:"
+                    + gateway.getEnvironment().getProperty("local.server.port") + "/users");
+            run(uri, WARMUP_REQUESTS);
+            System.gc();
+            server.reset();
+            server.setDelay(SERVER_DELAY);
+
+            Sampler sampler = new Sampler();
+            sampler.start();
+            long started = System.nanoTime();
+            run(uri, REQUESTS);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            sampler.interrupt();
+
+            Result result = new Result(REQUESTS * 1e9 / elapsed.toNanos(), server.maxInFlight());
+            log.info("{} mode: {} requests/s, {} requests in flight at the server, peak {} gateway threads, peak heap {} MB",
+                    mode, Math.round(result.throughput), result.maxInFlight, sampler.maxThreads.get(),
+                    sampler.maxHeap.get() / (1024 * 1024));
+            return result;
+        }
+    }
+
+    private void run(URI uri, int count) {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        Semaphore inFlight = new Semaphore(CLIENTS);
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            inFlight.acquireUninterruptibly();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        if (e != null || response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(responses).exceptionally(e -> null).join();
+        assertEquals(0, failed.get());
+    }
+
+    private static class Result {
+        private final double throughput;
+        private final int maxInFlight;
+
+        private Result(double throughput, int maxInFlight) {
+            this.throughput = throughput;
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    /**
+     * Samples the servlet and reactor threads, the stub server and the clients run in the same jvm.
+     */
+    private static class Sampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final AtomicInteger maxThreads = new AtomicInteger();
+        private final AtomicLong maxHeap = new AtomicLong();
+
+        private Sampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                maxThreads.accumulateAndGet(gatewayThreads(), Math::max);
+                maxHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private int gatewayThreads() {
+            int count = 0;
+            for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+                if (thread != null && (thread.getThreadName().startsWith("http-nio-")
+                        || thread.getThreadName().startsWith("reactor-http-"))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends the same load of 500 concurrent clients once straight to a stub server and once through the gateway,
+ * and compares the 99th percentiles of the latencies. The server answers in 3 to 5 seconds, so the clients
+ * stay in flight together without finishing in step and the gateway is not saturated.
+ * <p>
+ * Every request has to succeed, and the overhead must stay below the shortest server delay, so a request
+ * that waits a whole server round for a connection or a thread fails the build. The clients, the gateway and
+ * the stub share the machine, on a single-core build the overhead is mostly waiting for the cpu, about 0.7
+ * to 1.6 s. On a machine with spare cores pass a target, like {@code -Dgateway.load-test.max-p99-overhead=PT0.1S}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=blocking",
+        "shareit-server.response-cache.enabled=false",
+        "shareit-server.http-client.max-connections=500",
+        "shareit-server.http-client.max-connections-per-route=500",
+        "shareit-server.http-client.connection-request-timeout=5s",
+        "server.tomcat.threads.max=500",
+        "server.tomcat.accept-count=1000",
+        "logging.level.org.springframework.web.client.RestTemplate=INFO"
+})
+@Slf4j
+class GatewayLoadTest {
+    private static final int CLIENTS = 500;
+    private static final int REQUESTS = 1000;
+    private static final Duration SERVER_DELAY = Duration.ofSeconds(3);
+    private static final Duration SERVER_DELAY_JITTER = Duration.ofSeconds(2);
+    private static final Duration MAX_P99_OVERHEAD =
+            Duration.parse(System.getProperty("gateway.load-test.max-p99-overhead", SERVER_DELAY.toString()));
+
+    private static final StubServer server = new StubServer(CLIENTS);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", server::url);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void p99OverheadUnderConcurrentClientsTest() {
+        server.setDelay(SERVER_DELAY, SERVER_DELAY_JITTER);
+        URI direct = URI.create(server.url() + "/users");
+        URI gateway = URI.create("http://localhost:" + port + "/users");
+        run(gateway, REQUESTS / 2);
+        run(direct, REQUESTS / 2);
+
+        long[] directLatencies = run(direct, REQUESTS);
+        long[] gatewayLatencies = run(gateway, REQUESTS);
+
+        Duration directP99 = p99(directLatencies);
+        Duration gatewayP99 = p99(gatewayLatencies);
+        Duration overhead = gatewayP99.minus(directP99);
+        log.info("p99 latency of {} concurrent clients: directly {} ms, through the gateway {} ms, overhead {} ms",
+                CLIENTS, directP99.toMillis(), gatewayP99.toMillis(), overhead.toMillis());
+        assertTrue(overhead.compareTo(MAX_P99_OVERHEAD) < 0, "p99 overhead " + overhead);
+    }
+
+    /**
+     * Keeps {@link #CLIENTS} requests in flight until the count is sent, returns the latencies in nanoseconds.
+     */
+    private long[] run(URI uri, int count) {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        Semaphore inFlight = new Semaphore(CLIENTS);
+        long[] latencies = new long[count];
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            inFlight.acquireUninterruptibly();
+            int n = i;
+            long started = System.nanoTime();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        latencies[n] = System.nanoTime() - started;
+                        if (e != null || response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(responses).exceptionally(e -> null).join();
+        assertEquals(0, failed.get());
+        return latencies;
+    }
+
+    private static Duration p99(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return Duration.ofNanos(sorted[(int) Math.ceil(sorted.length * 0.99) - 1]);
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.client.ResponseCache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Every cached response is stale at once, so each gateway GET revalidates it with the server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.response-cache.fresh-for=0s"
+})
+class GatewayResponseCacheTest {
+    private static final String SERVER_KEEP_ALIVE = "timeout=7, max=3";
+
+    private static StubServer server;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    private final List<String> receivedEtags = new CopyOnWriteArrayList<>();
+    private final List<String> receivedPaths = new CopyOnWriteArrayList<>();
+    private volatile String body;
+    private volatile String etag;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> server.url());
+    }
+
+    @BeforeAll
+    static void startServer() {
+        server = new StubServer(4);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+        responseCache.invalidateAll();
+        body = "{\"id\":1,\"name\":\"item\"}";
+        etag = "\"v1\"";
+        server.setHandler(this::reply);
+    }
+
+    @Test
+    void unchangedResponseIsRevalidatedWithEtagTest() {
+        ResponseEntity<String> first = get("/items/1");
+        ResponseEntity<String> second = get("/items/1");
+
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("\"v1\"", second.getHeaders().getETag());
+        assertEquals(List.of("", "\"v1\""), receivedEtags);
+    }
+
+    @Test
+    void changedResponseReplacesCachedOneTest() {
+        get("/items/1");
+        body = "{\"id\":1,\"name\":\"changed\"}";
+        etag = "\"v2\"";
+
+        assertEquals(body, get("/items/1").getBody());
+        assertEquals(body, get("/items/1").getBody());
+        assertEquals(List.of("", "\"v1\"", "\"v2\""), receivedEtags);
+    }
+
+    @Test
+    void hopByHopHeadersOfServerAreNotPassedTest() {
+        ResponseEntity<String> response = get("/items/1");
+
+        assertEquals("request-1", response.getHeaders().getFirst("X-Request-Id"));
+        assertNotEquals(SERVER_KEEP_ALIVE, response.getHeaders().getFirst("Keep-Alive"));
+        assertFalse(response.getHeaders().containsKey("X-Server-Hop"));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.TRANSFER_ENCODING));
+
+        ResponseEntity<String> revalidated = get("/items/1");
+
+        assertEquals("request-1", revalidated.getHeaders().getFirst("X-Request-Id"));
+        assertFalse(revalidated.getHeaders().containsKey("X-Server-Hop"));
+    }
+
+    @Test
+    void commentEvictsItemAndSearchTest() {
+        get("/items/1");
+        get("/items/search?text=item");
+        receivedEtags.clear();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Sharer-User-Id", "2");
+        rest.postForEntity("/items/1/comment", new HttpEntity<>("{\"text\":\"comment\"}", headers), String.class);
+        get("/items/1");
+        get("/items/search?text=item");
+
+        assertEquals(List.of("", ""), receivedEtags);
+        assertEquals(List.of("/items/1/comment", "/items/1", "/items/search"),
+                receivedPaths.subList(receivedPaths.size() - 3, receivedPaths.size()));
+    }
+
+    private ResponseEntity<String> get(String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", "1");
+        return rest.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private void reply(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        receivedPaths.add(exchange.getRequestURI().getPath());
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if ("GET".equals(exchange.getRequestMethod())) {
+            receivedEtags.add(ifNoneMatch != null ? ifNoneMatch : "");
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("X-Request-Id", "request-1");
+        exchange.getResponseHeaders().set("Keep-Alive", SERVER_KEEP_ALIVE);
+        exchange.getResponseHeaders().set("X-Server-Hop", "pool-1");
+        exchange.getResponseHeaders().set("Connection", "X-Server-Hop");
+        if (etag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        byte[] response = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=blocking",
+        "shareit-server.http-client.read-timeout=1s"
+})
+class ItemImportStreamingTest {
+    private static final String VALID_ITEM = "{\"name\":\"item\",\"description\":\"description\",\"available\":true}";
+
+    private static StubServer server;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile String serverResult;
+    private volatile long firstByteReceived;
+    private volatile String receivedBody;
+    private volatile String receivedTransferEncoding;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> server.url());
+    }
+
+    /**
+     * Started per class, the reactive subclass runs the same tests against its own server.
+     */
+    @BeforeAll
+    static void startServer() {
+        server = new StubServer(10);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+        serverResult = "{\"imported\":0,\"failed\":0,\"errors\":[]}";
+        server.setHandler(this::importItems);
+    }
+
+    @Test
+    void validLinesArePassedToServerTest() throws IOException {
+        serverResult = "{\"imported\":2,\"failed\":0,\"errors\":[]}";
+
+        ResponseEntity<String> response = post(VALID_ITEM + "\n\n" + VALID_ITEM);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(VALID_ITEM + "\n\n" + VALID_ITEM + "\n", receivedBody);
+        assertEquals("chunked", receivedTransferEncoding);
+        assertEquals(2, objectMapper.readTree(response.getBody()).get("imported").asLong());
+    }
+
+    @Test
+    void rejectedLinesAreBlankedAndReportedWithServerErrorsTest() throws IOException {
+        serverResult = "{\"imported\":1,\"failed\":1,\"errors\":[{\"row\":4,\"error\":\"Not found item request id: 7\"}]}";
+
+        ResponseEntity<String> response = post(VALID_ITEM + "\n{\"name\":\n"
+                + "{\"description\":\"description\",\"available\":true}\n"
+                + "{\"name\":\"item\",\"description\":\"description\",\"available\":true,\"requestId\":7}");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(VALID_ITEM + "\n\n\n{\"name\":\"item\",\"description\":\"description\",\"available\":true,"
+                + "\"requestId\":7}\n", receivedBody);
+        JsonNode result = objectMapper.readTree(response.getBody());
+        assertEquals(1, result.get("imported").asLong());
+        assertEquals(3, result.get("failed").asLong());
+        assertEquals(2, result.get("errors").get(0).get("row").asLong());
+        assertTrue(result.get("errors").get(0).get("error").asText().startsWith("Wrong item json"));
+        assertEquals(3, result.get("errors").get(1).get("row").asLong());
+        assertEquals("Not found item name", result.get("errors").get(1).get("error").asText());
+        assertEquals(4, result.get("errors").get(2).get("row").asLong());
+    }
+
+    @Test
+    void serverErrorIsPassedAsIsTest() {
+        serverResult = null;
+
+        ResponseEntity<String> response = post("{\"name\":");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("{\"error\":\"Не найден пользователь id: 1\"}", response.getBody());
+    }
+
+    /**
+     * A large import sent slowly takes longer than the read timeout, the timeout only covers the wait for
+     * the server after the last line, and the server gets the first lines while the rest is still coming.
+     */
+    @Test
+    void importSentLongerThanReadTimeoutIsStreamedTest() throws Exception {
+        List<byte[]> pieces = new ArrayList<>();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String piece = (VALID_ITEM + "\n").repeat(1000);
+            pieces.add(piece.getBytes(UTF_8));
+            ndjson.append(piece);
+        }
+        serverResult = "{\"imported\":100000,\"failed\":0,\"errors\":[]}";
+        Iterable<byte[]> slowPieces = () -> pieces.stream()
+                .peek(piece -> pause(Duration.ofMillis(20)))
+                .iterator();
+
+        long started = System.nanoTime();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(rest.getRootUri() + "/items/batch"))
+                        .header("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .header("X-Sharer-User-Id", "1")
+                        .POST(HttpRequest.BodyPublishers.ofByteArrays(slowPieces))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) > 0, "elapsed " + elapsed);
+        assertTrue(firstByteReceived - started < Duration.ofSeconds(1).toNanos(),
+                "first byte after " + Duration.ofNanos(firstByteReceived - started));
+        assertEquals(ndjson.toString(), receivedBody);
+        assertEquals(100_000, objectMapper.readTree(response.body()).get("imported").asLong());
+    }
+
+    private ResponseEntity<String> post(String ndjson) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        headers.set("X-Sharer-User-Id", "1");
+        return rest.postForEntity("/items/batch", new HttpEntity<>(ndjson.getBytes(UTF_8), headers), String.class);
+    }
+
+    private void importItems(HttpExchange exchange) throws IOException {
+        receivedTransferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() == 0) {
+                    firstByteReceived = System.nanoTime();
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        receivedBody = body.toString(UTF_8);
+        byte[] response = (serverResult != null ? serverResult : "{\"error\":\"Не найден пользователь id: 1\"}")
+                .getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(serverResult != null ? 200 : 404, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static void pause(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=reactive"
+})
+class ReactiveBookingExportStreamingTest extends BookingExportStreamingTest {
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=reactive",
+        "shareit-server.http-client.read-timeout=1s"
+})
+class ReactiveItemImportStreamingTest extends ItemImportStreamingTest {
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=reactive",
+        "shareit-server.response-cache.enabled=false",
+        "shareit-server.http-client.max-in-memory-size=2MB"
+})
+class ReactiveServerExchangeTest {
+    private static final StubServer server = new StubServer(10);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", server::url);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+    }
+
+    @Test
+    void responseAboveDefaultCodecLimitIsProxiedTest() {
+        byte[] body = jsonArrayOfSize(1024 * 1024);
+        server.setBody(body);
+
+        ResponseEntity<byte[]> response = rest.getForEntity("/users", byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(body, response.getBody());
+    }
+
+    @Test
+    void responseAboveConfiguredLimitFailsTest() {
+        server.setBody(jsonArrayOfSize(3 * 1024 * 1024));
+
+        ResponseEntity<String> response = rest.getForEntity("/users", String.class);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    private static byte[] jsonArrayOfSize(int size) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) ' ');
+        byte[] brackets = "[]".getBytes(UTF_8);
+        body[0] = brackets[0];
+        body[size - 1] = brackets[1];
+        return body;
+    }
+}
@@ -0,0 +1,213 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ResponseCacheProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> sentEtags = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        properties.setFreshFor(Duration.ofMinutes(1));
+        responseCache = new ResponseCache(properties, meterRegistry);
+    }
+
+    private ResponseCache.Key key(String uri, Long userId) {
+        return responseCache.key(UriComponentsBuilder.fromUriString(uri).build(), userId);
+    }
+
+    private Function<String, Mono<ResponseEntity<byte[]>>> loader(HttpStatus status, String body, String etag) {
+        return sentEtag -> {
+            loads.incrementAndGet();
+            sentEtags.add(sentEtag);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(etag);
+            return Mono.just(ResponseEntity.status(status).headers(headers)
+                    .body(body != null ? body.getBytes(UTF_8) : null));
+        };
+    }
+
+    private String get(ResponseCache.Key key, Function<String, Mono<ResponseEntity<byte[]>>> loader) {
+        return new String(responseCache.get(key, loader).block().getBody(), UTF_8);
+    }
+
+    @Test
+    void freshResponseIsServedWithoutLoadTest() {
+        ResponseCache.Key key = key("/items/1", 1L);
+
+        assertEquals("item", get(key, loader(HttpStatus.OK, "item", "\"v1\"")));
+        assertEquals("item", get(key, loader(HttpStatus.OK, "changed", "\"v2\"")));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cacheGets("hit"));
+        assertEquals(1, cacheGets("miss"));
+        assertEquals(0, revalidations("unchanged"));
+    }
+
+    @Test
+    void responsesAreKeptPerQueryAndUserTest() {
+        get(key("/items/1", 1L), loader(HttpStatus.OK, "item of user 1", "\"v1\""));
+        get(key("/items/search?text=a", null), loader(HttpStatus.OK, "search a", "\"v1\""));
+
+        assertEquals("item of user 2", get(key("/items/1", 2L), loader(HttpStatus.OK, "item of user 2", "\"v1\"")));
+        assertEquals("search b", get(key("/items/search?text=b", null), loader(HttpStatus.OK, "search b", "\"v1\"")));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void staleResponseIsRevalidatedWithEtagTest() {
+        properties.setFreshFor(Duration.ZERO);
+        ResponseCache.Key key = key("/items/1", 1L);
+        get(key, loader(HttpStatus.OK, "item", "\"v1\""));
+
+        ResponseEntity<byte[]> revalidated = responseCache.get(key, loader(HttpStatus.NOT_MODIFIED, null, "\"v1\""))
+                .block();
+
+        assertEquals(HttpStatus.OK, revalidated.getStatusCode());
+        assertArrayEquals("item".getBytes(UTF_8), revalidated.getBody());
+        assertEquals("\"v1\"", revalidated.getHeaders().getETag());
+        assertEquals("changed", get(key, loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals("changed", get(key, loader(HttpStatus.NOT_MODIFIED, null, "\"v2\"")));
+        assertEquals(List.of("\"v1\"", "\"v1\"", "\"v2\""), sentEtags.subList(1, 4));
+        assertNull(sentEtags.get(0));
+    }
+
+    @Test
+    void staleResponseCountsAsRevalidationNotHitTest() {
+        properties.setFreshFor(Duration.ZERO);
+        ResponseCache.Key key = key("/items/1", 1L);
+        get(key, loader(HttpStatus.OK, "item", "\"v1\""));
+
+        get(key, loader(HttpStatus.NOT_MODIFIED, null, "\"v1\""));
+        get(key, loader(HttpStatus.OK, "changed", "\"v2\""));
+
+        assertEquals(0, cacheGets("hit"));
+        assertEquals(3, cacheGets("miss"));
+        assertEquals(1, revalidations("unchanged"));
+        assertEquals(1, revalidations("changed"));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "gatewayResponses").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private double revalidations(String result) {
+        return meterRegistry.get("cache.revalidations").tag("cache", "gatewayResponses").tag("result", result)
+                .counter().count();
+    }
+
+    @Test
+    void failedResponseIsNotCachedTest() {
+        ResponseCache.Key key = key("/items/1", 1L);
+
+        assertEquals(HttpStatus.NOT_FOUND,
+                responseCache.get(key, loader(HttpStatus.NOT_FOUND, "{}", null)).block().getStatusCode());
+        assertEquals("item", get(key, loader(HttpStatus.OK, "item", "\"v1\"")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidatedPathIsLoadedAgainAndOtherPathsStayTest() {
+        get(key("/items/1", 1L), loader(HttpStatus.OK, "item 1", "\"v1\""));
+        get(key("/items/1", 2L), loader(HttpStatus.OK, "item 1", "\"v1\""));
+        get(key("/items/2", 1L), loader(HttpStatus.OK, "item 2", "\"v1\""));
+
+        responseCache.invalidate("/items/1");
+
+        assertEquals("changed", get(key("/items/1", 1L), loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals("changed", get(key("/items/1", 2L), loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals("item 2", get(key("/items/2", 1L), loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals(5, loads.get());
+        assertNull(sentEtags.get(3));
+    }
+
+    @Test
+    void invalidatedPrefixIsLoadedAgainTest() {
+        get(key("/requests/1", 1L), loader(HttpStatus.OK, "request", "\"v1\""));
+        get(key("/items/1", 1L), loader(HttpStatus.OK, "item", "\"v1\""));
+
+        responseCache.invalidatePathsStartingWith("/requests/");
+
+        assertEquals("changed", get(key("/requests/1", 1L), loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals("changed", get(key("/requests/1", 1L), loader(HttpStatus.OK, "again", "\"v3\"")));
+        assertEquals("item", get(key("/items/1", 1L), loader(HttpStatus.OK, "changed", "\"v2\"")));
+
+        responseCache.invalidateAll();
+
+        assertEquals("again", get(key("/requests/1", 1L), loader(HttpStatus.OK, "again", "\"v3\"")));
+        assertEquals("changed", get(key("/items/1", 1L), loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void responseLoadedDuringInvalidationIsNotCachedTest() {
+        ResponseCache.Key key = key("/items/1", 1L);
+        ResponseCache.Key otherKey = key("/items/2", 1L);
+        Sinks.One<ResponseEntity<byte[]>> inFlight = Sinks.one();
+        Sinks.One<ResponseEntity<byte[]>> otherInFlight = Sinks.one();
+        Mono<ResponseEntity<byte[]>> response = responseCache.get(key, etag -> inFlight.asMono()).cache();
+        Mono<ResponseEntity<byte[]>> otherResponse = responseCache.get(otherKey, etag -> otherInFlight.asMono()).cache();
+        response.subscribe();
+        otherResponse.subscribe();
+
+        responseCache.invalidate("/items/1");
+        inFlight.tryEmitValue(ResponseEntity.ok().body("old".getBytes(UTF_8)));
+        otherInFlight.tryEmitValue(ResponseEntity.ok().body("other".getBytes(UTF_8)));
+
+        assertEquals("old", new String(response.block().getBody(), UTF_8));
+        assertEquals("new", get(key, loader(HttpStatus.OK, "new", "\"v2\"")));
+        assertEquals("other", get(otherKey, loader(HttpStatus.OK, "changed", "\"v2\"")));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void cachedBodiesStayWithinMaxSizeTest() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        properties.setMaxSize(DataSize.ofKilobytes(4));
+        responseCache = new ResponseCache(properties, registry);
+        String body = "x".repeat(1000);
+
+        for (int i = 0; i < 20; i++) {
+            get(key("/items/" + i, 1L), loader(HttpStatus.OK, body, "\"v1\""));
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (cacheSize(registry) > 4 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(cacheSize(registry) <= 4, "cached " + cacheSize(registry));
+        assertTrue(registry.get("cache.evictions").tag("cache", "gatewayResponses")
+                .functionCounter().count() >= 16);
+    }
+
+    private double cacheSize(SimpleMeterRegistry registry) {
+        return registry.get("cache.size").tag("cache", "gatewayResponses").gauge().value();
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.client-mode=blocking",
+        "shareit-server.response-cache.enabled=false",
+        "shareit-server.http-client.max-connections-per-route=2",
+        "shareit-server.http-client.connection-request-timeout=300ms",
+        "shareit-server.http-client.read-timeout=1s",
+        "shareit-server.http-client.idle-eviction-timeout=500ms"
+})
+@AutoConfigureMockMvc
+class ServerConnectionPoolTest {
+    private static final StubServer server = new StubServer(10);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", server::url);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+    }
+
+    @Test
+    void sequentialRequestsReuseOnePooledConnectionTest() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(HttpStatus.OK, rest.getForEntity("/users", String.class).getStatusCode());
+        }
+
+        assertEquals(20, server.requests());
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void responseIsWrittenWithoutAsyncDispatchTest() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+        mockMvc.perform(get("/bookings/export").header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().string("[]"));
+    }
+
+    @Test
+    void requestBodyIsSentAsJsonTest() {
+        UserDto user = new UserDto(null, "user", "user@email");
+
+        assertEquals(HttpStatus.OK, rest.postForEntity("/users", user, String.class).getStatusCode());
+
+        assertEquals("application/json", server.lastRequestHeaders().getFirst("Content-Type"));
+        assertEquals("{\"id\":null,\"name\":\"user\",\"email\":\"user@email\"}",
+                new String(server.lastRequestBody(), UTF_8));
+    }
+
+    @Test
+    void requestWaitingLongerThanConnectionRequestTimeoutFailsTest() throws InterruptedException {
+        server.setDelay(Duration.ofMillis(800));
+        CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(() ->
+                rest.getForEntity("/users", String.class));
+        CompletableFuture<ResponseEntity<String>> second = CompletableFuture.supplyAsync(() ->
+                rest.getForEntity("/users", String.class));
+        awaitRequests(2);
+
+        long started = System.nanoTime();
+        ResponseEntity<String> rejected = rest.getForEntity("/users", String.class);
+        Duration waited = Duration.ofNanos(System.nanoTime() - started);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, rejected.getStatusCode());
+        assertTrue(waited.compareTo(Duration.ofMillis(700)) < 0, "waited " + waited);
+        assertEquals(HttpStatus.OK, first.join().getStatusCode());
+        assertEquals(HttpStatus.OK, second.join().getStatusCode());
+        assertEquals(2, server.requests());
+        assertTrue(server.connections() <= 2);
+    }
+
+    @Test
+    void slowServerResponseFailsAfterReadTimeoutTest() {
+        server.setDelay(Duration.ofSeconds(3));
+
+        long started = System.nanoTime();
+        ResponseEntity<String> response = rest.getForEntity("/users", String.class);
+        Duration waited = Duration.ofNanos(System.nanoTime() - started);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertTrue(waited.compareTo(Duration.ofSeconds(1)) >= 0, "waited " + waited);
+        assertTrue(waited.compareTo(Duration.ofSeconds(3)) < 0, "waited " + waited);
+    }
+
+    @Test
+    void idleConnectionsAreEvictedTest() throws InterruptedException {
+        assertEquals(HttpStatus.OK, rest.getForEntity("/users", String.class).getStatusCode());
+        assertTrue(connectionManager.getTotalStats().getAvailable() > 0);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (connectionManager.getTotalStats().getAvailable() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(0, connectionManager.getTotalStats().getAvailable());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    void poolMetricsAreExposedTest() {
+        assertEquals(HttpStatus.OK, rest.getForEntity("/users", String.class).getStatusCode());
+
+        assertEquals(2, meterRegistry.get("httpcomponents.httpclient.pool.route.max.default")
+                .tag("httpclient", "shareit-server").gauge().value());
+        assertEquals(400, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "shareit-server").gauge().value());
+        assertEquals(0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "shareit-server").tag("state", "leased").gauge().value());
+    }
+
+    private static void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (server.requests() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
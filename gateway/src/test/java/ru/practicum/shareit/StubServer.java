@@ -0,0 +1,150 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Plain HTTP server standing in for the shareit server. By default every request is answered with
+ * a small JSON body after the configured delay; tests can replace the handler.
+ */
+class StubServer implements AutoCloseable {
+    static {
+        // the JDK server closes idle keep-alive connections above this count, which would hide pool reuse
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "2000");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile Duration delay = Duration.ZERO;
+    private volatile Duration jitter = Duration.ZERO;
+    private volatile byte[] body = "[]".getBytes(UTF_8);
+    private volatile HttpHandler handler = this::reply;
+    private volatile Headers lastRequestHeaders;
+    private volatile byte[] lastRequestBody;
+
+    StubServer(int threads) {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                handler.handle(exchange);
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void setDelay(Duration delay) {
+        setDelay(delay, Duration.ZERO);
+    }
+
+    /**
+     * Every response waits the delay plus a random part of the jitter, so concurrent clients don't finish in step.
+     */
+    void setDelay(Duration delay, Duration jitter) {
+        this.delay = delay;
+        this.jitter = jitter;
+    }
+
+    void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    void setHandler(HttpHandler handler) {
+        this.handler = handler;
+    }
+
+    void reset() {
+        delay = Duration.ZERO;
+        jitter = Duration.ZERO;
+        body = "[]".getBytes(UTF_8);
+        handler = this::reply;
+        clientPorts.clear();
+        requests.set(0);
+        maxInFlight.set(0);
+    }
+
+    /**
+     * Number of distinct client connections seen since the last reset.
+     */
+    int connections() {
+        return clientPorts.size();
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    /**
+     * Largest number of requests handled at the same time since the last reset.
+     */
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    Headers lastRequestHeaders() {
+        return lastRequestHeaders;
+    }
+
+    byte[] lastRequestBody() {
+        return lastRequestBody;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void reply(HttpExchange exchange) throws IOException {
+        lastRequestHeaders = exchange.getRequestHeaders();
+        lastRequestBody = exchange.getRequestBody().readAllBytes();
+        try {
+            long jitterMillis = jitter.toMillis();
+            Thread.sleep(delay.toMillis() + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        byte[] responseBody = body;
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, responseBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(responseBody);
+        }
+    }
+}
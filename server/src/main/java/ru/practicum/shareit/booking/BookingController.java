@@ -1,8 +1,16 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.export.BookingExport;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.CursorPage;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
@@ -35,23 +43,71 @@ public class BookingController {
 
     @GetMapping("/{id}")
     public ResponseEntity<?> get(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                 @PathVariable("id") Long id) {
-        return new ResponseEntity<>(bookingService.findBooking(userId, id), OK);
+                                 @PathVariable("id") Long id,
+                                 WebRequest request) {
+        String etag = bookingService.getBookingEtag(userId, id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(bookingService.findBooking(userId, id));
     }
 
     @GetMapping
     public ResponseEntity<?> getAllUserBookings(@RequestHeader("X-Sharer-User-Id") Long bookerId,
                                                 @RequestParam(value = "state", required = false) String bookingState,
                                                 @RequestParam(value = "from", required = false) Integer from,
-                                                @RequestParam(value = "size", required = false) Integer size) {
-        return new ResponseEntity<>(bookingService.findAllBookerBookings(bookerId, bookingState, from, size), OK);
+                                                @RequestParam(value = "size", required = false) Integer size,
+                                                @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return toCursorPageResponse(bookingService.findBookerBookingsPage(bookerId, bookingState, cursor, size));
+        }
+        return toCursorPageResponse(bookingService.findAllBookerBookings(bookerId, bookingState, from, size));
     }
 
     @GetMapping("/owner")
     public ResponseEntity<?> getAllOwnerBookings(@RequestHeader("X-Sharer-User-Id") Long ownerId,
                                                  @RequestParam(value = "state", required = false) String bookingState,
                                                  @RequestParam(value = "from", required = false) Integer from,
-                                                 @RequestParam(value = "size", required = false) Integer size) {
-        return new ResponseEntity<>(bookingService.findAllOwnerBookings(ownerId, bookingState, from, size), OK);
+                                                 @RequestParam(value = "size", required = false) Integer size,
+                                                 @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return toCursorPageResponse(bookingService.findOwnerBookingsPage(ownerId, bookingState, cursor, size));
+        }
+        return toCursorPageResponse(bookingService.findAllOwnerBookings(ownerId, bookingState, from, size));
+    }
+
+    @GetMapping("/export")
+    public void exportUserBookings(@RequestHeader("X-Sharer-User-Id") Long bookerId,
+                                   @RequestParam(value = "state", required = false) String bookingState,
+                                   @RequestParam(value = "format", required = false) String format,
+                                   HttpServletResponse response) throws IOException {
+        writeExport(bookingService.prepareBookerExport(bookerId, bookingState, format), response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportOwnerBookings(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                    @RequestParam(value = "state", required = false) String bookingState,
+                                    @RequestParam(value = "format", required = false) String format,
+                                    HttpServletResponse response) throws IOException {
+        writeExport(bookingService.prepareOwnerExport(ownerId, bookingState, format), response);
+    }
+
+    /**
+     * The export is checked before the response starts, so a wrong request still gets an error status.
+     */
+    private void writeExport(BookingExport export, HttpServletResponse response) throws IOException {
+        response.setContentType(export.getFormat().getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"bookings." + export.getFormat().getExtension() + "\"");
+        bookingService.writeExport(export, response.getOutputStream());
+    }
+
+    private ResponseEntity<?> toCursorPageResponse(CursorPage<BookingDto> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getContent(), headers, OK);
     }
 }
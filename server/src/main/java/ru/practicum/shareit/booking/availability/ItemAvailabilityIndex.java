@@ -0,0 +1,154 @@
+package ru.practicum.shareit.booking.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.cache.CacheInvalidationChannel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import static ru.practicum.shareit.booking.availability.ItemBookingIntervals.toEpochMilli;
+
+/**
+ * Keeps sorted booking intervals of recently used items in memory, so overlap checks and free windows
+ * are binary searches instead of queries.
+ * <p>
+ * A booking saved here is added to the intervals of its item after commit, the item is not loaded again.
+ * The other instances drop the item through the invalidation channel and load it when next used.
+ * Entries expire a fixed time after they were loaded, updates don't extend it, which bounds how long
+ * an entry can miss a change whose invalidation was lost.
+ */
+@Component
+@Slf4j
+public class ItemAvailabilityIndex implements MeterBinder {
+    private static final String REGION = "bookingIntervals";
+    private static final int GENERATION_STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemBookingIntervals> intervals;
+    private final Consumer<Long> publisher;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ItemAvailabilityIndex(BookingRepository bookingRepository, CacheInvalidationChannel channel,
+                                 @Value("${shareit.availability-index.max-items:10000}") int maxItems,
+                                 @Value("${shareit.availability-index.expire-after-load:10m}") Duration expireAfterLoad) {
+        this.bookingRepository = bookingRepository;
+        this.intervals = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfter(new Expiry<Long, ItemBookingIntervals>() {
+                    @Override
+                    public long expireAfterCreate(Long itemId, ItemBookingIntervals value, long currentTime) {
+                        return expireAfterLoad.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long itemId, ItemBookingIntervals value, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long itemId, ItemBookingIntervals value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.publisher = channel.subscribe(REGION, this::evict);
+    }
+
+    public boolean overlaps(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return getIntervals(itemId).overlaps(toEpochMilli(start), toEpochMilli(end));
+    }
+
+    public List<FreeWindow> findFreeWindows(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return getIntervals(itemId).freeWindows(toEpochMilli(from), toEpochMilli(to));
+    }
+
+    /**
+     * Applies a saved or changed booking to the intervals of its item once the transaction commits,
+     * nothing changes if it rolls back.
+     */
+    public void recordBooking(Booking booking) {
+        Booking saved = copy(booking);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(saved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(saved);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, intervals, REGION);
+    }
+
+    /**
+     * A load that read the bookings before the change was committed sees the generation change
+     * and doesn't store its intervals.
+     */
+    private void apply(Booking booking) {
+        synchronized (intervals) {
+            generations.incrementAndGet(stripe(booking.getItemId()));
+            intervals.asMap().computeIfPresent(booking.getItemId(), (itemId, current) -> current.with(booking));
+        }
+        publisher.accept(booking.getItemId());
+    }
+
+    private ItemBookingIntervals getIntervals(Long itemId) {
+        ItemBookingIntervals itemIntervals = intervals.getIfPresent(itemId);
+        if (itemIntervals != null) {
+            return itemIntervals;
+        }
+        long generation = generations.get(stripe(itemId));
+        itemIntervals = ItemBookingIntervals.of(bookingRepository.findBookingsOfItem(itemId));
+        synchronized (intervals) {
+            if (generations.get(stripe(itemId)) == generation) {
+                intervals.put(itemId, itemIntervals);
+            }
+        }
+        log.debug("Загружены интервалы бронирований вещи id: {}, количество: {}", itemId, itemIntervals.size());
+        return itemIntervals;
+    }
+
+    private void evict(Long itemId) {
+        synchronized (intervals) {
+            generations.incrementAndGet(stripe(itemId));
+            intervals.invalidate(itemId);
+        }
+    }
+
+    private static Booking copy(Booking booking) {
+        Booking copy = new Booking();
+        copy.setId(booking.getId());
+        copy.setItemId(booking.getItemId());
+        copy.setStart(booking.getStart());
+        copy.setEnd(booking.getEnd());
+        copy.setStatus(booking.getStatus());
+        return copy;
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(itemId.hashCode(), GENERATION_STRIPES);
+    }
+}
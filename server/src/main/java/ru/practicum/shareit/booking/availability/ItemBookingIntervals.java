@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking.availability;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bookings of one item as arrays sorted by start. Only WAITING and APPROVED bookings occupy the item,
+ * maxActiveEnd[i] is the latest end of such bookings among the first i + 1 ones.
+ */
+final class ItemBookingIntervals {
+    private final long[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final boolean[] active;
+    private final long[] maxActiveEnd;
+
+    private ItemBookingIntervals(int size) {
+        ids = new long[size];
+        starts = new long[size];
+        ends = new long[size];
+        active = new boolean[size];
+        maxActiveEnd = new long[size];
+    }
+
+    static ItemBookingIntervals of(List<Booking> bookingsOrderedByStart) {
+        ItemBookingIntervals intervals = new ItemBookingIntervals(bookingsOrderedByStart.size());
+        for (int i = 0; i < bookingsOrderedByStart.size(); i++) {
+            Booking booking = bookingsOrderedByStart.get(i);
+            intervals.set(i, booking.getId(), toEpochMilli(booking.getStart()), toEpochMilli(booking.getEnd()),
+                    isActive(booking.getStatus()));
+        }
+        intervals.fillMaxActiveEnd();
+        return intervals;
+    }
+
+    static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    boolean overlaps(long start, long end) {
+        int startingBefore = countStartingBefore(end);
+        return startingBefore > 0 && maxActiveEnd[startingBefore - 1] > start;
+    }
+
+    /**
+     * Returns new intervals with the booking added, or with its previous interval replaced if it is already there.
+     */
+    ItemBookingIntervals with(Booking booking) {
+        long start = toEpochMilli(booking.getStart());
+        int existing = indexOf(booking.getId());
+        ItemBookingIntervals intervals = new ItemBookingIntervals(existing < 0 ? ids.length + 1 : ids.length);
+        boolean added = false;
+        int source = 0;
+        for (int target = 0; target < intervals.size(); target++) {
+            if (source == existing) {
+                source++;
+            }
+            if (!added && (source == ids.length || starts[source] > start)) {
+                intervals.set(target, booking.getId(), start, toEpochMilli(booking.getEnd()),
+                        isActive(booking.getStatus()));
+                added = true;
+            } else {
+                intervals.set(target, ids[source], starts[source], ends[source], active[source]);
+                source++;
+            }
+        }
+        intervals.fillMaxActiveEnd();
+        return intervals;
+    }
+
+    List<FreeWindow> freeWindows(long from, long to) {
+        List<FreeWindow> windows = new ArrayList<>();
+        long freeFrom = from;
+        for (int i = firstActiveEndingAfter(from); i < ids.length && starts[i] < to; i++) {
+            if (!active[i]) {
+                continue;
+            }
+            if (starts[i] > freeFrom) {
+                windows.add(new FreeWindow(fromEpochMilli(freeFrom), fromEpochMilli(starts[i])));
+            }
+            freeFrom = Math.max(freeFrom, ends[i]);
+        }
+        if (freeFrom < to) {
+            windows.add(new FreeWindow(fromEpochMilli(freeFrom), fromEpochMilli(to)));
+        }
+        return windows;
+    }
+
+    private static boolean isActive(BookingStatus status) {
+        return status == BookingStatus.WAITING || status == BookingStatus.APPROVED;
+    }
+
+    private void set(int i, long id, long start, long end, boolean isActive) {
+        ids[i] = id;
+        starts[i] = start;
+        ends[i] = end;
+        active[i] = isActive;
+    }
+
+    private void fillMaxActiveEnd() {
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < ids.length; i++) {
+            if (active[i]) {
+                maxEnd = Math.max(maxEnd, ends[i]);
+            }
+            maxActiveEnd[i] = maxEnd;
+        }
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int countStartingBefore(long moment) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < moment) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int firstActiveEndingAfter(long moment) {
+        int low = 0;
+        int high = maxActiveEnd.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (maxActiveEnd[middle] <= moment) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
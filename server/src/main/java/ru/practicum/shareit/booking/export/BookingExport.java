@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.export;
+
+import lombok.Getter;
+import ru.practicum.shareit.booking.repository.BookingQuery;
+
+/**
+ * Checked export request. Without a query there is nothing to export, like for an unknown state.
+ */
+@Getter
+public class BookingExport {
+    private final BookingQuery query;
+    private final BookingExportFormat format;
+
+    public BookingExport(BookingQuery query, BookingExportFormat format) {
+        this.query = query;
+        this.format = format;
+    }
+}
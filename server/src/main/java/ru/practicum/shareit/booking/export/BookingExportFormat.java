@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+public enum BookingExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    BookingExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public BookingExportWriter createWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return this == NDJSON ? new NdjsonBookingExportWriter(out, objectMapper) : new CsvBookingExportWriter(out);
+    }
+
+    public static Optional<BookingExportFormat> from(String format) {
+        for (BookingExportFormat exportFormat : values()) {
+            if (exportFormat.name().equalsIgnoreCase(format)) {
+                return Optional.of(exportFormat);
+            }
+        }
+        return Optional.empty();
+    }
+}
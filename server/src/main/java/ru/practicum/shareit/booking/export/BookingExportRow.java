@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.export;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.status.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * One exported booking, read as plain columns: the item name is stored with the booking,
+ * so no user or item has to be loaded for a row.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingExportRow {
+    private final Long id;
+    private final Long itemId;
+    private final String itemName;
+    private final Long bookerId;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime start;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime end;
+    private final BookingStatus status;
+}
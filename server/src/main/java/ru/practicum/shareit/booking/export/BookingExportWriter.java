@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.export;
+
+import java.io.IOException;
+
+/**
+ * Writes exported rows as they are read. Output is buffered only up to the writer's buffer size,
+ * {@link #finish()} flushes the rest without closing the stream.
+ */
+public interface BookingExportWriter {
+    void write(BookingExportRow row) throws IOException;
+
+    void finish() throws IOException;
+}
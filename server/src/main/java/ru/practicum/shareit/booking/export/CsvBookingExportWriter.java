@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+class CsvBookingExportWriter implements BookingExportWriter {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final Writer writer;
+
+    CsvBookingExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        this.writer.write("id,itemId,itemName,bookerId,start,end,status\r\n");
+    }
+
+    @Override
+    public void write(BookingExportRow row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getItemId()));
+        writer.write(',');
+        writer.write(escape(row.getItemName()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getBookerId()));
+        writer.write(',');
+        writer.write(row.getStart() == null ? "" : DATE_TIME_FORMATTER.format(row.getStart()));
+        writer.write(',');
+        writer.write(row.getEnd() == null ? "" : DATE_TIME_FORMATTER.format(row.getEnd()));
+        writer.write(',');
+        writer.write(row.getStatus() == null ? "" : row.getStatus().name());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
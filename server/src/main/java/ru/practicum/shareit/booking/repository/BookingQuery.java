@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.pagination.PageCursor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking listing request: whose bookings, in which state, as of which moment and which page of them.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class BookingQuery {
+    private final BookingRole role;
+    private final Long userId;
+    private final BookingStatus state;
+    private final LocalDateTime now;
+    private PageCursor cursor;
+    private int limit = Integer.MAX_VALUE;
+
+    public BookingQuery(BookingRole role, Long userId, BookingStatus state, LocalDateTime now) {
+        this.role = role;
+        this.userId = userId;
+        this.state = state;
+        this.now = now;
+    }
+
+    public BookingQuery after(PageCursor cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    public BookingQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+}
@@ -1,112 +1,54 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.status.BookingStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
 
     @Modifying
-    @Query("UPDATE Booking b SET b.status = ?1 " +
+    @Query("UPDATE Booking b SET b.status = ?1, b.version = b.version + 1 " +
             "WHERE b.id = ?2")
     void updateStatus(BookingStatus status, Long id);
 
     Optional<Booking> findBookingById(Long id);
 
-    @Query("SELECT b FROM Booking AS b WHERE b.bookerId = ?1 " +
-            "ORDER BY b.start DESC")
-    List<Booking> findBookingByBookerId(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b WHERE b.bookerId = ?1 " +
-            "ORDER BY b.start DESC")
-    Page<Booking> findBookingByBookerIdPageable(Pageable pageable, Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b " +
-            "WHERE b.bookerId = ?1 AND b.status = 'WAITING' " +
-            "ORDER BY b.start DESC")
-    List<Booking> findWaitingBookingById(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b " +
-            "WHERE b.bookerId = ?1 AND b.status = 'APPROVED' " +
-            "ORDER BY b.start DESC")
-    List<Booking> findApprovedBookingById(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b " +
-            "WHERE b.bookerId = ?1 AND b.status = 'REJECTED' " +
-            "ORDER BY b.start DESC")
-    List<Booking> findRejectedBookingById(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b " +
-            "WHERE b.bookerId = ?1 AND b.end < CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start DESC")
-    List<Booking> findPastBookingById(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b " +
-            "WHERE b.bookerId = ?1 AND b.start < CURRENT_TIMESTAMP() AND b.end > CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start DESC")
-    List<Booking> findCurrentBookingById(Long bookerId);
+    @Query("SELECT b.bookerId AS bookerId, b.itemOwner AS itemOwner, b.version AS bookingVersion, " +
+            "i.version AS itemVersion, u.version AS bookerVersion " +
+            "FROM Booking AS b, Item AS i, User AS u " +
+            "WHERE b.id = ?1 AND i.id = b.itemId AND u.id = b.bookerId")
+    Optional<BookingVersion> findBookingVersionById(Long id);
 
     @Query("SELECT b FROM Booking AS b " +
-            "WHERE b.bookerId = ?1 AND b.start > CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start DESC")
-    List<Booking> findFutureBookingById(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 " +
-            "ORDER BY b.start DESC")
-    List<Booking> findBookingByOwnerId(Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 " +
-            "ORDER BY b.start DESC")
-    Page<Booking> findBookingByOwnerIdPageable(Pageable pageable, Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 AND b.status = 'WAITING' " +
-            "ORDER BY b.start DESC")
-    List<Booking> findWaitingBookingByOwnerId(Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 AND b.status = 'APPROVED' " +
-            "ORDER BY b.start DESC")
-    List<Booking> findApprovedBookingByOwnerId(Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 AND b.status = 'REJECTED' " +
-            "ORDER BY b.start DESC")
-    List<Booking> findRejectedBookingByOwnerId(Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 AND b.end < CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start DESC")
-    List<Booking> findPastBookingByOwnerId(Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 AND b.start < CURRENT_TIMESTAMP() AND b.end > CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start DESC")
-    List<Booking> findCurrentBookingByOwnerId(Long ownerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.owner = ?1 AND b.start > CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start DESC")
-    List<Booking> findFutureBookingByOwnerId(Long bookerId);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.id = ?1 AND b.itemOwner = ?2 AND b.start < CURRENT_TIMESTAMP()" +
-            "ORDER BY b.start DESC")
-    List<Booking> findLastItemBooking(Long itemId, Long itemOwner);
-
-    @Query("SELECT b FROM Booking AS b JOIN Item AS i ON b.itemId = i.id " +
-            "WHERE i.id = ?1 AND b.itemOwner = ?2 AND b.start > CURRENT_TIMESTAMP() " +
-            "ORDER BY b.start")
-    List<Booking> findNextItemBooking(Long itemId, Long itemOwner);
+            "WHERE b.itemId = ?1 " +
+            "ORDER BY b.start, b.id")
+    List<Booking> findBookingsOfItem(Long itemId);
+
+    @Query(value = "SELECT * FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_booking DESC, b.id DESC) AS rn " +
+            "FROM bookings AS b " +
+            "WHERE b.item_id IN ?1 AND b.status <> 'REJECTED' AND b.start_booking < ?2) AS last_bookings " +
+            "WHERE last_bookings.rn = 1", nativeQuery = true)
+    List<Booking> findLastBookingsOfItems(Collection<Long> itemIds, LocalDateTime moment);
+
+    @Query(value = "SELECT * FROM (" +
+            "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_booking, b.id) AS rn " +
+            "FROM bookings AS b " +
+            "WHERE b.item_id IN ?1 AND b.status <> 'REJECTED' AND b.start_booking > ?2) AS next_bookings " +
+            "WHERE next_bookings.rn = 1", nativeQuery = true)
+    List<Booking> findNextBookingsOfItems(Collection<Long> itemIds, LocalDateTime moment);
+
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN TRUE ELSE FALSE END FROM Booking AS b " +
+            "WHERE b.itemId = ?1 AND b.status IN ?2 AND b.start < ?4 AND b.end > ?3")
+    boolean existsOverlappingBooking(Long itemId, Collection<BookingStatus> statuses,
+                                     LocalDateTime start, LocalDateTime end);
 
     @Query("SELECT COUNT(b.bookerId) FROM Booking AS b JOIN User AS u ON b.bookerId = u.id " +
             "WHERE u.id = ?1 AND b.itemId = ?2 AND b.start < CURRENT_TIMESTAMP()")
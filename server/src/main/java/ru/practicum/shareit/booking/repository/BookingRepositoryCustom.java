@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.export.BookingExportRow;
+
+import ru.practicum.shareit.pagination.PageCursor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookingRepositoryCustom {
+
+    /**
+     * Returns bookings matching the query ordered by (start DESC, id DESC). With a cursor the page starts right
+     * after the cursor position (keyset).
+     */
+    List<Booking> findBookings(BookingQuery bookingQuery);
+
+    /**
+     * Returns the keyset position of the last of the first {@code count} bookings matching the query in the same
+     * order, or empty if there are fewer. Only the sort keys are read, so the bookings before a page requested
+     * by from and size are not loaded.
+     */
+    Optional<PageCursor> findPosition(BookingQuery bookingQuery, int count);
+
+    /**
+     * Streams all bookings matching the query in the same order through a forward-only cursor, ignoring its
+     * page settings. Rows are not managed entities, so memory does not grow with the number read.
+     * The stream must be consumed and closed inside a transaction.
+     */
+    Stream<BookingExportRow> streamBookings(BookingQuery bookingQuery);
+}
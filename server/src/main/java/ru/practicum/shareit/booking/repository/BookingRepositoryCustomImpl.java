@@ -0,0 +1,121 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.jpa.QueryHints;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.export.BookingExportRow;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.pagination.PageCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findBookings(BookingQuery bookingQuery) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+        Root<Booking> booking = query.from(Booking.class);
+        List<Predicate> predicates = createPredicates(cb, booking, bookingQuery);
+        PageCursor cursor = bookingQuery.getCursor();
+        if (cursor != null) {
+            Path<LocalDateTime> start = booking.get("start");
+            Path<Long> id = booking.get("id");
+            predicates.add(cb.or(
+                    cb.lessThan(start, cursor.getTimestamp()),
+                    cb.and(cb.equal(start, cursor.getTimestamp()), cb.lessThan(id, cursor.getId()))));
+        }
+        query.select(booking)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(bookingQuery.getLimit())
+                .getResultList();
+    }
+
+    @Override
+    public Optional<PageCursor> findPosition(BookingQuery bookingQuery, int count) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PageCursor> query = cb.createQuery(PageCursor.class);
+        Root<Booking> booking = query.from(Booking.class);
+        query.select(cb.construct(PageCursor.class, booking.get("start"), booking.get("id")))
+                .where(createPredicates(cb, booking, bookingQuery).toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        try (Stream<PageCursor> positions = entityManager.createQuery(query)
+                .setMaxResults(count)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            Iterator<PageCursor> iterator = positions.iterator();
+            PageCursor last = null;
+            int read = 0;
+            while (iterator.hasNext()) {
+                last = iterator.next();
+                read++;
+            }
+            return read == count ? Optional.of(last) : Optional.empty();
+        }
+    }
+
+    @Override
+    public Stream<BookingExportRow> streamBookings(BookingQuery bookingQuery) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingExportRow> query = cb.createQuery(BookingExportRow.class);
+        Root<Booking> booking = query.from(Booking.class);
+        query.select(cb.construct(BookingExportRow.class, booking.get("id"), booking.get("itemId"),
+                        booking.get("itemName"), booking.get("bookerId"), booking.get("start"), booking.get("end"),
+                        booking.get("status")))
+                .where(createPredicates(cb, booking, bookingQuery).toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    private List<Predicate> createPredicates(CriteriaBuilder cb, Root<Booking> booking, BookingQuery bookingQuery) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<LocalDateTime> end = booking.get("end");
+        LocalDateTime now = bookingQuery.getNow();
+
+        List<Predicate> predicates = new ArrayList<>();
+        String userField = bookingQuery.getRole() == BookingRole.BOOKER ? "bookerId" : "itemOwner";
+        predicates.add(cb.equal(booking.get(userField), bookingQuery.getUserId()));
+        switch (bookingQuery.getState()) {
+            case WAITING:
+            case APPROVED:
+            case REJECTED:
+                predicates.add(cb.equal(booking.<BookingStatus>get("status"), bookingQuery.getState()));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(end, now));
+                break;
+            case CURRENT:
+                predicates.add(cb.lessThan(start, now));
+                predicates.add(cb.greaterThan(end, now));
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(start, now));
+                break;
+        }
+        return predicates;
+    }
+}
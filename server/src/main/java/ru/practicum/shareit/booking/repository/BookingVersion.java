@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.repository;
+
+/**
+ * Versions of the rows a booking response is built from, with the users allowed to read it.
+ */
+public interface BookingVersion {
+    Long getBookerId();
+
+    Long getItemOwner();
+
+    Long getBookingVersion();
+
+    Long getItemVersion();
+
+    Long getBookerVersion();
+}
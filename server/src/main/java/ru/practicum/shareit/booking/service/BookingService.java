@@ -2,8 +2,11 @@ package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.export.BookingExport;
+import ru.practicum.shareit.pagination.CursorPage;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public interface BookingService {
     Booking addBooking(Long bookerId, Booking booking);
@@ -12,7 +15,19 @@ public interface BookingService {
 
     BookingDto findBooking(Long userId, Long bookingId);
 
-    List<BookingDto> findAllBookerBookings(Long bookerId, String bookingStatus, Integer from, Integer size);
+    String getBookingEtag(Long userId, Long bookingId);
 
-    List<BookingDto> findAllOwnerBookings(Long ownerId, String bookingStatus, Integer from, Integer size);
+    CursorPage<BookingDto> findAllBookerBookings(Long bookerId, String bookingStatus, Integer from, Integer size);
+
+    CursorPage<BookingDto> findAllOwnerBookings(Long ownerId, String bookingStatus, Integer from, Integer size);
+
+    CursorPage<BookingDto> findBookerBookingsPage(Long bookerId, String bookingStatus, String cursor, Integer size);
+
+    CursorPage<BookingDto> findOwnerBookingsPage(Long ownerId, String bookingStatus, String cursor, Integer size);
+
+    BookingExport prepareBookerExport(Long bookerId, String bookingStatus, String format);
+
+    BookingExport prepareOwnerExport(Long ownerId, String bookingStatus, String format);
+
+    void writeExport(BookingExport export, OutputStream out) throws IOException;
 }
@@ -1,42 +1,74 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.export.BookingExport;
+import ru.practicum.shareit.booking.export.BookingExportFormat;
+import ru.practicum.shareit.booking.export.BookingExportRow;
+import ru.practicum.shareit.booking.export.BookingExportWriter;
+import ru.practicum.shareit.booking.repository.BookingQuery;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRole;
+import ru.practicum.shareit.booking.repository.BookingVersion;
 import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @Service
 @Transactional
 @Slf4j
 public class BookingServiceImpl implements BookingService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final ItemAvailabilityIndex availabilityIndex;
+    private final ItemBookingSummaries bookingSummaries;
 
     private final BookingMapper mapper;
+    private final ObjectMapper objectMapper;
 
     public BookingServiceImpl(UserRepository userRepository, ItemRepository itemRepository,
-                              BookingRepository bookingRepository, BookingMapper mapper) {
+                              BookingRepository bookingRepository, ItemAvailabilityIndex availabilityIndex,
+                              ItemBookingSummaries bookingSummaries, BookingMapper mapper, ObjectMapper objectMapper) {
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
         this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.bookingSummaries = bookingSummaries;
         this.mapper = mapper;
+        this.objectMapper = objectMapper;
     }
 
     public Booking addBooking(Long bookerId, Booking booking) {
@@ -45,11 +77,17 @@ public class BookingServiceImpl implements BookingService {
         if (bookerId.equals(booking.getItem().getOwner())) {
             throw new NotFoundException("Item belong to owner");
         }
+        if (availabilityIndex.overlaps(booking.getItemId(), booking.getStart(), booking.getEnd())) {
+            throwAlreadyBooked(booking);
+        }
+        checkItemIsFree(booking, List.of(BookingStatus.WAITING, BookingStatus.APPROVED));
         booking.setStatus(BookingStatus.WAITING);
         booking.setBookerId(bookerId);
         booking.setItemName(booking.getItem().getName());
         booking.setItemOwner(booking.getItem().getOwner());
         bookingRepository.save(booking);
+        availabilityIndex.recordBooking(booking);
+        bookingSummaries.refresh(List.of(booking.getItemId()), LocalDateTime.now());
         return booking;
     }
 
@@ -67,12 +105,15 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException(message);
         }
         if (approved) {
+            checkItemIsFree(booking, List.of(BookingStatus.APPROVED));
             booking.setStatus(BookingStatus.APPROVED);
             bookingRepository.updateStatus(BookingStatus.APPROVED, id);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
             bookingRepository.updateStatus(BookingStatus.REJECTED, id);
         }
+        availabilityIndex.recordBooking(booking);
+        bookingSummaries.refresh(List.of(booking.getItemId()), LocalDateTime.now());
         return booking;
     }
 
@@ -94,206 +135,242 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    public List<BookingDto> findAllBookerBookings(Long bookerId, String bookingState, Integer from, Integer size) {
+    public String getBookingEtag(Long userId, Long bookingId) {
+        BookingVersion version = bookingRepository
+                .findBookingVersionById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Не найдено бронирование id: " + bookingId));
+        if (!Objects.equals(userId, version.getBookerId()) && !Objects.equals(userId, version.getItemOwner())) {
+            String message = "User can't find item booking";
+            log.warn(message);
+            throw new NotFoundException(message);
+        }
+        return version.getBookingVersion() + "-" + version.getItemVersion() + "-" + version.getBookerVersion();
+    }
+
+    public CursorPage<BookingDto> findAllBookerBookings(Long bookerId, String bookingState, Integer from, Integer size) {
         User booker = userRepository
                 .findById(bookerId)
                 .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + bookerId));
-        List<Booking> bookerBookings = new ArrayList<>();
+        return findBookings(BookingRole.BOOKER, bookerId, bookingState, from, size);
+    }
 
-        if (bookingState == null && from == null && size == null) {
-            bookerBookings = bookingRepository.findBookingByBookerId(bookerId);
-            return convertToBookingDtoList(bookerBookings);
-        }
+    public CursorPage<BookingDto> findBookerBookingsPage(Long bookerId, String bookingState, String cursor, Integer size) {
+        User booker = userRepository
+                .findById(bookerId)
+                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + bookerId));
+        return findBookingsPage(BookingRole.BOOKER, bookerId, bookingState, cursor, size);
+    }
 
-        if (bookingState != null && from == null && size == null) {
-            bookerBookings = findBookingsByStatus(bookerId, bookingState);
-            return convertToBookingDtoList(bookerBookings);
-        }
+    public CursorPage<BookingDto> findAllOwnerBookings(Long ownerId, String bookingState, Integer from, Integer size) {
+        User owner = userRepository
+                .findById(ownerId)
+                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + ownerId));
+        return findBookings(BookingRole.OWNER, ownerId, bookingState, from, size);
+    }
 
-        if (from > 0 && size >= bookingRepository.findBookingByBookerId(booker.getId()).size() - from) {
-            int pageSize = bookingRepository.findBookingByBookerId(booker.getId()).size() - from;
-            bookerBookings = bookingRepository.findBookingByBookerIdPageable(PageRequest.of(from, pageSize), bookerId).toList();
-            return convertToBookingDtoList(bookerBookings);
-        }
+    public CursorPage<BookingDto> findOwnerBookingsPage(Long ownerId, String bookingState, String cursor, Integer size) {
+        User owner = userRepository
+                .findById(ownerId)
+                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + ownerId));
+        return findBookingsPage(BookingRole.OWNER, ownerId, bookingState, cursor, size);
+    }
 
-        if (from < 0) {
-            String message = "Wrong pageable settings : from is " + from + " , can't be < 0";
-            log.error(message);
+    public void validateBooking(Long bookerId, Booking booking) {
+        User booker = userRepository
+                .findById(bookerId)
+                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + bookerId));
+        Item item = itemRepository
+                .findById(booking.getItemId())
+                .orElseThrow(() -> new NotFoundException("Не найдена вещь id: " + booking.getItemId()));
+        if (booking.getStart() == null || booking.getEnd() == null) {
+            String message = "Empty booking dates";
+            log.warn(message);
             throw new BadRequestException(message);
         }
-
-        if (size < 1) {
-            String message = "Wrong pageable settings : size is " + from + " , can't be < 1";
-            log.error(message);
+        if (!itemRepository.findAvailableById(booking.getItemId())) {
+            String message = "Item not available for booking";
+            log.warn(message);
             throw new BadRequestException(message);
         }
-
-        if (from == 0) {
-            bookerBookings = bookingRepository.findBookingByBookerIdPageable(PageRequest.of(from, size), bookerId).toList();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        if (start.isBefore(LocalDateTime.now()) || end.isBefore(start) || start.equals(end)) {
+            String message = "Not correct booking dates";
+            log.warn(message);
+            throw new BadRequestException(message);
         }
+    }
 
-        return convertToBookingDtoList(bookerBookings);
+    public Booking setItemAndBookerToBooking(Booking booking, Long bookerId) {
+        User booker = userRepository.findById(bookerId).get();
+        Item item = itemRepository.findById(booking.getItemId()).get();
+        booking.setBooker(booker);
+        booking.setItem(item);
+        return booking;
     }
 
-    public List<Booking> findBookingsByStatus(Long bookerId, String bookingStatus) {
-        List<Booking> bookerBookings = new ArrayList<>();
-        boolean isStatusSupported = false;
+    public BookingExport prepareBookerExport(Long bookerId, String bookingState, String format) {
+        if (!userRepository.existsById(bookerId)) {
+            throw new NotFoundException("Не найден пользователь id: " + bookerId);
+        }
+        return prepareExport(BookingRole.BOOKER, bookerId, bookingState, format);
+    }
 
-        for (BookingStatus state : BookingStatus.values()) {
-            if (state.name().equals(bookingStatus)) {
-                isStatusSupported = true;
-                break;
-            }
+    public BookingExport prepareOwnerExport(Long ownerId, String bookingState, String format) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new NotFoundException("Не найден пользователь id: " + ownerId);
         }
+        return prepareExport(BookingRole.OWNER, ownerId, bookingState, format);
+    }
 
-        if (isStatusSupported) {
-            switch (bookingStatus) {
-                case "ALL":
-                    bookerBookings = bookingRepository.findBookingByBookerId(bookerId);
-                    break;
-                case "WAITING":
-                    bookerBookings = bookingRepository.findWaitingBookingById(bookerId);
-                    break;
-                case "APPROVED":
-                    bookerBookings = bookingRepository.findApprovedBookingById(bookerId);
-                    break;
-                case "REJECTED":
-                    bookerBookings = bookingRepository.findRejectedBookingById(bookerId);
-                    break;
-                case "PAST":
-                    bookerBookings = bookingRepository.findPastBookingById(bookerId);
-                    break;
-                case "CURRENT":
-                    bookerBookings = bookingRepository.findCurrentBookingById(bookerId);
-                    break;
-                case "FUTURE":
-                    bookerBookings = bookingRepository.findFutureBookingById(bookerId);
-                    break;
+    /**
+     * Rows go to the output while the cursor is read, so neither the bookings nor the output are held in memory.
+     */
+    public void writeExport(BookingExport export, OutputStream out) throws IOException {
+        BookingExportWriter writer = export.getFormat().createWriter(out, objectMapper);
+        long count = 0;
+        if (export.getQuery() != null) {
+            try (Stream<BookingExportRow> rows = bookingRepository.streamBookings(export.getQuery())) {
+                Iterator<BookingExportRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    count++;
+                }
             }
         }
-        return bookerBookings;
+        writer.finish();
+        log.info("Выгружено бронирований: {} , запрос: {}", count, export.getQuery());
     }
 
-    public List<BookingDto> findAllOwnerBookings(Long ownerId, String bookingState, Integer from, Integer size) {
-        User owner = userRepository
-                .findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + ownerId));
-        List<Booking> ownerBookings = new ArrayList<>();
+    private BookingExport prepareExport(BookingRole role, Long userId, String bookingState, String format) {
+        BookingExportFormat exportFormat = format == null
+                ? BookingExportFormat.NDJSON
+                : BookingExportFormat.from(format).orElseThrow(() -> {
+                    String message = "Unknown export format : " + format;
+                    log.warn(message);
+                    return new BadRequestException(message);
+                });
+        BookingStatus state = parseState(bookingState);
+        BookingQuery query = state == null ? null : new BookingQuery(role, userId, state, LocalDateTime.now());
+        return new BookingExport(query, exportFormat);
+    }
 
-        if (bookingState == null && from == null && size == null) {
-            ownerBookings = bookingRepository.findBookingByOwnerId(ownerId);
-            return convertToBookingDtoList(ownerBookings);
+    /**
+     * Locks the item row first and holds it until commit, so concurrent bookings of the same item are checked
+     * one by one, bookings of other items are not blocked. The item itself is not changed, its version and
+     * cached copy stay as they are.
+     */
+    private void checkItemIsFree(Booking booking, List<BookingStatus> statuses) {
+        itemRepository.findForUpdate(booking.getItemId());
+        if (bookingRepository.existsOverlappingBooking(booking.getItemId(), statuses, booking.getStart(), booking.getEnd())) {
+            throwAlreadyBooked(booking);
         }
+    }
 
-        if (bookingState != null && from == null && size == null) {
-            ownerBookings = findOwnerBookingsByStatus(ownerId, bookingState);
-            return convertToBookingDtoList(ownerBookings);
-        }
+    private void throwAlreadyBooked(Booking booking) {
+        String message = "Item id : " + booking.getItemId() + " already booked for these dates";
+        log.warn(message);
+        throw new BadRequestException(message);
+    }
 
-        if (from > 0 && size >= bookingRepository.findBookingByOwnerId(ownerId).size() - from) {
-            int pageSize = bookingRepository.findBookingByOwnerId(ownerId).size() - from;
-            ownerBookings = bookingRepository.findBookingByOwnerIdPageable(PageRequest.of(from, pageSize), ownerId).toList();
-            return convertToBookingDtoList(ownerBookings);
+    /**
+     * Without from and size the first keyset page of the largest size is returned, with the cursor of the next
+     * page if there are more bookings, so long lists are not cut silently. With from and size the page starts
+     * right after the position of the first {@code from} bookings, which is found from their sort keys only.
+     */
+    private CursorPage<BookingDto> findBookings(BookingRole role, Long userId, String bookingState, Integer from,
+                                                Integer size) {
+        if (from == null && size == null) {
+            return findBookingsPage(role, userId, bookingState, null, MAX_PAGE_SIZE);
+        }
+        if (from == null) {
+            String message = "Wrong pageable settings : from is not set , size is " + size;
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        if (size == null) {
+            String message = "Wrong pageable settings : size is not set , from is " + from;
+            log.error(message);
+            throw new BadRequestException(message);
         }
-
         if (from < 0) {
             String message = "Wrong pageable settings : from is " + from + " , can't be < 0";
             log.error(message);
             throw new BadRequestException(message);
         }
-
         if (size < 1) {
-            String message = "Wrong pageable settings : size is " + from + " , can't be < 1";
+            String message = "Wrong pageable settings : size is " + size + " , can't be < 1";
             log.error(message);
             throw new BadRequestException(message);
         }
 
-        if (from == 0) {
-            ownerBookings = bookingRepository.findBookingByOwnerIdPageable(PageRequest.of(from, size), ownerId).toList();
+        BookingStatus state = parseState(bookingState);
+        if (state == null) {
+            return new CursorPage<>(new ArrayList<>(), null);
         }
-
-        return convertToBookingDtoList(ownerBookings);
-    }
-
-    public List<Booking> findOwnerBookingsByStatus(Long ownerId, String bookingStatus) {
-        List<Booking> bookerBookings = new ArrayList<>();
-        boolean isStatusSupported = false;
-
-        for (BookingStatus state : BookingStatus.values()) {
-            if (state.name().equals(bookingStatus)) {
-                isStatusSupported = true;
-                break;
-            }
-        }
-
-        if (isStatusSupported) {
-            switch (bookingStatus) {
-                case "ALL":
-                    bookerBookings = bookingRepository.findBookingByOwnerId(ownerId);
-                    break;
-                case "WAITING":
-                    bookerBookings = bookingRepository.findWaitingBookingByOwnerId(ownerId);
-                    break;
-                case "APPROVED":
-                    bookerBookings = bookingRepository.findApprovedBookingByOwnerId(ownerId);
-                    break;
-                case "REJECTED":
-                    bookerBookings = bookingRepository.findRejectedBookingByOwnerId(ownerId);
-                    break;
-                case "PAST":
-                    bookerBookings = bookingRepository.findPastBookingByOwnerId(ownerId);
-                    break;
-                case "CURRENT":
-                    bookerBookings = bookingRepository.findCurrentBookingByOwnerId(ownerId);
-                    break;
-                case "FUTURE":
-                    bookerBookings = bookingRepository.findFutureBookingByOwnerId(ownerId);
-                    break;
+        BookingQuery bookingQuery = new BookingQuery(role, userId, state, LocalDateTime.now());
+        if (from > 0) {
+            Optional<PageCursor> position = bookingRepository.findPosition(bookingQuery, from);
+            if (position.isEmpty()) {
+                return new CursorPage<>(new ArrayList<>(), null);
             }
+            bookingQuery.after(position.get());
         }
-        return bookerBookings;
+        List<Booking> bookings = bookingRepository.findBookings(bookingQuery.limit(Math.min(size, MAX_PAGE_SIZE)));
+        return new CursorPage<>(convertToBookingDtoList(bookings), null);
     }
 
-    public void validateBooking(Long bookerId, Booking booking) {
-        User booker = userRepository
-                .findById(bookerId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + bookerId));
-        Item item = itemRepository
-                .findById(booking.getItemId())
-                .orElseThrow(() -> new NotFoundException("Не найдена вещь id: " + booking.getItemId()));
-        if (booking.getStart() == null || booking.getEnd() == null) {
-            String message = "Empty booking dates";
-            log.warn(message);
+    private CursorPage<BookingDto> findBookingsPage(BookingRole role, Long userId, String bookingState,
+                                                    String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            String message = "Wrong pageable settings : size is " + pageSize + " , can't be < 1";
+            log.error(message);
             throw new BadRequestException(message);
         }
-        if (!itemRepository.findAvailableById(booking.getItemId())) {
-            String message = "Item not available for booking";
-            log.warn(message);
-            throw new BadRequestException(message);
+        BookingStatus state = parseState(bookingState);
+        if (state == null) {
+            return new CursorPage<>(new ArrayList<>(), null);
         }
-        LocalDateTime start = booking.getStart();
-        LocalDateTime end = booking.getEnd();
-        if (start.isBefore(LocalDateTime.now()) || end.isBefore(start) || start.equals(end)) {
-            String message = "Not correct booking dates";
-            log.warn(message);
-            throw new BadRequestException(message);
+        PageCursor pageCursor = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        List<Booking> bookings = bookingRepository.findBookings(
+                new BookingQuery(role, userId, state, LocalDateTime.now()).after(pageCursor).limit(pageSize));
+        String nextCursor = null;
+        if (bookings.size() == pageSize) {
+            Booking lastBooking = bookings.get(bookings.size() - 1);
+            nextCursor = new PageCursor(lastBooking.getStart(), lastBooking.getId()).encode();
         }
+        return new CursorPage<>(convertToBookingDtoList(bookings), nextCursor);
     }
 
-    public Booking setItemAndBookerToBooking(Booking booking, Long bookerId) {
-        User booker = userRepository.findById(bookerId).get();
-        Item item = itemRepository.findById(booking.getItemId()).get();
-        booking.setBooker(booker);
-        booking.setItem(item);
-        return booking;
+    private BookingStatus parseState(String bookingState) {
+        if (bookingState == null) {
+            return BookingStatus.ALL;
+        }
+        for (BookingStatus state : BookingStatus.values()) {
+            if (state.name().equals(bookingState)) {
+                return state;
+            }
+        }
+        return null;
     }
 
-    private List<BookingDto> convertToBookingDtoList(List<Booking> bookerBookings) {
+    private List<BookingDto> convertToBookingDtoList(List<Booking> bookings) {
         List<BookingDto> bookingDtoList = new ArrayList<>();
-        for (Booking bookerBooking : bookerBookings) {
-            Long bookerId = bookerBooking.getBookerId();
-            setItemAndBookerToBooking(bookerBooking, bookerId);
-            bookingDtoList.add(mapper.toBookingDto(bookerBooking));
+        if (bookings.isEmpty()) {
+            return bookingDtoList;
+        }
+        Set<Long> bookerIds = bookings.stream().map(Booking::getBookerId).collect(toSet());
+        Set<Long> itemIds = bookings.stream().map(Booking::getItemId).collect(toSet());
+        Map<Long, User> bookers = userRepository.findAllById(bookerIds).stream()
+                .collect(toMap(User::getId, identity()));
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(toMap(Item::getId, identity()));
+
+        for (Booking booking : bookings) {
+            booking.setBooker(bookers.get(booking.getBookerId()));
+            booking.setItem(items.get(booking.getItemId()));
+            bookingDtoList.add(mapper.toBookingDto(booking));
         }
         return bookingDtoList;
     }
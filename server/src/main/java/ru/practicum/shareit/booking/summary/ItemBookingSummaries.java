@@ -0,0 +1,243 @@
+package ru.practicum.shareit.booking.summary;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Maintains the last and next bookings of items, so item views read them with one lookup by item id.
+ * Summaries are recomputed from the bookings of the item whenever they change, rolled forward by a job
+ * once the next booking starts, and checked against the bookings by another job.
+ * <p>
+ * Every refresh locks the summary rows before reading bookings, so refreshes of one item are applied one
+ * after another, each seeing the bookings committed before it. Booking changes also hold the item row lock,
+ * and a missing summary row is only inserted under that lock, so two transactions never insert the same row.
+ */
+@Component
+@Slf4j
+public class ItemBookingSummaries implements MeterBinder {
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicLong rolledForward = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public ItemBookingSummaries(ItemBookingSummaryRepository summaryRepository, BookingRepository bookingRepository,
+                                ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+                                @Value("${shareit.booking-summary.batch-size:500}") int batchSize) {
+        this.summaryRepository = summaryRepository;
+        this.bookingRepository = bookingRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the last and next bookings of the items that have a summary. Summaries whose next booking
+     * has already started and which are not rolled forward yet are computed from the bookings instead.
+     */
+    public Map<Long, ItemBookings> findItemBookings(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookings> itemBookings = new HashMap<>();
+        for (Object[] row : summaryRepository.findItemBookings(itemIds)) {
+            ItemBookingSummary summary = (ItemBookingSummary) row[0];
+            itemBookings.put(summary.getItemId(), new ItemBookings(summary.getItemId(), summary.getRefreshAt(),
+                    (Booking) row[1], (Booking) row[2]));
+        }
+        List<Long> staleIds = itemBookings.values().stream()
+                .filter(bookings -> bookings.getRefreshAt() != null && !bookings.getRefreshAt().isAfter(now))
+                .map(ItemBookings::getItemId)
+                .collect(toList());
+        if (!staleIds.isEmpty()) {
+            Map<Long, Booking> lastBookings = mapByItemId(bookingRepository.findLastBookingsOfItems(staleIds, now));
+            Map<Long, Booking> nextBookings = mapByItemId(bookingRepository.findNextBookingsOfItems(staleIds, now));
+            for (Long itemId : staleIds) {
+                Booking nextBooking = nextBookings.get(itemId);
+                itemBookings.put(itemId, new ItemBookings(itemId, nextBooking == null ? null : nextBooking.getStart(),
+                        lastBookings.get(itemId), nextBooking));
+            }
+        }
+        return itemBookings;
+    }
+
+    /**
+     * Recomputes the summaries of the items from their bookings, must be called in a transaction.
+     * Returns the number of summaries that were created or changed.
+     */
+    public int refresh(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, ItemBookingSummary> summaries = new TreeMap<>();
+        summaryRepository.findAllForUpdate(itemIds).forEach(summary -> summaries.put(summary.getItemId(), summary));
+        List<ItemBookingSummary> newSummaries = new ArrayList<>();
+        List<Long> missingIds = itemIds.stream()
+                .filter(itemId -> !summaries.containsKey(itemId))
+                .collect(toList());
+        if (!missingIds.isEmpty()) {
+            List<Long> lockedIds = itemRepository.findAllForUpdate(missingIds).stream()
+                    .map(Item::getId)
+                    .collect(toList());
+            summaryRepository.findAllForUpdate(lockedIds).forEach(summary -> summaries.put(summary.getItemId(), summary));
+            for (Long itemId : lockedIds) {
+                if (!summaries.containsKey(itemId)) {
+                    ItemBookingSummary summary = new ItemBookingSummary();
+                    summary.setItemId(itemId);
+                    summaries.put(itemId, summary);
+                    newSummaries.add(summary);
+                }
+            }
+        }
+        if (summaries.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Booking> lastBookings = mapByItemId(bookingRepository.findLastBookingsOfItems(summaries.keySet(), now));
+        Map<Long, Booking> nextBookings = mapByItemId(bookingRepository.findNextBookingsOfItems(summaries.keySet(), now));
+        int changed = newSummaries.size();
+        for (ItemBookingSummary summary : summaries.values()) {
+            Booking lastBooking = lastBookings.get(summary.getItemId());
+            Booking nextBooking = nextBookings.get(summary.getItemId());
+            Long lastBookingId = lastBooking == null ? null : lastBooking.getId();
+            Long nextBookingId = nextBooking == null ? null : nextBooking.getId();
+            LocalDateTime refreshAt = nextBooking == null ? null : nextBooking.getStart();
+            if (Objects.equals(lastBookingId, summary.getLastBookingId())
+                    && Objects.equals(nextBookingId, summary.getNextBookingId())
+                    && Objects.equals(refreshAt, summary.getRefreshAt())) {
+                continue;
+            }
+            summary.setLastBookingId(lastBookingId);
+            summary.setNextBookingId(nextBookingId);
+            summary.setRefreshAt(refreshAt);
+            if (summary.getVersion() != null) {
+                changed++;
+            }
+        }
+        summaryRepository.saveAll(newSummaries);
+        return changed;
+    }
+
+    /**
+     * Moves summaries whose next booking has started forward, in batches of one transaction each.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking-summary.roll-forward-delay:PT1M}",
+            initialDelayString = "${shareit.booking-summary.roll-forward-delay:PT1M}")
+    public int rollForward() {
+        int total = 0;
+        List<Long> dueIds;
+        do {
+            dueIds = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> itemIds = summaryRepository.findDueItemIds(now, PageRequest.of(0, batchSize));
+                if (!itemIds.isEmpty()) {
+                    refresh(itemIds, now);
+                }
+                return itemIds;
+            });
+            total += dueIds.size();
+        } while (dueIds.size() == batchSize);
+        rolledForward.addAndGet(total);
+        if (total > 0) {
+            log.debug("Обновлены сводки бронирований вещей, количество: {}", total);
+        }
+        return total;
+    }
+
+    /**
+     * Compares the summaries of all items with their bookings and repairs the ones that differ.
+     * Summaries waiting to be rolled forward are left to {@link #rollForward}.
+     * Returns the number of repaired summaries.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking-summary.verify-delay:PT1H}",
+            initialDelayString = "${shareit.booking-summary.verify-delay:PT1H}")
+    public int verify() {
+        int repaired = 0;
+        Long lastItemId = 0L;
+        List<Long> itemIds;
+        do {
+            itemIds = itemRepository.findIdsAfter(lastItemId, PageRequest.of(0, batchSize));
+            if (itemIds.isEmpty()) {
+                break;
+            }
+            lastItemId = itemIds.get(itemIds.size() - 1);
+            List<Long> chunk = itemIds;
+            repaired += transactionTemplate.execute(status -> verifyItems(chunk));
+        } while (itemIds.size() == batchSize);
+        mismatches.addAndGet(repaired);
+        log.info("Проверены сводки бронирований вещей, исправлено: {}", repaired);
+        return repaired;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("booking.summary.rolled.forward", rolledForward, AtomicLong::get)
+                .register(registry);
+        FunctionCounter.builder("booking.summary.mismatches", mismatches, AtomicLong::get)
+                .register(registry);
+    }
+
+    private int verifyItems(List<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingSummary> summaries = summaryRepository.findAllById(itemIds).stream()
+                .collect(toMap(ItemBookingSummary::getItemId, Function.identity()));
+        Map<Long, Booking> lastBookings = mapByItemId(bookingRepository.findLastBookingsOfItems(itemIds, now));
+        Map<Long, Booking> nextBookings = mapByItemId(bookingRepository.findNextBookingsOfItems(itemIds, now));
+        Set<Long> differentIds = new HashSet<>();
+        for (Long itemId : itemIds) {
+            ItemBookingSummary summary = summaries.get(itemId);
+            Booking lastBooking = lastBookings.get(itemId);
+            Booking nextBooking = nextBookings.get(itemId);
+            if (summary == null) {
+                if (lastBooking != null || nextBooking != null) {
+                    differentIds.add(itemId);
+                }
+            } else if (summary.getRefreshAt() == null || summary.getRefreshAt().isAfter(now)) {
+                if (!Objects.equals(summary.getLastBookingId(), lastBooking == null ? null : lastBooking.getId())
+                        || !Objects.equals(summary.getNextBookingId(), nextBooking == null ? null : nextBooking.getId())) {
+                    differentIds.add(itemId);
+                }
+            }
+        }
+        if (differentIds.isEmpty()) {
+            return 0;
+        }
+        int repaired = refresh(differentIds, now);
+        if (repaired > 0) {
+            log.warn("Сводки бронирований расходились с бронированиями, вещи: {}", differentIds);
+        }
+        return repaired;
+    }
+
+    private static Map<Long, Booking> mapByItemId(List<Booking> bookings) {
+        return bookings.stream().collect(toMap(Booking::getItemId, Function.identity()));
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Current last and next non-rejected bookings of an item. The summary is valid until refreshAt,
+ * the start of the next booking, when the next booking becomes the last one.
+ */
+@Data
+@Entity
+@Table(name = "item_booking_summaries", schema = "public")
+public class ItemBookingSummary {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+    @Column(name = "refresh_at")
+    private LocalDateTime refreshAt;
+    @Version
+    private Long version;
+}
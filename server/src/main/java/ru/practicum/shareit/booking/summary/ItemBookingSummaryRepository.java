@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.summary;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ItemBookingSummary AS s " +
+            "WHERE s.itemId IN ?1 " +
+            "ORDER BY s.itemId")
+    List<ItemBookingSummary> findAllForUpdate(Collection<Long> itemIds);
+
+    @Query("SELECT s.itemId FROM ItemBookingSummary AS s " +
+            "WHERE s.refreshAt <= ?1 " +
+            "ORDER BY s.refreshAt, s.itemId")
+    List<Long> findDueItemIds(LocalDateTime moment, Pageable pageable);
+
+    /**
+     * Returns rows of the summary with its last and next bookings, joined in the same query.
+     */
+    @Query("SELECT s, lb, nb " +
+            "FROM ItemBookingSummary AS s " +
+            "LEFT JOIN Booking AS lb ON lb.id = s.lastBookingId " +
+            "LEFT JOIN Booking AS nb ON nb.id = s.nextBookingId " +
+            "WHERE s.itemId IN ?1")
+    List<Object[]> findItemBookings(Collection<Long> itemIds);
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.Data;
+import ru.practicum.shareit.booking.Booking;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ItemBookings {
+    private final Long itemId;
+    private final LocalDateTime refreshAt;
+    private final Booking lastBooking;
+    private final Booking nextBooking;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Delivers ids of changed entities to the caches of all server instances.
+ */
+public interface CacheInvalidationChannel {
+    /**
+     * Returns the publisher of the subscribed cache, its ids reach the other caches of the region but not itself,
+     * so a cache that has already applied its own change keeps it.
+     */
+    Consumer<Long> subscribe(String region, Consumer<Long> listener);
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache of entities by id, shared by all requests of the instance.
+ * Callers get copies, so entities taken from the cache can be changed freely.
+ * An invalidation evicts the entry at once, again after the transaction completes and, after commit,
+ * on the other instances through the channel. Until the transaction completes the entry is not cached again,
+ * so uncommitted state never leaks into the cache.
+ */
+@Slf4j
+public class EntityCache<T> implements MeterBinder {
+    private static final int STRIPES = 64;
+
+    private final String region;
+    private final Cache<Long, T> cache;
+    private final UnaryOperator<T> copier;
+    private final Consumer<Long> publisher;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final AtomicIntegerArray pendingInvalidations = new AtomicIntegerArray(STRIPES);
+
+    public EntityCache(String region, long maxSize, Duration expireAfterWrite, UnaryOperator<T> copier,
+                       CacheInvalidationChannel channel) {
+        this.region = region;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.copier = copier;
+        this.publisher = channel.subscribe(region, this::evict);
+    }
+
+    public Optional<T> find(Long id, Function<Long, Optional<T>> loader) {
+        T entity = cache.getIfPresent(id);
+        if (entity != null) {
+            return Optional.of(copier.apply(entity));
+        }
+        int stripe = stripe(id);
+        long generation = generations.get(stripe);
+        Optional<T> loaded = loader.apply(id);
+        loaded.ifPresent(value -> {
+            synchronized (cache) {
+                if (pendingInvalidations.get(stripe) == 0 && generations.get(stripe) == generation) {
+                    cache.put(id, copier.apply(value));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id);
+            publisher.accept(id);
+            return;
+        }
+        int stripe = stripe(id);
+        pendingInvalidations.incrementAndGet(stripe);
+        evict(id);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publisher.accept(id);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                evict(id);
+                pendingInvalidations.decrementAndGet(stripe);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, region);
+    }
+
+    private void evict(Long id) {
+        synchronized (cache) {
+            generations.incrementAndGet(stripe(id));
+            cache.invalidate(id);
+        }
+        log.debug("Удалена из кэша {} запись id: {}", region, id);
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(id.hashCode(), STRIPES);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+
+/**
+ * Entity caches of users and items. Entries also expire after a while, which bounds staleness
+ * if an invalidation from another instance is lost.
+ */
+@Configuration
+public class EntityCacheConfig {
+    @Value("${shareit.entity-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${shareit.entity-cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Bean
+    public CacheInvalidationChannel cacheInvalidationChannel() {
+        return new LocalCacheInvalidationChannel();
+    }
+
+    @Bean
+    public EntityCache<User> userCache(CacheInvalidationChannel channel) {
+        return new EntityCache<>("users", maxSize, expireAfterWrite, EntityCacheConfig::copyUser, channel);
+    }
+
+    @Bean
+    public EntityCache<Item> itemCache(CacheInvalidationChannel channel) {
+        return new EntityCache<>("items", maxSize, expireAfterWrite, EntityCacheConfig::copyItem, channel);
+    }
+
+    private static User copyUser(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+
+    private static Item copyItem(Item item) {
+        Item copy = new Item();
+        copy.setId(item.getId());
+        copy.setName(item.getName());
+        copy.setDescription(item.getDescription());
+        copy.setAvailable(item.getAvailable());
+        copy.setOwner(item.getOwner());
+        copy.setRequestId(item.getRequestId());
+        copy.setCommentCount(item.getCommentCount());
+        copy.setVersion(item.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for a broker, delivers invalidations to the caches subscribed in the same JVM.
+ */
+public class LocalCacheInvalidationChannel implements CacheInvalidationChannel {
+    private final Map<String, List<Consumer<Long>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public Consumer<Long> subscribe(String region, Consumer<Long> listener) {
+        List<Consumer<Long>> regionListeners = listeners.computeIfAbsent(region, key -> new CopyOnWriteArrayList<>());
+        regionListeners.add(listener);
+        return id -> regionListeners.stream()
+                .filter(other -> other != listener)
+                .forEach(other -> other.accept(id));
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -22,4 +23,11 @@ public class ExceptionHandlers {
     public Map<String, String> handleNotFound(final RuntimeException e) {
         return Map.of("error", e.getMessage());
     }
+
+    @ExceptionHandler({OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleConflict(final RuntimeException e) {
+        log.warn("Конфликт параллельных изменений: {}", e.getMessage());
+        return Map.of("error", "Data was changed by another request, repeat the update");
+    }
 }
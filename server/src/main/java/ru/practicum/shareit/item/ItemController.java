@@ -1,10 +1,19 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
@@ -28,6 +37,18 @@ public class ItemController {
         return new ResponseEntity<>(itemService.addItem(ownerId, item), CREATED);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                         @RequestBody List<Item> items) {
+        return new ResponseEntity<>(itemService.importItems(ownerId, items), OK);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> importItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                         InputStream ndjson) {
+        return new ResponseEntity<>(itemService.importItems(ownerId, ndjson), OK);
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<?> update(@RequestHeader("X-Sharer-User-Id") Long ownerId,
                                     @PathVariable("id") Long id,
@@ -35,10 +56,21 @@ public class ItemController {
         return new ResponseEntity<>(itemService.updateItem(ownerId, id, item), OK);
     }
 
+    @PatchMapping
+    public ResponseEntity<?> updateAll(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                       @RequestBody List<Item> items) {
+        return new ResponseEntity<>(itemService.updateItems(ownerId, items), OK);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getItem(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                     @PathVariable("id") Long id) {
-        return new ResponseEntity<>(itemService.getItem(ownerId, id), OK);
+                                     @PathVariable("id") Long id,
+                                     WebRequest request) {
+        String etag = itemService.getItemEtag(ownerId, id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(itemService.getItem(ownerId, id));
     }
 
     @GetMapping
@@ -47,8 +79,35 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> search(@RequestParam(value = "text") String searchingText) {
-        return new ResponseEntity<>(itemService.searchItem(searchingText), OK);
+    public ResponseEntity<?> search(@RequestParam(value = "text") String searchingText,
+                                    @RequestParam(value = "from", required = false) Integer from,
+                                    @RequestParam(value = "size", required = false) Integer size) {
+        return new ResponseEntity<>(itemService.searchItem(searchingText, from, size), OK);
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getAvailability(@PathVariable("id") Long id,
+                                             @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return new ResponseEntity<>(itemService.getItemAvailability(id, from, to), OK);
+    }
+
+    @GetMapping("/{id}/matching-requests")
+    public ResponseEntity<?> getMatchingRequests(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                 @PathVariable("id") Long id) {
+        return new ResponseEntity<>(itemService.findMatchingRequests(ownerId, id), OK);
+    }
+
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<?> getComments(@PathVariable("id") Long id,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", required = false) Integer size) {
+        CursorPage<Comment> page = itemService.getItemComments(id, cursor, size);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getContent(), headers, OK);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -1,10 +1,23 @@
 package ru.practicum.shareit.item.comment;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface CommentRepository extends JpaRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentRepositoryCustom {
 
-    List<Comment> findCommentByItemId(Long id);
+    @Query(value = "SELECT * FROM (" +
+            "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.created DESC, c.id DESC) AS rn " +
+            "FROM comments AS c " +
+            "WHERE c.item_id IN ?1) AS latest_comments " +
+            "WHERE latest_comments.rn <= ?2 " +
+            "ORDER BY latest_comments.item_id, latest_comments.created DESC, latest_comments.id DESC", nativeQuery = true)
+    List<Comment> findLatestCommentsOfItems(Collection<Long> itemIds, int limit);
+
+    @Query("SELECT c.itemId, COUNT(c) FROM Comment c " +
+            "WHERE c.itemId IN ?1 " +
+            "GROUP BY c.itemId")
+    List<Object[]> countCommentsOfItems(Collection<Long> itemIds);
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.comment;
+
+import ru.practicum.shareit.pagination.PageCursor;
+
+import java.util.List;
+
+public interface CommentRepositoryCustom {
+
+    /**
+     * Returns up to limit comments of the item, newest first, starting after the cursor position.
+     */
+    List<Comment> findItemComments(Long itemId, PageCursor cursor, int limit);
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.comment;
+
+import ru.practicum.shareit.pagination.PageCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommentRepositoryCustomImpl implements CommentRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Comment> findItemComments(Long itemId, PageCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Comment> query = cb.createQuery(Comment.class);
+        Root<Comment> comment = query.from(Comment.class);
+        Path<LocalDateTime> created = comment.get("created");
+        Path<Long> id = comment.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(comment.get("itemId"), itemId));
+        if (cursor != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(created, cursor.getTimestamp()),
+                    cb.and(cb.equal(created, cursor.getTimestamp()), cb.lessThan(id, cursor.getId()))));
+        }
+        query.select(comment)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(created), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
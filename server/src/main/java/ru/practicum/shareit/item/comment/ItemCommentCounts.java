@@ -0,0 +1,96 @@
+package ru.practicum.shareit.item.comment;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Checks the comment counts of items against their comments and repairs the ones that differ, like comments
+ * added by instances that don't keep the count yet during a rolling deploy. Counts of earlier comments are
+ * filled in by the V9 and V13 migrations.
+ * <p>
+ * Items are checked in batches of one transaction each. The items are locked before their comments are
+ * counted, so a comment added meanwhile is either counted here or increments the repaired count after it.
+ */
+@Component
+@Slf4j
+public class ItemCommentCounts implements MeterBinder {
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public ItemCommentCounts(ItemRepository itemRepository, CommentRepository commentRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${shareit.comment-count.batch-size:500}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of repaired counts. The first run comes soon after start, so comments missed
+     * while the deploy rolled out are counted quickly.
+     */
+    @Scheduled(fixedDelayString = "${shareit.comment-count.verify-delay:PT1H}",
+            initialDelayString = "${shareit.comment-count.verify-initial-delay:PT1M}")
+    public int verify() {
+        int repaired = 0;
+        Long lastItemId = 0L;
+        List<Long> itemIds;
+        do {
+            itemIds = itemRepository.findIdsAfter(lastItemId, PageRequest.of(0, batchSize));
+            if (itemIds.isEmpty()) {
+                break;
+            }
+            lastItemId = itemIds.get(itemIds.size() - 1);
+            List<Long> chunk = itemIds;
+            repaired += transactionTemplate.execute(status -> verifyItems(chunk));
+        } while (itemIds.size() == batchSize);
+        mismatches.addAndGet(repaired);
+        log.info("Проверены счетчики комментариев вещей, исправлено: {}", repaired);
+        return repaired;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("item.comment.count.mismatches", mismatches, AtomicLong::get)
+                .register(registry);
+    }
+
+    private int verifyItems(List<Long> itemIds) {
+        List<Item> items = itemRepository.findAllForUpdate(itemIds);
+        Map<Long, Long> commentCounts = commentRepository.countCommentsOfItems(itemIds).stream()
+                .collect(toMap(row -> (Long) row[0], row -> (Long) row[1]));
+        List<Long> differentIds = new ArrayList<>();
+        for (Item item : items) {
+            int commentCount = commentCounts.getOrDefault(item.getId(), 0L).intValue();
+            if (item.getCommentCount() != commentCount) {
+                itemRepository.updateCommentCount(item.getId(), commentCount);
+                differentIds.add(item.getId());
+            }
+        }
+        if (!differentIds.isEmpty()) {
+            log.warn("Счетчики комментариев расходились с комментариями, вещи: {}", differentIds);
+        }
+        return differentIds.size();
+    }
+}
@@ -19,8 +19,9 @@ public class ItemDto {
     private Booking lastBooking;
     private Booking nextBooking;
     private List<Comment> comments;
+    private Integer commentCount;
 
-    public ItemDto(Long id, String name, String description, Boolean available, Long requestId, Booking lastBooking, Booking nextBooking, List<Comment> comments) {
+    public ItemDto(Long id, String name, String description, Boolean available, Long requestId, Booking lastBooking, Booking nextBooking, List<Comment> comments, Integer commentCount) {
         this.id = id;
         this.name = name;
         this.description = description;
@@ -29,5 +30,6 @@ public class ItemDto {
         this.lastBooking = lastBooking;
         this.nextBooking = nextBooking;
         this.comments = comments;
+        this.commentCount = commentCount;
     }
 }
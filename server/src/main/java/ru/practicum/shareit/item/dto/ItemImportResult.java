@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk item import. Rows are numbered from 1 in the order they were sent,
+ * only the first {@link #MAX_REPORTED_ERRORS} rejected rows are listed.
+ */
+@Data
+public class ItemImportResult {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long imported;
+    private long failed;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public void addError(long row, String error) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, error));
+        }
+    }
+
+    @Data
+    public static class RowError {
+        private final long row;
+        private final String error;
+    }
+}
@@ -15,7 +15,8 @@ public class ItemMapper {
                 item.getRequestId(),
                 item.getLastBooking(),
                 item.getNextBooking(),
-                item.getComments()
+                item.getComments(),
+                item.getCommentCount()
         );
     }
 }
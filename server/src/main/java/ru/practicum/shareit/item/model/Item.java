@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.item.comment.Comment;
 
@@ -12,10 +14,12 @@ import java.util.List;
  */
 @Data
 @Entity
+@DynamicUpdate
 @Table(name = "items", schema = "public")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_id_seq")
+    @SequenceGenerator(name = "items_id_seq", sequenceName = "items_id_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
@@ -23,6 +27,12 @@ public class Item {
     private Long owner;
     @Column(name = "REQUEST_ID")
     private Long requestId;
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    @JsonIgnore
+    private Integer commentCount = 0;
+    @Version
+    @JsonIgnore
+    private Long version;
     @Transient
     private Booking lastBooking;
     @Transient
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A lower case word of the item name or description, the item search looks items up by their words.
+ */
+@Data
+@Entity
+@IdClass(ItemSearchWord.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "item_search_words", schema = "public")
+public class ItemSearchWord {
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    @Id
+    private String word;
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    public static List<ItemSearchWord> of(Item item) {
+        Set<String> words = split(item.getName());
+        words.addAll(split(item.getDescription()));
+        return words.stream()
+                .map(word -> new ItemSearchWord(word, item.getId()))
+                .collect(toList());
+    }
+
+    /**
+     * Splits the text into lower case words of letters and digits.
+     */
+    public static Set<String> split(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String word;
+        private Long itemId;
+    }
+}
@@ -1,55 +1,60 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+    @Override
     Optional<Item> findById(Long id);
 
-    @Query("SELECT i.name FROM Item i " +
-            "WHERE i.id = ?1")
-    String findNameById(Long id);
+    @Override
+    void deleteById(Long id);
 
-    @Query("SELECT i.owner FROM Item i " +
+    @Query("SELECT i.available FROM Item i " +
             "WHERE i.id = ?1")
-    Long findOwnerById(Long id);
+    Boolean findAvailableById(Long id);
 
-    @Modifying
-    @Query("UPDATE Item i " +
-            "SET i.name = ?1 " +
-            "WHERE i.id = ?2")
-    void updateName(String name, Long id);
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.owner = ?1 " +
+            "ORDER BY i.id")
+    List<Item> findItemsByOwner(Long owner);
 
-    @Query("SELECT i.description FROM Item i " +
-            "WHERE i.id = ?1")
-    String findDescriptionById(Long id);
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.available = TRUE AND i.id > ?1 " +
+            "ORDER BY i.id")
+    List<Item> findAvailableItemsAfter(Long id, Pageable pageable);
 
-    @Modifying
-    @Query("UPDATE Item i " +
-            "SET i.description = ?1 " +
-            "WHERE i.id = ?2")
-    void updateDescription(String name, Long id);
+    @Query("SELECT i.id FROM Item i " +
+            "WHERE i.available = TRUE AND i.id IN ?1")
+    Set<Long> findAvailableIds(Collection<Long> ids);
 
-    @Query("SELECT i.available FROM Item i " +
-            "WHERE i.id = ?1")
-    Boolean findAvailableById(Long id);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.id IN ?1 " +
+            "ORDER BY i.id")
+    List<Item> findAllForUpdate(Collection<Long> ids);
 
-    @Modifying
-    @Query("UPDATE Item i SET i.available = ?1 WHERE i.id = ?2")
-    void updateAvailable(Boolean available, Long id);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.id = ?1")
+    Optional<Item> findForUpdate(Long id);
 
     @Query("SELECT i.id FROM Item i " +
-            "WHERE i.owner = ?1 " +
+            "WHERE i.id > ?1 " +
             "ORDER BY i.id")
-    List<Long> findIdByOwner(Long owner);
+    List<Long> findIdsAfter(Long id, Pageable pageable);
 
-    @Query("SELECT i FROM Item i " +
-            "WHERE LOWER (i.name) LIKE CONCAT ('%',?1,'%') " +
-            "OR LOWER (i.description) LIKE CONCAT ('%',?1,'%') AND i.available = TRUE")
-    List<Item> searchItemByNameOrDescription(String searchingText);
+    @Query("SELECT i.id FROM Item i " +
+            "WHERE i.id > ?1 AND NOT EXISTS (SELECT w.word FROM ItemSearchWord w WHERE w.itemId = i.id) " +
+            "ORDER BY i.id")
+    List<Long> findIdsWithoutSearchWordsAfter(Long id, Pageable pageable);
 }
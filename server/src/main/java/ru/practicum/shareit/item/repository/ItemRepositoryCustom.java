@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * Returns available items whose name or description contains the text, ignoring case. Candidates are looked up
+     * by their search words, so the longest word of the text has to start a word of the item.
+     * Exact name matches go first, then names starting with the text, then other name matches,
+     * then description-only matches; ties are ordered by id.
+     */
+    List<Item> searchAvailableItems(String text, int offset, int limit);
+
+    /**
+     * Returns a detached copy of the item from the entity cache, loading it on a miss.
+     */
+    Optional<Item> findById(Long id);
+
+    /**
+     * Loads the item once, applies the changes and flushes a single UPDATE of the changed columns,
+     * checked against the item version.
+     */
+    Optional<Item> patch(Long id, Consumer<Item> changes);
+
+    /**
+     * Same as {@link #patch}, but for many items loaded with one query and flushed together.
+     * Missing ids are skipped, the found items are returned ordered by id.
+     */
+    List<Item> patchAll(Collection<Long> ids, Consumer<Item> changes);
+
+    /**
+     * Inserts new items in JDBC batches and detaches everything in the persistence context afterwards,
+     * so memory stays flat however many chunks one transaction inserts.
+     */
+    void insertAll(List<Item> items);
+
+    /**
+     * Replaces the search words of the items with the words of their current name and description.
+     * Items saved through {@link #patch}, {@link #patchAll} and {@link #insertAll} are indexed already.
+     */
+    void indexSearchWords(Collection<Item> items);
+
+    /**
+     * Counts a new comment of the item in the same UPDATE that increments its version.
+     */
+    void incrementCommentCount(Long id);
+
+    /**
+     * Replaces the comment count of the item with a recounted one, incrementing its version.
+     */
+    void updateCommentCount(Long id, int commentCount);
+
+    void deleteById(Long id);
+}
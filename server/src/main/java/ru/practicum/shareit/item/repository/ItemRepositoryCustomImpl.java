@@ -0,0 +1,200 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityCache;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchWord;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+    private static final String SEARCH_QUERY = "SELECT i FROM Item i " +
+            "WHERE i.available = TRUE " +
+            "AND i.id IN (SELECT w.itemId FROM ItemSearchWord w WHERE w.word LIKE :wordPrefix) " +
+            "AND (LOWER(i.name) LIKE :contains ESCAPE '\\' OR LOWER(i.description) LIKE :contains ESCAPE '\\') " +
+            "ORDER BY CASE " +
+            "WHEN LOWER(i.name) = :text THEN 0 " +
+            "WHEN LOWER(i.name) LIKE :startsWith ESCAPE '\\' THEN 1 " +
+            "WHEN LOWER(i.name) LIKE :contains ESCAPE '\\' THEN 2 " +
+            "ELSE 3 END, i.id";
+    private static final String FIND_QUERY = "SELECT i.id AS id, i.name AS name, i.description AS description, " +
+            "i.available AS available, i.owner AS owner, i.requestId AS requestId, i.commentCount AS commentCount, " +
+            "i.version AS version " +
+            "FROM Item i " +
+            "WHERE i.id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final EntityCache<Item> itemCache;
+
+    public ItemRepositoryCustomImpl(EntityCache<Item> itemCache) {
+        this.itemCache = itemCache;
+    }
+
+    @Override
+    public List<Item> searchAvailableItems(String text, int offset, int limit) {
+        Optional<String> longestWord = ItemSearchWord.split(text).stream()
+                .max(Comparator.comparingInt(String::length));
+        if (longestWord.isEmpty()) {
+            return List.of();
+        }
+        String lowerText = text.toLowerCase();
+        String escapedText = escapeLikePattern(lowerText);
+        return entityManager.createQuery(SEARCH_QUERY, Item.class)
+                .setParameter("wordPrefix", longestWord.get() + "%")
+                .setParameter("text", lowerText)
+                .setParameter("startsWith", escapedText + "%")
+                .setParameter("contains", "%" + escapedText + "%")
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return itemCache.find(id, this::loadItem);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Item> patch(Long id, Consumer<Item> changes) {
+        Item item = entityManager.find(Item.class, id);
+        if (item == null) {
+            return Optional.empty();
+        }
+        String searchedText = searchedText(item);
+        changes.accept(item);
+        entityManager.flush();
+        if (!searchedText.equals(searchedText(item))) {
+            indexSearchWords(List.of(item));
+        }
+        itemCache.invalidate(id);
+        return Optional.of(item);
+    }
+
+    @Override
+    @Transactional
+    public List<Item> patchAll(Collection<Long> ids, Consumer<Item> changes) {
+        List<Item> items = entityManager.createQuery("SELECT i FROM Item i WHERE i.id IN :ids ORDER BY i.id", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, String> searchedTexts = items.stream()
+                .collect(toMap(Item::getId, ItemRepositoryCustomImpl::searchedText));
+        items.forEach(changes);
+        entityManager.flush();
+        indexSearchWords(items.stream()
+                .filter(item -> !searchedTexts.get(item.getId()).equals(searchedText(item)))
+                .collect(toList()));
+        items.forEach(item -> itemCache.invalidate(item.getId()));
+        return items;
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<Item> items) {
+        items.forEach(entityManager::persist);
+        items.forEach(item -> ItemSearchWord.of(item).forEach(entityManager::persist));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional
+    public void indexSearchWords(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<ItemSearchWord> words = items.stream()
+                .flatMap(item -> ItemSearchWord.of(item).stream())
+                .collect(toSet());
+        List<ItemSearchWord> storedWords = entityManager.createQuery("SELECT w FROM ItemSearchWord w " +
+                        "WHERE w.itemId IN :ids", ItemSearchWord.class)
+                .setParameter("ids", items.stream().map(Item::getId).collect(toList()))
+                .getResultList();
+        for (ItemSearchWord storedWord : storedWords) {
+            if (!words.remove(storedWord)) {
+                entityManager.remove(storedWord);
+            }
+        }
+        words.forEach(entityManager::persist);
+        entityManager.flush();
+    }
+
+    @Override
+    @Transactional
+    public void incrementCommentCount(Long id) {
+        entityManager.createQuery("UPDATE Item i SET i.commentCount = i.commentCount + 1, i.version = i.version + 1 " +
+                        "WHERE i.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        itemCache.invalidate(id);
+    }
+
+    @Override
+    @Transactional
+    public void updateCommentCount(Long id, int commentCount) {
+        entityManager.createQuery("UPDATE Item i SET i.commentCount = :commentCount, i.version = i.version + 1 " +
+                        "WHERE i.id = :id")
+                .setParameter("commentCount", commentCount)
+                .setParameter("id", id)
+                .executeUpdate();
+        itemCache.invalidate(id);
+    }
+
+    @Override
+    @Transactional
+    public void deleteById(Long id) {
+        entityManager.createQuery("DELETE FROM Item i WHERE i.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        itemCache.invalidate(id);
+    }
+
+    /**
+     * Reads the columns instead of the entity, so a stale instance from the persistence context
+     * is never put into the cache.
+     */
+    private Optional<Item> loadItem(Long id) {
+        return entityManager.createQuery(FIND_QUERY, Tuple.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .map(tuple -> {
+                    Item item = new Item();
+                    item.setId(tuple.get("id", Long.class));
+                    item.setName(tuple.get("name", String.class));
+                    item.setDescription(tuple.get("description", String.class));
+                    item.setAvailable(tuple.get("available", Boolean.class));
+                    item.setOwner(tuple.get("owner", Long.class));
+                    item.setRequestId(tuple.get("requestId", Long.class));
+                    item.setCommentCount(tuple.get("commentCount", Integer.class));
+                    item.setVersion(tuple.get("version", Long.class));
+                    return item;
+                });
+    }
+
+    private static String searchedText(Item item) {
+        return Objects.toString(item.getName()) + "\n" + Objects.toString(item.getDescription());
+    }
+
+    private static String escapeLikePattern(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.ItemImportResult;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * One bulk import of items of an owner. Valid rows are collected into chunks, each chunk checks its
+ * request ids with one query and is inserted in JDBC batches; rejected rows are reported by number.
+ */
+class ItemImport {
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final Long ownerId;
+    private final int chunkSize;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemTokenIndex itemTokenIndex;
+    private final List<Item> chunk = new ArrayList<>();
+    private final List<Long> chunkRows = new ArrayList<>();
+    private final ItemImportResult result = new ItemImportResult();
+    private long row;
+
+    ItemImport(Long ownerId, int chunkSize, ItemRepository itemRepository,
+               ItemRequestRepository itemRequestRepository, ItemTokenIndex itemTokenIndex) {
+        this.ownerId = ownerId;
+        this.chunkSize = chunkSize;
+        this.itemRepository = itemRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemTokenIndex = itemTokenIndex;
+    }
+
+    void add(Item item) {
+        row++;
+        String error = validate(item);
+        if (error != null) {
+            result.addError(row, error);
+            return;
+        }
+        item.setId(null);
+        item.setVersion(null);
+        item.setOwner(ownerId);
+        chunk.add(item);
+        chunkRows.add(row);
+        if (chunk.size() == chunkSize) {
+            insertChunk();
+        }
+    }
+
+    void reject(String error) {
+        row++;
+        result.addError(row, error);
+    }
+
+    void skip() {
+        row++;
+    }
+
+    ItemImportResult finish() {
+        insertChunk();
+        return result;
+    }
+
+    private void insertChunk() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<Long> requestIds = chunk.stream()
+                .map(Item::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        Set<Long> foundRequestIds = requestIds.isEmpty() ? Set.of() : itemRequestRepository.findExistingIds(requestIds);
+        List<Item> items = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Item item = chunk.get(i);
+            if (item.getRequestId() != null && !foundRequestIds.contains(item.getRequestId())) {
+                result.addError(chunkRows.get(i), "Not found item request id: " + item.getRequestId());
+            } else {
+                items.add(item);
+            }
+        }
+        itemRepository.insertAll(items);
+        itemTokenIndex.invalidate(items.stream().map(Item::getId).collect(toList()));
+        result.setImported(result.getImported() + items.size());
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    private static String validate(Item item) {
+        if (item == null) {
+            return "Not found item";
+        }
+        if (item.getAvailable() == null) {
+            return "Not found item available";
+        }
+        if (item.getName() == null || item.getName().isBlank()) {
+            return "Not found item name";
+        }
+        if (item.getDescription() == null) {
+            return "Not found item description";
+        }
+        if (item.getName().length() > MAX_TEXT_LENGTH || item.getDescription().length() > MAX_TEXT_LENGTH) {
+            return "Item name and description can't be longer than " + MAX_TEXT_LENGTH;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+/**
+ * Fills the search words of items that have none: items added before the words were kept, and items added
+ * by instances that don't keep them yet during a rolling deploy.
+ * <p>
+ * Items are indexed in batches of one transaction each. The items are locked first, so an update committed
+ * meanwhile replaces the words indexed here with its own.
+ */
+@Component
+@Slf4j
+public class ItemSearchWordsBackfill {
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ItemSearchWordsBackfill(ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+                                   @Value("${shareit.search-words.batch-size:500}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of indexed items. The first run comes soon after start, so existing items
+     * are found by search again quickly.
+     */
+    @Scheduled(fixedDelayString = "${shareit.search-words.backfill-delay:PT1H}",
+            initialDelayString = "${shareit.search-words.backfill-initial-delay:PT1M}")
+    public int backfill() {
+        int indexed = 0;
+        Long lastItemId = 0L;
+        List<Long> itemIds;
+        do {
+            itemIds = itemRepository.findIdsWithoutSearchWordsAfter(lastItemId, PageRequest.of(0, batchSize));
+            if (itemIds.isEmpty()) {
+                break;
+            }
+            lastItemId = itemIds.get(itemIds.size() - 1);
+            List<Long> chunk = itemIds;
+            transactionTemplate.executeWithoutResult(status ->
+                    itemRepository.indexSearchWords(itemRepository.findAllForUpdate(chunk)));
+            indexed += chunk.size();
+        } while (itemIds.size() == batchSize);
+        log.info("Заполнены слова для поиска вещей, вещей: {}", indexed);
+        return indexed;
+    }
+}
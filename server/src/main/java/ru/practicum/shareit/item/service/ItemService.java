@@ -1,21 +1,41 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.booking.availability.FreeWindow;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResult;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
     Item addItem(Long id, Item item);
 
+    ItemImportResult importItems(Long ownerId, List<Item> items);
+
+    ItemImportResult importItems(Long ownerId, InputStream ndjson);
+
     Item updateItem(Long ownerId, Long id, Item item);
 
+    List<Item> updateItems(Long ownerId, List<Item> items);
+
     ItemDto getItem(Long ownerId, Long id);
 
+    String getItemEtag(Long userId, Long id);
+
     List<ItemDto> getUserItems(Long ownerId);
 
-    List<ItemDto> searchItem(String text);
+    List<ItemDto> searchItem(String text, Integer from, Integer size);
+
+    List<FreeWindow> getItemAvailability(Long id, LocalDateTime from, LocalDateTime to);
+
+    List<RequestMatchDto> findMatchingRequests(Long ownerId, Long id);
+
+    CursorPage<Comment> getItemComments(Long id, String cursor, Integer size);
 
     Comment addComment(Long userId, Long itemId, Comment comment);
 }
@@ -1,44 +1,93 @@
 package ru.practicum.shareit.item.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.FreeWindow;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
-import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
+import ru.practicum.shareit.booking.summary.ItemBookings;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResult;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+import ru.practicum.shareit.request.matching.RequestMatchRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.transaction.Transactional;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
 @Service
 @Transactional
 @Slf4j
 public class ItemServiceImpl implements ItemService {
+    private static final int MAX_SEARCH_RESULTS = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_IMPORT_SIZE = 10_000;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_MATCHING_REQUESTS = 100;
+    private static final int LATEST_COMMENTS = 10;
+    private static final int DEFAULT_COMMENTS_PAGE_SIZE = 20;
+    private static final int MAX_COMMENTS_PAGE_SIZE = 1000;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemAvailabilityIndex availabilityIndex;
+    private final ItemBookingSummaries bookingSummaries;
+    private final ItemTokenIndex itemTokenIndex;
+    private final RequestMatchRepository requestMatchRepository;
     private final ItemMapper mapper;
+    private final ObjectMapper objectMapper;
 
     public ItemServiceImpl(ItemRepository itemRepository, UserRepository userRepository,
-                           BookingRepository bookingRepository, CommentRepository commentRepository, ItemMapper mapper) {
+                           BookingRepository bookingRepository, CommentRepository commentRepository,
+                           ItemRequestRepository itemRequestRepository, ItemAvailabilityIndex availabilityIndex,
+                           ItemBookingSummaries bookingSummaries, ItemTokenIndex itemTokenIndex,
+                           RequestMatchRepository requestMatchRepository, ItemMapper mapper, ObjectMapper objectMapper) {
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.bookingSummaries = bookingSummaries;
+        this.itemTokenIndex = itemTokenIndex;
+        this.requestMatchRepository = requestMatchRepository;
         this.mapper = mapper;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -48,36 +97,86 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + ownerId));
         item.setOwner(ownerId);
         itemRepository.save(item);
+        itemRepository.indexSearchWords(List.of(item));
+        itemTokenIndex.invalidate(List.of(item.getId()));
         log.info("Добавлена вещь: {}", item);
         return item;
     }
 
     @Override
-    public Item updateItem(Long ownerId, Long id, Item updatedItem) {
-        if (itemRepository.findById(id).isPresent() && Objects.equals(itemRepository.findOwnerById(id), ownerId)) {
-            updatedItem.setId(id);
-            if (updatedItem.getName() != null) {
-                itemRepository.updateName(updatedItem.getName(), id);
-            } else {
-                updatedItem.setName(itemRepository.findNameById(id));
-            }
-            if (updatedItem.getDescription() != null) {
-                itemRepository.updateDescription(updatedItem.getDescription(), id);
-            } else {
-                updatedItem.setDescription(itemRepository.findDescriptionById(id));
+    public ItemImportResult importItems(Long ownerId, List<Item> items) {
+        if (items.size() > MAX_IMPORT_SIZE) {
+            String message = "Too many items to import : " + items.size() + " , can't be > " + MAX_IMPORT_SIZE +
+                    " , send them as NDJSON";
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        ItemImport itemImport = startImport(ownerId);
+        items.forEach(itemImport::add);
+        return finishImport(ownerId, itemImport);
+    }
+
+    /**
+     * Reads one item per line, so the rows are inserted while the body is still being read.
+     * Blank lines are skipped but keep their row numbers.
+     */
+    @Override
+    public ItemImportResult importItems(Long ownerId, InputStream ndjson) {
+        ItemImport itemImport = startImport(ownerId);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    itemImport.skip();
+                    continue;
+                }
+                try {
+                    itemImport.add(objectMapper.readValue(line, Item.class));
+                } catch (JsonProcessingException e) {
+                    itemImport.reject("Wrong item json : " + e.getOriginalMessage());
+                }
             }
-            if (updatedItem.getAvailable() != null) {
-                itemRepository.updateAvailable(updatedItem.getAvailable(), id);
-            } else {
-                updatedItem.setAvailable(itemRepository.findAvailableById(id));
+        } catch (IOException e) {
+            String message = "Can't read imported items : " + e.getMessage();
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return finishImport(ownerId, itemImport);
+    }
+
+    @Override
+    public Item updateItem(Long ownerId, Long id, Item updatedItem) {
+        Item item = itemRepository
+                .patch(id, storedItem -> applyChanges(ownerId, storedItem, updatedItem))
+                .orElseThrow(this::accessDenied);
+        itemTokenIndex.invalidate(List.of(id));
+        log.info("Обновлена вещь: {}", item);
+        return item;
+    }
+
+    @Override
+    public List<Item> updateItems(Long ownerId, List<Item> updatedItems) {
+        if (updatedItems.size() > MAX_BATCH_SIZE) {
+            String message = "Too many items to update : " + updatedItems.size() + " , can't be > " + MAX_BATCH_SIZE;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        Map<Long, Item> changes = new LinkedHashMap<>();
+        for (Item updatedItem : updatedItems) {
+            if (updatedItem.getId() == null || changes.put(updatedItem.getId(), updatedItem) != null) {
+                String message = "Every updated item needs its own id, got : " + updatedItem.getId();
+                log.warn(message);
+                throw new BadRequestException(message);
             }
-            log.info("Обновлена вещь: {}", updatedItem);
-            return updatedItem;
-        } else {
-            String message = "User has not access to update item";
-            log.error(message);
-            throw new NotFoundException(message);
         }
+        List<Item> items = itemRepository.patchAll(changes.keySet(),
+                storedItem -> applyChanges(ownerId, storedItem, changes.get(storedItem.getId())));
+        if (items.size() != changes.size()) {
+            throw accessDenied();
+        }
+        itemTokenIndex.invalidate(changes.keySet());
+        log.info("Обновлены вещи: {}", items);
+        return items;
     }
 
     @Override
@@ -85,52 +184,87 @@ public class ItemServiceImpl implements ItemService {
         Item item = itemRepository
                 .findById(id)
                 .orElseThrow(() -> new NotFoundException("Не найдена вещь id: " + id));
-        if (!bookingRepository.findLastItemBooking(id, ownerId).isEmpty()
-                && bookingRepository.findLastItemBooking(id, ownerId).get(0).getStatus() != BookingStatus.REJECTED) {
-            item.setLastBooking(bookingRepository.findLastItemBooking(id, ownerId).get(0));
-        }
-        if (!bookingRepository.findNextItemBooking(id, ownerId).isEmpty()
-                && bookingRepository.findNextItemBooking(id, ownerId).get(0).getStatus() != BookingStatus.REJECTED) {
-            item.setNextBooking(bookingRepository.findNextItemBooking(id, ownerId).get(0));
+        if (Objects.equals(item.getOwner(), ownerId)) {
+            ItemBookings itemBookings = bookingSummaries.findItemBookings(List.of(id)).get(id);
+            if (itemBookings != null) {
+                item.setLastBooking(itemBookings.getLastBooking());
+                item.setNextBooking(itemBookings.getNextBooking());
+            }
         }
-        item.setComments(commentRepository.findCommentByItemId(id));
+        item.setComments(commentRepository.findItemComments(id, null, LATEST_COMMENTS));
         log.info("Найденная вещь: {}", mapper.toItemDto(item));
         return mapper.toItemDto(item);
     }
 
+    /**
+     * The owner view also depends on the current last and next bookings, which change with time.
+     */
+    @Override
+    public String getItemEtag(Long userId, Long id) {
+        Item item = itemRepository
+                .findById(id)
+                .orElseThrow(() -> new NotFoundException("Не найдена вещь id: " + id));
+        if (!Objects.equals(item.getOwner(), userId)) {
+            return String.valueOf(item.getVersion());
+        }
+        ItemBookings itemBookings = bookingSummaries.findItemBookings(List.of(id)).get(id);
+        if (itemBookings == null) {
+            return item.getVersion() + "-0-0";
+        }
+        return item.getVersion() + "-" + bookingId(itemBookings.getLastBooking()) +
+                "-" + bookingId(itemBookings.getNextBooking());
+    }
+
     @Override
     public List<ItemDto> getUserItems(Long ownerId) {
         User user = userRepository
                 .findById(ownerId)
                 .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + ownerId));
         List<ItemDto> userItems = new ArrayList<>();
-        for (Long id : itemRepository.findIdByOwner(ownerId)) {
-            Item item = itemRepository.findById(id).get();
-            if (!bookingRepository.findLastItemBooking(id, ownerId).isEmpty()
-                    && bookingRepository.findLastItemBooking(id, ownerId).get(0).getStatus() != BookingStatus.REJECTED) {
-                item.setLastBooking(bookingRepository.findLastItemBooking(id, ownerId).get(0));
-            }
-            if (!bookingRepository.findNextItemBooking(id, ownerId).isEmpty()
-                    && bookingRepository.findNextItemBooking(id, ownerId).get(0).getStatus() != BookingStatus.REJECTED) {
-                item.setNextBooking(bookingRepository.findNextItemBooking(id, ownerId).get(0));
+        List<Item> items = itemRepository.findItemsByOwner(ownerId);
+        if (items.isEmpty()) {
+            log.info("Список вещей пользователя : {}", userItems);
+            return userItems;
+        }
+        Map<Long, ItemBookings> bookings = bookingSummaries.findItemBookings(
+                items.stream().map(Item::getId).collect(toList()));
+        Map<Long, List<Comment>> comments = findCommentsByItemId(items);
+        for (Item item : items) {
+            ItemBookings itemBookings = bookings.get(item.getId());
+            if (itemBookings != null) {
+                item.setLastBooking(itemBookings.getLastBooking());
+                item.setNextBooking(itemBookings.getNextBooking());
             }
-            item.setComments(commentRepository.findCommentByItemId(id));
-            ItemDto itemDto = mapper.toItemDto(item);
-            userItems.add(itemDto);
+            item.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+            userItems.add(mapper.toItemDto(item));
         }
         log.info("Список вещей пользователя : {}", userItems);
         return userItems;
     }
 
     @Override
-    public List<ItemDto> searchItem(String searchingText) {
+    public List<ItemDto> searchItem(String searchingText, Integer from, Integer size) {
         List<ItemDto> searchingItems = new ArrayList<>();
-        if (searchingText.isEmpty()) {
+        if (searchingText.isBlank()) {
             log.info("Отсутствует запрос на поиск вещи");
             return searchingItems;
         }
-        for (Item item : itemRepository.searchItemByNameOrDescription(searchingText.toLowerCase())) {
-            item.setComments(commentRepository.findCommentByItemId(item.getId()));
+        int offset = from == null ? 0 : from;
+        int limit = size == null ? MAX_SEARCH_RESULTS : Math.min(size, MAX_SEARCH_RESULTS);
+        if (offset < 0) {
+            String message = "Wrong pageable settings : from is " + offset + " , can't be < 0";
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        if (limit < 1) {
+            String message = "Wrong pageable settings : size is " + limit + " , can't be < 1";
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        List<Item> items = itemRepository.searchAvailableItems(searchingText, offset, limit);
+        Map<Long, List<Comment>> comments = findCommentsByItemId(items);
+        for (Item item : items) {
+            item.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
             ItemDto searchingItem = mapper.toItemDto(item);
             searchingItems.add(searchingItem);
         }
@@ -138,6 +272,55 @@ public class ItemServiceImpl implements ItemService {
         return searchingItems;
     }
 
+    @Override
+    public List<FreeWindow> getItemAvailability(Long id, LocalDateTime from, LocalDateTime to) {
+        if (!itemRepository.existsById(id)) {
+            throw new NotFoundException("Не найдена вещь id: " + id);
+        }
+        if (!from.isBefore(to)) {
+            String message = "Wrong availability period : from " + from + " is not before to " + to;
+            log.warn(message);
+            throw new BadRequestException(message);
+        }
+        return availabilityIndex.findFreeWindows(id, from, to);
+    }
+
+    @Override
+    public List<RequestMatchDto> findMatchingRequests(Long ownerId, Long id) {
+        Item item = itemRepository
+                .findById(id)
+                .orElseThrow(() -> new NotFoundException("Не найдена вещь id: " + id));
+        if (!Objects.equals(item.getOwner(), ownerId)) {
+            throw accessDenied();
+        }
+        return requestMatchRepository.findItemMatches(id, PageRequest.of(0, MAX_MATCHING_REQUESTS));
+    }
+
+    /**
+     * Item views embed only the latest comments, the rest are read page by page, newest first.
+     */
+    @Override
+    public CursorPage<Comment> getItemComments(Long id, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_COMMENTS_PAGE_SIZE : Math.min(size, MAX_COMMENTS_PAGE_SIZE);
+        if (pageSize < 1) {
+            String message = "Wrong pageable settings : size is " + pageSize + " , can't be < 1";
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        if (!itemRepository.existsById(id)) {
+            throw new NotFoundException("Не найдена вещь id: " + id);
+        }
+
+        PageCursor pageCursor = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        List<Comment> comments = commentRepository.findItemComments(id, pageCursor, pageSize);
+        String nextCursor = null;
+        if (comments.size() == pageSize) {
+            Comment lastComment = comments.get(comments.size() - 1);
+            nextCursor = new PageCursor(lastComment.getCreated(), lastComment.getId()).encode();
+        }
+        return new CursorPage<>(comments, nextCursor);
+    }
+
     @Override
     public Comment addComment(Long userId, Long itemId, Comment comment) {
         User user = userRepository
@@ -151,9 +334,59 @@ public class ItemServiceImpl implements ItemService {
             comment.setCreated(LocalDateTime.now(ZoneId.of("Europe/Moscow")));
             comment.setItemId(itemId);
             commentRepository.save(comment);
+            itemRepository.incrementCommentCount(itemId);
             return comment;
         } else {
             throw new BadRequestException("User cant add comment");
         }
     }
+
+    private ItemImport startImport(Long ownerId) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new NotFoundException("Не найден пользователь id: " + ownerId);
+        }
+        return new ItemImport(ownerId, IMPORT_CHUNK_SIZE, itemRepository, itemRequestRepository, itemTokenIndex);
+    }
+
+    private ItemImportResult finishImport(Long ownerId, ItemImport itemImport) {
+        ItemImportResult result = itemImport.finish();
+        log.info("Импортированы вещи пользователя {} : добавлено {}, отклонено {}",
+                ownerId, result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private void applyChanges(Long ownerId, Item item, Item changes) {
+        if (!Objects.equals(item.getOwner(), ownerId)) {
+            throw accessDenied();
+        }
+        if (changes.getName() != null) {
+            item.setName(changes.getName());
+        }
+        if (changes.getDescription() != null) {
+            item.setDescription(changes.getDescription());
+        }
+        if (changes.getAvailable() != null) {
+            item.setAvailable(changes.getAvailable());
+        }
+    }
+
+    private NotFoundException accessDenied() {
+        String message = "User has not access to update item";
+        log.error(message);
+        return new NotFoundException(message);
+    }
+
+    private Map<Long, List<Comment>> findCommentsByItemId(List<Item> items) {
+        if (items.isEmpty()) {
+            return Map.of();
+        }
+        return commentRepository
+                .findLatestCommentsOfItems(items.stream().map(Item::getId).collect(toList()), LATEST_COMMENTS)
+                .stream()
+                .collect(groupingBy(Comment::getItemId));
+    }
+
+    private static long bookingId(Booking booking) {
+        return booking == null ? 0L : booking.getId();
+    }
 }
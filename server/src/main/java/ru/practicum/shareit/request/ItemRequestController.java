@@ -1,7 +1,11 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.RequestService;
 
 import static org.springframework.http.HttpStatus.CREATED;
@@ -33,14 +37,37 @@ public class ItemRequestController {
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getByRequestId(@RequestHeader("X-Sharer-User-Id") Long requesterId,
-                                            @PathVariable("id") Long requestId) {
-        return new ResponseEntity<>(requestService.findRequestById(requesterId, requestId), OK);
+                                            @PathVariable("id") Long requestId,
+                                            WebRequest request) {
+        String etag = requestService.getRequestEtag(requesterId, requestId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(requestService.findRequestById(requesterId, requestId));
+    }
+
+    @GetMapping("/{id}/matches")
+    public ResponseEntity<?> getMatches(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                        @PathVariable("id") Long requestId) {
+        return new ResponseEntity<>(requestService.findRequestMatches(userId, requestId), OK);
     }
 
     @GetMapping("/all")
     public ResponseEntity<?> getAllItemRequestWithPageable(@RequestHeader(value = "X-Sharer-User-Id", required = false) Long requesterId,
                                                            @RequestParam(value = "from", required = false) Integer from,
-                                                           @RequestParam(value = "size", required = false) Integer size) {
-        return new ResponseEntity<>(requestService.findRequestsPageable(requesterId, from, size), OK);
+                                                           @RequestParam(value = "size", required = false) Integer size,
+                                                           @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return toCursorPageResponse(requestService.findRequestsPage(requesterId, cursor, size));
+        }
+        return toCursorPageResponse(requestService.findRequestsPageable(requesterId, from, size));
+    }
+
+    private ResponseEntity<?> toCursorPageResponse(CursorPage<ItemRequestDto> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getContent(), headers, OK);
     }
 }
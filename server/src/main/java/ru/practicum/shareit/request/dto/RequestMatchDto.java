@@ -0,0 +1,20 @@
+package ru.practicum.shareit.request.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * An available item found for a request, the higher the score the more words of the request it has.
+ */
+@Data
+public class RequestMatchDto {
+    private final Long requestId;
+    private final String requestDescription;
+    private final Long itemId;
+    private final String itemName;
+    private final Integer score;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime created;
+}
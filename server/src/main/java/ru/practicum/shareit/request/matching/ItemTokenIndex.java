@@ -0,0 +1,228 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Inverted index of the words of available items, used to find candidate items for new requests.
+ * Changed items are only marked on commit and reindexed before the next matching batch, so request threads
+ * never pay for indexing. Marks are local to the instance, a periodic rebuild bounds staleness of changes
+ * made on other instances.
+ */
+@Component
+@Slf4j
+public class ItemTokenIndex {
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int NAME_TOKEN_SCORE = 2;
+    private static final int DESCRIPTION_TOKEN_SCORE = 1;
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final ItemRepository itemRepository;
+    private final long rebuildIntervalNanos;
+    private final int maxPostings;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedItems = ConcurrentHashMap.newKeySet();
+    private Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private Map<Long, IndexedItem> items = new HashMap<>();
+    private long builtAt;
+    private boolean built;
+
+    public ItemTokenIndex(ItemRepository itemRepository,
+                          @Value("${shareit.request-matching.index.rebuild-interval:1h}") Duration rebuildInterval,
+                          @Value("${shareit.request-matching.index.max-postings:10000}") int maxPostings) {
+        this.itemRepository = itemRepository;
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+        this.maxPostings = maxPostings;
+    }
+
+    /**
+     * Splits the text into lower case words of letters and digits, too short words are dropped.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public void invalidate(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changedItems.addAll(itemIds);
+            return;
+        }
+        List<Long> ids = new ArrayList<>(itemIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changedItems.addAll(ids);
+            }
+        });
+    }
+
+    /**
+     * Builds the index on first use or once it is older than the rebuild interval, otherwise reindexes
+     * the items changed since the last refresh.
+     */
+    public synchronized void refresh() {
+        if (!built || System.nanoTime() - builtAt > rebuildIntervalNanos) {
+            rebuild();
+            return;
+        }
+        if (changedItems.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(changedItems);
+        changedItems.removeAll(ids);
+        Map<Long, Item> changed = new HashMap<>();
+        itemRepository.findAllById(ids).forEach(item -> changed.put(item.getId(), item));
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                remove(id);
+                Item item = changed.get(id);
+                if (item != null && Boolean.TRUE.equals(item.getAvailable())) {
+                    add(item, postings, items);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Переиндексированы вещи для подбора по запросам, количество: {}", ids.size());
+    }
+
+    /**
+     * Returns the best scoring available items of other owners for the text: every word of the text found
+     * in the item name adds 2, found only in the description adds 1. Words found in more than max-postings
+     * items are too common to tell items apart and are skipped, which also bounds the work per request.
+     */
+    public List<Candidate> match(String text, Long requesterId, int minScore, int limit) {
+        Map<Long, Integer> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String token : tokenize(text)) {
+                Map<Long, Integer> itemScores = postings.get(token);
+                if (itemScores == null || itemScores.size() > maxPostings) {
+                    continue;
+                }
+                itemScores.forEach((itemId, score) -> scores.merge(itemId, score, Integer::sum));
+            }
+            return scores.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= minScore)
+                    .filter(entry -> !Objects.equals(items.get(entry.getKey()).getOwner(), requesterId))
+                    .map(entry -> new Candidate(entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.comparing(Candidate::getScore).reversed().thenComparing(Candidate::getItemId))
+                    .limit(limit)
+                    .collect(toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the new index aside, so matching goes on with the old one until it is swapped in.
+     */
+    private void rebuild() {
+        changedItems.clear();
+        long started = System.nanoTime();
+        Map<String, Map<Long, Integer>> newPostings = new HashMap<>();
+        Map<Long, IndexedItem> newItems = new HashMap<>();
+        List<Item> chunk = itemRepository.findAvailableItemsAfter(0L, PageRequest.of(0, LOAD_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            chunk.forEach(item -> add(item, newPostings, newItems));
+            chunk = chunk.size() < LOAD_CHUNK_SIZE ? List.of() : itemRepository.findAvailableItemsAfter(
+                    chunk.get(chunk.size() - 1).getId(), PageRequest.of(0, LOAD_CHUNK_SIZE));
+        }
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            items = newItems;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        built = true;
+        builtAt = System.nanoTime();
+        log.info("Построен индекс вещей для подбора по запросам, вещей: {}, слов: {}, за {} мс",
+                newItems.size(), newPostings.size(), Duration.ofNanos(builtAt - started).toMillis());
+    }
+
+    private static void add(Item item, Map<String, Map<Long, Integer>> postings, Map<Long, IndexedItem> items) {
+        Set<String> nameTokens = tokenize(item.getName());
+        Set<String> tokens = new LinkedHashSet<>(nameTokens);
+        tokens.addAll(tokenize(item.getDescription()));
+        for (String token : tokens) {
+            int score = nameTokens.contains(token) ? NAME_TOKEN_SCORE : DESCRIPTION_TOKEN_SCORE;
+            postings.computeIfAbsent(token, key -> new HashMap<>()).put(item.getId(), score);
+        }
+        items.put(item.getId(), new IndexedItem(item.getOwner(), tokens));
+    }
+
+    private void remove(Long itemId) {
+        IndexedItem item = items.remove(itemId);
+        if (item == null) {
+            return;
+        }
+        for (String token : item.getTokens()) {
+            Map<Long, Integer> itemScores = postings.get(token);
+            itemScores.remove(itemId);
+            if (itemScores.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Candidate {
+        private final Long itemId;
+        private final int score;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class IndexedItem {
+        private final Long owner;
+        private final Set<String> tokens;
+    }
+}
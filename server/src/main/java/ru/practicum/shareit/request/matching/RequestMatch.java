@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "request_matches", schema = "public")
+public class RequestMatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_matches_id_seq")
+    @SequenceGenerator(name = "request_matches_id_seq", sequenceName = "request_matches_id_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "request_id")
+    private Long requestId;
+    @Column(name = "item_id")
+    private Long itemId;
+    private Integer score;
+    private LocalDateTime created;
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.request.matching;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RequestMatchRepository extends JpaRepository<RequestMatch, Long> {
+    @Query("SELECT new ru.practicum.shareit.request.dto.RequestMatchDto(m.requestId, r.description, m.itemId, " +
+            "i.name, m.score, m.created) " +
+            "FROM RequestMatch AS m, ItemRequest AS r, Item AS i " +
+            "WHERE m.requestId = ?1 AND r.id = m.requestId AND i.id = m.itemId AND i.available = TRUE " +
+            "ORDER BY m.score DESC, m.itemId")
+    List<RequestMatchDto> findRequestMatches(Long requestId);
+
+    @Query("SELECT new ru.practicum.shareit.request.dto.RequestMatchDto(m.requestId, r.description, m.itemId, " +
+            "i.name, m.score, m.created) " +
+            "FROM RequestMatch AS m, ItemRequest AS r, Item AS i " +
+            "WHERE m.itemId = ?1 AND r.id = m.requestId AND i.id = m.itemId " +
+            "ORDER BY m.created DESC, m.requestId DESC")
+    List<RequestMatchDto> findItemMatches(Long itemId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM RequestMatch AS m " +
+            "WHERE m.requestId IN ?1")
+    void deleteMatchesOfRequests(Collection<Long> requestIds);
+}
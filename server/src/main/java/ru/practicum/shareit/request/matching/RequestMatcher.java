@@ -0,0 +1,221 @@
+package ru.practicum.shareit.request.matching;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds candidate items for new requests in the background. Committed request ids wait in a bounded queue,
+ * a fixed pool of workers takes them in batches, and every batch reloads its requests, refreshes the item index
+ * and replaces the matches of the batch with one delete and one batched insert.
+ * When the queue is full, the committing thread waits up to the submit timeout, which slows down the clients
+ * posting requests; if the queue is still full the request stays unmatched.
+ * After every batch a worker pauses in proportion to the time it was busy, so it uses at most the cpu budget
+ * share of a core.
+ */
+@Component
+@Slf4j
+public class RequestMatcher implements MeterBinder {
+    private final ItemTokenIndex itemTokenIndex;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final RequestMatchRepository requestMatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Long> queue;
+    private final int workers;
+    private final int batchSize;
+    private final Duration submitTimeout;
+    private final double cpuBudget;
+    private final int minScore;
+    private final int maxMatches;
+    private final AtomicLong matchedRequests = new AtomicLong();
+    private final AtomicLong droppedRequests = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private ExecutorService executor;
+
+    public RequestMatcher(ItemTokenIndex itemTokenIndex, ItemRequestRepository itemRequestRepository,
+                          ItemRepository itemRepository, RequestMatchRepository requestMatchRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${shareit.request-matching.workers:2}") int workers,
+                          @Value("${shareit.request-matching.queue-capacity:10000}") int queueCapacity,
+                          @Value("${shareit.request-matching.batch-size:100}") int batchSize,
+                          @Value("${shareit.request-matching.submit-timeout:100ms}") Duration submitTimeout,
+                          @Value("${shareit.request-matching.cpu-budget:0.5}") double cpuBudget,
+                          @Value("${shareit.request-matching.min-score:2}") int minScore,
+                          @Value("${shareit.request-matching.max-matches:20}") int maxMatches) {
+        if (cpuBudget <= 0 || cpuBudget > 1) {
+            throw new IllegalArgumentException("Request matching cpu budget must be in (0, 1], got : " + cpuBudget);
+        }
+        this.itemTokenIndex = itemTokenIndex;
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.requestMatchRepository = requestMatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.submitTimeout = submitTimeout;
+        this.cpuBudget = cpuBudget;
+        this.minScore = minScore;
+        this.maxMatches = maxMatches;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (workers < 1) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "request-matcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Queues the request for matching once the current transaction commits.
+     */
+    public void submit(Long requestId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(requestId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(requestId);
+            }
+        });
+    }
+
+    /**
+     * Matches the requests on the calling thread, replacing their previous matches.
+     */
+    public void matchRequests(List<Long> requestIds) {
+        itemTokenIndex.refresh();
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<RequestMatch> matches = new ArrayList<>();
+            Set<Long> itemIds = new HashSet<>();
+            for (ItemRequest itemRequest : itemRequestRepository.findAllById(requestIds)) {
+                for (ItemTokenIndex.Candidate candidate : itemTokenIndex.match(itemRequest.getDescription(),
+                        itemRequest.getRequesterId(), minScore, maxMatches)) {
+                    RequestMatch match = new RequestMatch();
+                    match.setRequestId(itemRequest.getId());
+                    match.setItemId(candidate.getItemId());
+                    match.setScore(candidate.getScore());
+                    match.setCreated(now);
+                    matches.add(match);
+                    itemIds.add(candidate.getItemId());
+                }
+            }
+            Set<Long> availableItemIds = itemIds.isEmpty() ? Set.of() : itemRepository.findAvailableIds(itemIds);
+            if (availableItemIds.size() < itemIds.size()) {
+                itemIds.removeAll(availableItemIds);
+                itemTokenIndex.invalidate(itemIds);
+                matches.removeIf(match -> itemIds.contains(match.getItemId()));
+            }
+            requestMatchRepository.deleteMatchesOfRequests(requestIds);
+            requestMatchRepository.saveAll(matches);
+        });
+        matchedRequests.addAndGet(requestIds.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("request.matching.queue.size", queue, BlockingQueue::size)
+                .register(registry);
+        FunctionCounter.builder("request.matching.requests", matchedRequests, AtomicLong::get)
+                .tag("result", "matched")
+                .register(registry);
+        FunctionCounter.builder("request.matching.requests", droppedRequests, AtomicLong::get)
+                .tag("result", "dropped")
+                .register(registry);
+        FunctionCounter.builder("request.matching.batches.failed", failedBatches, AtomicLong::get)
+                .register(registry);
+    }
+
+    private void enqueue(Long requestId) {
+        try {
+            if (queue.offer(requestId, submitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedRequests.incrementAndGet();
+        log.warn("Очередь подбора вещей по запросам заполнена, запрос id: {} не будет обработан", requestId);
+    }
+
+    private void work() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                long started = System.nanoTime();
+                try {
+                    matchRequests(batch);
+                    log.debug("Подобраны вещи по запросам, количество: {}", batch.size());
+                } catch (RuntimeException e) {
+                    failedBatches.incrementAndGet();
+                    log.error("Не удалось подобрать вещи по запросам: {}", batch, e);
+                }
+                batch.clear();
+                pause(System.nanoTime() - started);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Keeps the busy share of a worker at the cpu budget: a batch that took t is followed by a pause of
+     * t * (1 - budget) / budget.
+     */
+    private void pause(long busyNanos) throws InterruptedException {
+        long pauseNanos = (long) (busyNanos * (1 - cpuBudget) / cpuBudget);
+        if (pauseNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+    }
+}
@@ -1,16 +1,16 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>, ItemRequestRepositoryCustom {
     @Query("SELECT i FROM ItemRequest AS i " +
             "WHERE i.requesterId = ?1")
     List<ItemRequest> findItemRequestsOfUser(Long requesterId);
@@ -19,16 +19,19 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>
             "WHERE i.requestId = ?1")
     List<Item> findRequestItemsList(Long requestId);
 
-    Optional<ItemRequest> findRequestItemById(Long requestId);
-
-    @Query("SELECT i FROM ItemRequest AS i")
-    Page<ItemRequest> findItemRequestsPageable(Pageable pageableSize);
+    @Query("SELECT i FROM Item AS i " +
+            "WHERE i.requestId IN ?1 " +
+            "ORDER BY i.id")
+    List<Item> findItemsOfRequests(Collection<Long> requestIds);
 
-    @Query("SELECT i FROM ItemRequest AS i")
-    List<ItemRequest> findAllItemRequests();
+    Optional<ItemRequest> findRequestItemById(Long requestId);
 
-    @Query("SELECT i FROM ItemRequest AS i " +
-            "WHERE i.requesterId != ?1")
-    Page<ItemRequest> findItemRequestsOfOtherUsersPageable(Pageable pageableSize, Long requesterId);
+    @Query("SELECT i.id FROM ItemRequest AS i " +
+            "WHERE i.id IN ?1")
+    Set<Long> findExistingIds(Collection<Long> requestIds);
 
+    @Query("SELECT COUNT(i) AS itemCount, COALESCE(MAX(i.id), 0) AS maxItemId, " +
+            "COALESCE(SUM(i.version), 0) AS versionSum FROM Item AS i " +
+            "WHERE i.requestId = ?1")
+    RequestItemsVersion findRequestItemsVersion(Long requestId);
 }
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.repository;
+
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.ItemRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemRequestRepositoryCustom {
+
+    /**
+     * Returns requests of users other than the given one (of all users if it is null) ordered by
+     * (created DESC, id DESC), starting right after the cursor position if there is one.
+     */
+    List<ItemRequest> findRequestsFeed(Long requesterId, PageCursor cursor, int limit);
+
+    /**
+     * Returns the keyset position of the last of the first {@code count} requests of the feed, or empty if there
+     * are fewer. Only the sort keys are read, so the requests before a page requested by from and size are not loaded.
+     */
+    Optional<PageCursor> findFeedPosition(Long requesterId, int count);
+}
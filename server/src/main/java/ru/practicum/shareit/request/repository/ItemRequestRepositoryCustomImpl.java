@@ -0,0 +1,82 @@
+package ru.practicum.shareit.request.repository;
+
+import org.hibernate.jpa.QueryHints;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.ItemRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ItemRequestRepositoryCustomImpl implements ItemRequestRepositoryCustom {
+    private static final int POSITION_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ItemRequest> findRequestsFeed(Long requesterId, PageCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ItemRequest> query = cb.createQuery(ItemRequest.class);
+        Root<ItemRequest> request = query.from(ItemRequest.class);
+        Path<LocalDateTime> created = request.get("created");
+        Path<Long> id = request.get("id");
+
+        List<Predicate> predicates = createPredicates(cb, request, requesterId);
+        if (cursor != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(created, cursor.getTimestamp()),
+                    cb.and(cb.equal(created, cursor.getTimestamp()), cb.lessThan(id, cursor.getId()))));
+        }
+        query.select(request)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(created), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<PageCursor> findFeedPosition(Long requesterId, int count) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PageCursor> query = cb.createQuery(PageCursor.class);
+        Root<ItemRequest> request = query.from(ItemRequest.class);
+        query.select(cb.construct(PageCursor.class, request.get("created"), request.get("id")))
+                .where(createPredicates(cb, request, requesterId).toArray(new Predicate[0]))
+                .orderBy(cb.desc(request.get("created")), cb.desc(request.get("id")));
+
+        try (Stream<PageCursor> positions = entityManager.createQuery(query)
+                .setMaxResults(count)
+                .setHint(QueryHints.HINT_FETCH_SIZE, POSITION_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            Iterator<PageCursor> iterator = positions.iterator();
+            PageCursor last = null;
+            int read = 0;
+            while (iterator.hasNext()) {
+                last = iterator.next();
+                read++;
+            }
+            return read == count ? Optional.of(last) : Optional.empty();
+        }
+    }
+
+    private List<Predicate> createPredicates(CriteriaBuilder cb, Root<ItemRequest> request, Long requesterId) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (requesterId != null) {
+            predicates.add(cb.notEqual(request.get("requesterId"), requesterId));
+        }
+        return predicates;
+    }
+}
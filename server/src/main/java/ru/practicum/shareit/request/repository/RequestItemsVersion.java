@@ -0,0 +1,13 @@
+package ru.practicum.shareit.request.repository;
+
+/**
+ * Changes with every item added to a request, updated or removed. Versions and ids only grow, so an item
+ * removed and another one added with the same count and version sum still change the largest id.
+ */
+public interface RequestItemsVersion {
+    Long getItemCount();
+
+    Long getMaxItemId();
+
+    Long getVersionSum();
+}
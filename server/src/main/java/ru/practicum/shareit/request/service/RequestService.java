@@ -1,7 +1,9 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 
 import java.util.List;
 
@@ -12,5 +14,11 @@ public interface RequestService {
 
     ItemRequestDto findRequestById(Long requesterId, Long requestId);
 
-    List<ItemRequestDto> findRequestsPageable(Long requesterId, Integer from, Integer size);
+    List<RequestMatchDto> findRequestMatches(Long userId, Long requestId);
+
+    String getRequestEtag(Long requesterId, Long requestId);
+
+    CursorPage<ItemRequestDto> findRequestsPageable(Long requesterId, Integer from, Integer size);
+
+    CursorPage<ItemRequestDto> findRequestsPage(Long requesterId, String cursor, Integer size);
 }
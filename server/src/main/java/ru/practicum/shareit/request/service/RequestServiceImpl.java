@@ -1,14 +1,20 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoMapper;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.matching.RequestMatchRepository;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestItemsVersion;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -16,21 +22,38 @@ import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @Service
 @Transactional
 @Slf4j
 public class RequestServiceImpl implements RequestService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     ItemRequestRepository itemRequestRepository;
     UserRepository userRepository;
+    RequestMatchRepository requestMatchRepository;
+    RequestMatcher requestMatcher;
     ItemRequestDtoMapper requestMapper;
 
     public RequestServiceImpl(ItemRequestRepository itemRequestRepository,
                               UserRepository userRepository,
+                              RequestMatchRepository requestMatchRepository,
+                              RequestMatcher requestMatcher,
                               ItemRequestDtoMapper requestMapper) {
         this.itemRequestRepository = itemRequestRepository;
         this.userRepository = userRepository;
+        this.requestMatchRepository = requestMatchRepository;
+        this.requestMatcher = requestMatcher;
         this.requestMapper = requestMapper;
     }
 
@@ -45,6 +68,7 @@ public class RequestServiceImpl implements RequestService {
         itemRequest.setRequesterId(requesterId);
 
         itemRequestRepository.save(itemRequest);
+        requestMatcher.submit(itemRequest.getId());
         return itemRequest;
     }
 
@@ -54,15 +78,8 @@ public class RequestServiceImpl implements RequestService {
                 .findById(requesterId)
                 .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + requesterId));
 
-        List<ItemRequestDto> itemsRequests = new ArrayList<>();
-
-        for (ItemRequest itemRequest : itemRequestRepository.findItemRequestsOfUser(requesterId)) {
-            itemRequest.setRequester(requester);
-            itemRequest.setItems(itemRequestRepository.findRequestItemsList(itemRequest.getId()));
-            itemsRequests.add(requestMapper.toItemRequestDto(itemRequest));
-        }
-
-        return itemsRequests;
+        return toItemRequestDtoList(itemRequestRepository.findItemRequestsOfUser(requesterId),
+                Map.of(requesterId, requester));
     }
 
     @Override
@@ -80,33 +97,131 @@ public class RequestServiceImpl implements RequestService {
         return requestMapper.toItemRequestDto(itemRequest);
     }
 
+    /**
+     * Matches are found in the background, so a request just posted may have none yet.
+     */
     @Override
-    public List<ItemRequestDto> findRequestsPageable(Long requesterId, Integer from, Integer size) {
-        Pageable pageableSize;
+    public List<RequestMatchDto> findRequestMatches(Long userId, Long requestId) {
+        if (!itemRequestRepository.existsById(requestId)) {
+            throw new NotFoundException("Не найден запрос на вещь id: " + requestId);
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Не найден пользователь id: " + userId);
+        }
+        return requestMatchRepository.findRequestMatches(requestId);
+    }
 
-        if (from == null || size == null) {
-            return findAllRequests(itemRequestRepository.findAllItemRequests());
-        } else {
-            pageableSize = PageRequest.of(from, size);
+    @Override
+    public String getRequestEtag(Long requesterId, Long requestId) {
+        if (!itemRequestRepository.existsById(requestId)) {
+            throw new NotFoundException("Не найден запрос на вещь id: " + requestId);
+        }
+        if (!userRepository.existsById(requesterId)) {
+            throw new NotFoundException("Не найден пользователь id: " + requesterId);
+        }
+        RequestItemsVersion version = itemRequestRepository.findRequestItemsVersion(requestId);
+        return version.getItemCount() + "-" + version.getMaxItemId() + "-" + version.getVersionSum();
+    }
+
+    /**
+     * Without from and size the first feed page of the largest size is returned, with the cursor of the next
+     * page if there are more requests. With from and size the page starts right after the position of the first
+     * {@code from} requests, which is found from their sort keys only.
+     */
+    @Override
+    public CursorPage<ItemRequestDto> findRequestsPageable(Long requesterId, Integer from, Integer size) {
+        if (from == null && size == null) {
+            return findRequestsPage(requesterId, null, MAX_PAGE_SIZE);
+        }
+        if (from == null) {
+            String message = "Wrong pageable settings : from is not set , size is " + size;
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        if (size == null) {
+            String message = "Wrong pageable settings : size is not set , from is " + from;
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        if (from < 0) {
+            String message = "Wrong pageable settings : from is " + from + " , can't be < 0";
+            log.error(message);
+            throw new BadRequestException(message);
         }
 
+        if (size < 1) {
+            String message = "Wrong pageable settings : size is " + size + " , can't be < 1";
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+
+        checkRequesterExists(requesterId);
+
+        PageCursor position = null;
+        if (from > 0) {
+            Optional<PageCursor> feedPosition = itemRequestRepository.findFeedPosition(requesterId, from);
+            if (feedPosition.isEmpty()) {
+                return new CursorPage<>(new ArrayList<>(), null);
+            }
+            position = feedPosition.get();
+        }
+        List<ItemRequest> requests = itemRequestRepository.findRequestsFeed(requesterId, position,
+                Math.min(size, MAX_PAGE_SIZE));
+        return new CursorPage<>(findAllRequests(requests), null);
+    }
+
+    @Override
+    public CursorPage<ItemRequestDto> findRequestsPage(Long requesterId, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            String message = "Wrong pageable settings : size is " + pageSize + " , can't be < 1";
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        checkRequesterExists(requesterId);
+
+        PageCursor pageCursor = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        List<ItemRequest> requests = itemRequestRepository.findRequestsFeed(requesterId, pageCursor, pageSize);
+        String nextCursor = null;
+        if (requests.size() == pageSize) {
+            ItemRequest lastRequest = requests.get(requests.size() - 1);
+            nextCursor = new PageCursor(lastRequest.getCreated(), lastRequest.getId()).encode();
+        }
+        return new CursorPage<>(findAllRequests(requests), nextCursor);
+    }
+
+    private void checkRequesterExists(Long requesterId) {
         if (requesterId != null) {
-            User requester = userRepository
+            userRepository
                     .findById(requesterId)
                     .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + requesterId));
-            return findAllRequests(itemRequestRepository.findItemRequestsOfOtherUsersPageable(pageableSize, requesterId).toList());
-
-        } else {
-            return findAllRequests(itemRequestRepository.findItemRequestsPageable(pageableSize).toList());
         }
     }
 
     private List<ItemRequestDto> findAllRequests(List<ItemRequest> itemRequestList) {
+        if (itemRequestList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> requesterIds = itemRequestList.stream().map(ItemRequest::getRequesterId).collect(toSet());
+        Map<Long, User> requesters = userRepository.findAllById(requesterIds).stream()
+                .collect(toMap(User::getId, identity()));
+
+        return toItemRequestDtoList(itemRequestList, requesters);
+    }
+
+    private List<ItemRequestDto> toItemRequestDtoList(List<ItemRequest> itemRequestList, Map<Long, User> requesters) {
         List<ItemRequestDto> requestsList = new ArrayList<>();
+        if (itemRequestList.isEmpty()) {
+            return requestsList;
+        }
+        Map<Long, List<Item>> items = itemRequestRepository
+                .findItemsOfRequests(itemRequestList.stream().map(ItemRequest::getId).collect(toList()))
+                .stream()
+                .collect(groupingBy(Item::getRequestId));
 
         for (ItemRequest itemRequest : itemRequestList) {
-            itemRequest.setRequester(userRepository.findById(itemRequest.getRequesterId()).get());
-            itemRequest.setItems(itemRequestRepository.findRequestItemsList(itemRequest.getId()));
+            itemRequest.setRequester(requesters.get(itemRequest.getRequesterId()));
+            itemRequest.setItems(items.getOrDefault(itemRequest.getId(), new ArrayList<>()));
             requestsList.add(requestMapper.toItemRequestDto(itemRequest));
         }
 
@@ -2,6 +2,7 @@ package ru.practicum.shareit.user;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.validation.Valid;
@@ -32,8 +33,12 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUser(@PathVariable("id") Long id) {
-        return new ResponseEntity<>(userService.getUser(id), OK);
+    public ResponseEntity<?> getUser(@PathVariable("id") Long id, WebRequest request) {
+        String etag = userService.getUserEtag(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(userService.getUser(id));
     }
 
     @GetMapping
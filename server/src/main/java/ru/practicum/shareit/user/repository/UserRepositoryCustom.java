@@ -0,0 +1,22 @@
+package ru.practicum.shareit.user.repository;
+
+import ru.practicum.shareit.user.User;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Returns a detached copy of the user from the entity cache, loading it on a miss.
+     */
+    Optional<User> findById(Long id);
+
+    /**
+     * Loads the user once, applies the changes and flushes a single UPDATE of the changed columns,
+     * checked against the user version.
+     */
+    Optional<User> patch(Long id, Consumer<User> changes);
+
+    void deleteById(Long id);
+}
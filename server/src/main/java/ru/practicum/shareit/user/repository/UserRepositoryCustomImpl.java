@@ -0,0 +1,72 @@
+package ru.practicum.shareit.user.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityCache;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private static final String FIND_QUERY = "SELECT u.id AS id, u.name AS name, u.email AS email, u.version AS version " +
+            "FROM User u " +
+            "WHERE u.id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final EntityCache<User> userCache;
+
+    public UserRepositoryCustomImpl(EntityCache<User> userCache) {
+        this.userCache = userCache;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return userCache.find(id, this::loadUser);
+    }
+
+    @Override
+    @Transactional
+    public Optional<User> patch(Long id, Consumer<User> changes) {
+        User user = entityManager.find(User.class, id);
+        if (user == null) {
+            return Optional.empty();
+        }
+        changes.accept(user);
+        entityManager.flush();
+        userCache.invalidate(id);
+        return Optional.of(user);
+    }
+
+    @Override
+    @Transactional
+    public void deleteById(Long id) {
+        entityManager.createQuery("DELETE FROM User u WHERE u.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        userCache.invalidate(id);
+    }
+
+    /**
+     * Reads the columns instead of the entity, so a stale instance from the persistence context
+     * is never put into the cache.
+     */
+    private Optional<User> loadUser(Long id) {
+        return entityManager.createQuery(FIND_QUERY, Tuple.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .map(tuple -> {
+                    User user = new User();
+                    user.setId(tuple.get("id", Long.class));
+                    user.setName(tuple.get("name", String.class));
+                    user.setEmail(tuple.get("email", String.class));
+                    user.setVersion(tuple.get("version", Long.class));
+                    return user;
+                });
+    }
+}
@@ -13,6 +13,8 @@ public interface UserService {
 
     UserDto getUser(Long id);
 
+    String getUserEtag(Long id);
+
     List<UserDto> getAllUsers();
 
     void delete(Long id);
@@ -35,21 +35,17 @@ public class UserServiceImpl implements UserService {
     @Override
     public User update(User userUpdated, Long id) {
         User user = userRepository
-                .findById(id)
+                .patch(id, storedUser -> {
+                    if (userUpdated.getName() != null) {
+                        storedUser.setName(userUpdated.getName());
+                    }
+                    if (userUpdated.getEmail() != null) {
+                        storedUser.setEmail(userUpdated.getEmail());
+                    }
+                })
                 .orElseThrow(() -> new NotFoundException("User not found id: " + id));
-        userUpdated.setId(id);
-        if (userUpdated.getName() != null) {
-            userRepository.updateName(userUpdated.getName(), id);
-        } else {
-            userUpdated.setName(userRepository.findNameById(id));
-        }
-        if (userUpdated.getEmail() != null) {
-            userRepository.updateEmail(userUpdated.getEmail(), id);
-        } else {
-            userUpdated.setEmail(userRepository.findEmailById(id));
-        }
         log.info("Обновлен пользователь: {}", user);
-        return userUpdated;
+        return user;
     }
 
     @Override
@@ -62,6 +58,14 @@ public class UserServiceImpl implements UserService {
         return userDto;
     }
 
+    @Override
+    public String getUserEtag(Long id) {
+        User user = userRepository
+                .findById(id)
+                .orElseThrow(() -> new NotFoundException("Не найден пользователь id: " + id));
+        return String.valueOf(user.getVersion());
+    }
+
     @Override
     public List<UserDto> getAllUsers() {
         List<UserDto> allUsers = userRepository
@@ -0,0 +1,21 @@
+-- Last and next non-rejected bookings of items, kept by ItemBookingSummaries
+create TABLE IF NOT EXISTS item_booking_summaries
+(
+  item_id         BIGINT               NOT NULL,
+  last_booking_id BIGINT,
+  next_booking_id BIGINT,
+  refresh_at      TIMESTAMP,
+  version         BIGINT DEFAULT 0     NOT NULL,
+  CONSTRAINT      pk_item_booking_summary PRIMARY KEY (item_id),
+  CONSTRAINT      fk_item_booking_summaries_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+-- findDueItemIds: summaries whose next booking has started
+CREATE INDEX IF NOT EXISTS item_booking_summaries_refresh_at_idx ON item_booking_summaries (refresh_at)
+;
+
+-- Existing items with bookings get empty summaries that are due at once, so the first roll forward fills them
+INSERT INTO item_booking_summaries (item_id, refresh_at)
+SELECT DISTINCT item_id, CURRENT_TIMESTAMP
+FROM bookings
+;
@@ -1,6 +1,3 @@
-drop table IF EXISTS users, items, bookings, comments, requests
-;
-
 create TABLE IF NOT EXISTS users
 (
     id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -52,5 +49,3 @@ create TABLE IF NOT EXISTS requests
   requester_id BIGINT                                  NOT NULL,
   CONSTRAINT   pk_request PRIMARY KEY (id)
 );
-
-
@@ -0,0 +1,12 @@
+-- Optimistic lock versions, also used as ETags of the read endpoints
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL
+;
+
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL
+;
+
+ALTER TABLE bookings
+    ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL
+;
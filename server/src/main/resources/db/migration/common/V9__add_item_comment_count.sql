@@ -0,0 +1,8 @@
+-- Number of comments of the item, kept by addComment so item views don't count or load all comments
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS comment_count INTEGER DEFAULT 0 NOT NULL
+;
+
+UPDATE items
+SET comment_count = (SELECT COUNT(*) FROM comments WHERE comments.item_id = items.id)
+;
@@ -0,0 +1,7 @@
+-- findItemComments, findLatestCommentsOfItems: latest comments of an item with a keyset position.
+-- Also serves lookups by item_id alone, so the old single column index is dropped.
+CREATE INDEX IF NOT EXISTS comments_item_created_idx ON comments (item_id, created DESC, id DESC)
+;
+
+DROP INDEX IF EXISTS comments_item_id_idx
+;
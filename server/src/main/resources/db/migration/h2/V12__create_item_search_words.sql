@@ -0,0 +1,13 @@
+-- Words of item names and descriptions for searchAvailableItems, kept by ItemRepositoryCustomImpl on every
+-- item write. Filled for existing items by ItemSearchWordsBackfill in small batches after the deploy.
+CREATE TABLE IF NOT EXISTS item_search_words
+(
+  word    VARCHAR(255) NOT NULL,
+  item_id BIGINT       NOT NULL,
+  CONSTRAINT pk_item_search_word PRIMARY KEY (word, item_id),
+  CONSTRAINT fk_item_search_words_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+-- indexSearchWords: replacing the words of an item
+CREATE INDEX IF NOT EXISTS item_search_words_item_idx ON item_search_words (item_id)
+;
@@ -0,0 +1,8 @@
+-- Recounts comment_count of items commented by instances that didn't keep the count yet after V9.
+-- Only the items whose count differs are written, their version changes with the count like addComment does.
+-- The PostgreSQL migration does this in batches of items; the H2 databases are small enough for one statement.
+UPDATE items
+SET comment_count = (SELECT COUNT(*) FROM comments WHERE comments.item_id = items.id),
+    version       = version + 1
+WHERE comment_count <> (SELECT COUNT(*) FROM comments WHERE comments.item_id = items.id)
+;
@@ -0,0 +1,31 @@
+-- findItemsByOwner, findLastBookingsOfOwnerItems / findNextBookingsOfOwnerItems join by owner
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner, id)
+;
+
+-- findRequestItemsList
+CREATE INDEX IF NOT EXISTS items_request_id_idx ON items (request_id)
+;
+
+-- findBookings for a booker: booker_id = ? ORDER BY start_booking DESC, id DESC, countUserBookingsOfItem
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_booking, id)
+;
+
+-- findBookings for an owner and the owner last / next booking window queries
+CREATE INDEX IF NOT EXISTS bookings_owner_start_idx ON bookings (item_owner, start_booking, id)
+;
+
+-- findBookings for an owner with WAITING / REJECTED state
+CREATE INDEX IF NOT EXISTS bookings_owner_status_idx ON bookings (item_owner, status, start_booking)
+;
+
+-- findBookingsOfItem, existsOverlappingBooking
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start_booking, id)
+;
+
+-- findCommentByItemId, findCommentByItemIdIn
+CREATE INDEX IF NOT EXISTS comments_item_id_idx ON comments (item_id)
+;
+
+-- findItemRequestsOfUser
+CREATE INDEX IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, created)
+;
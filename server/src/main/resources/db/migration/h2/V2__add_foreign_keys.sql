@@ -0,0 +1,27 @@
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_owner FOREIGN KEY (owner) REFERENCES users (id) ON DELETE CASCADE
+;
+
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_request FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE SET NULL
+;
+
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_booker FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
+;
+
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+;
+
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_item_owner FOREIGN KEY (item_owner) REFERENCES users (id) ON DELETE CASCADE
+;
+
+ALTER TABLE comments
+    ADD CONSTRAINT fk_comments_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+;
+
+ALTER TABLE requests
+    ADD CONSTRAINT fk_requests_requester FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE
+;
@@ -0,0 +1,3 @@
+-- H2 names identity sequences itself, so Hibernate takes item ids in blocks of 50 from a sequence of its own.
+CREATE SEQUENCE IF NOT EXISTS items_id_seq START WITH 1 INCREMENT BY 50
+;
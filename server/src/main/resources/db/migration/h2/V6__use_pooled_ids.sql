@@ -0,0 +1,9 @@
+-- Same as for items in V5: sequences of their own for the ids Hibernate takes in blocks of 50.
+CREATE SEQUENCE IF NOT EXISTS users_id_seq START WITH 1 INCREMENT BY 50
+;
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq START WITH 1 INCREMENT BY 50
+;
+CREATE SEQUENCE IF NOT EXISTS comments_id_seq START WITH 1 INCREMENT BY 50
+;
+CREATE SEQUENCE IF NOT EXISTS requests_id_seq START WITH 1 INCREMENT BY 50
+;
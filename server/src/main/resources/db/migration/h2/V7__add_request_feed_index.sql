@@ -0,0 +1,3 @@
+-- findRequestsFeed, findItemRequestsPageable: ORDER BY created DESC, id DESC with a keyset position
+CREATE INDEX IF NOT EXISTS requests_created_id_idx ON requests (created DESC, id DESC)
+;
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS request_matches
+(
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  request_id BIGINT                                  NOT NULL,
+  item_id    BIGINT                                  NOT NULL,
+  score      INTEGER                                 NOT NULL,
+  created    TIMESTAMP                               NOT NULL,
+  CONSTRAINT pk_request_match PRIMARY KEY (id),
+  CONSTRAINT uq_request_match UNIQUE (request_id, item_id),
+  CONSTRAINT fk_request_matches_request FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE CASCADE,
+  CONSTRAINT fk_request_matches_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+CREATE SEQUENCE IF NOT EXISTS request_matches_id_seq START WITH 1 INCREMENT BY 50
+;
+
+-- findItemMatches
+CREATE INDEX IF NOT EXISTS request_matches_item_created_idx ON request_matches (item_id, created)
+;
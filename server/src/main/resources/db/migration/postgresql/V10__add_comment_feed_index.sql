@@ -0,0 +1,9 @@
+-- Runs outside of a transaction (see the .conf file), so the index is built without locking writes.
+
+-- findItemComments, findLatestCommentsOfItems: latest comments of an item with a keyset position.
+-- Also serves lookups by item_id alone, so the old single column index is dropped.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS comments_item_created_idx ON comments (item_id, created DESC, id DESC)
+;
+
+DROP INDEX CONCURRENTLY IF EXISTS comments_item_id_idx
+;
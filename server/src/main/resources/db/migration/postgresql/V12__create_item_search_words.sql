@@ -0,0 +1,23 @@
+-- Runs outside of a transaction (see the .conf file), so the indexes are built and dropped without locking writes.
+
+-- Words of item names and descriptions for searchAvailableItems, kept by ItemRepositoryCustomImpl on every
+-- item write. Filled for existing items by ItemSearchWordsBackfill in small batches after the deploy.
+-- The "C" collation lets the primary key serve word prefix LIKE lookups.
+CREATE TABLE IF NOT EXISTS item_search_words
+(
+  word    VARCHAR(255) COLLATE "C" NOT NULL,
+  item_id BIGINT                   NOT NULL,
+  CONSTRAINT pk_item_search_word PRIMARY KEY (word, item_id),
+  CONSTRAINT fk_item_search_words_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+-- indexSearchWords: replacing the words of an item
+CREATE INDEX CONCURRENTLY IF NOT EXISTS item_search_words_item_idx ON item_search_words (item_id)
+;
+
+-- Search no longer scans names and descriptions, the trigram indexes of V3 only slow down item writes
+DROP INDEX CONCURRENTLY IF EXISTS items_name_trgm_idx
+;
+
+DROP INDEX CONCURRENTLY IF EXISTS items_description_trgm_idx
+;
@@ -0,0 +1,30 @@
+-- Runs outside of a transaction (see the .conf file), so every batch is committed by itself and holds its
+-- row locks only for a short time.
+
+-- Recounts comment_count of items commented by instances that didn't keep the count yet after V9, walking
+-- the items by id in batches of 500. Only the items whose count differs are written, their version changes
+-- with the count like addComment does. Drift left after this is repaired by ItemCommentCounts.
+DO
+$$
+    DECLARE
+        batch_start BIGINT := 0;
+        max_id      BIGINT;
+    BEGIN
+        SELECT MAX(id) INTO max_id FROM items;
+        WHILE batch_start <= COALESCE(max_id, 0)
+            LOOP
+                UPDATE items
+                SET comment_count = counted.comment_count,
+                    version       = items.version + 1
+                FROM (SELECT i.id, (SELECT COUNT(*) FROM comments c WHERE c.item_id = i.id) AS comment_count
+                      FROM items i
+                      WHERE i.id > batch_start
+                        AND i.id <= batch_start + 500) AS counted
+                WHERE items.id = counted.id
+                  AND items.comment_count <> counted.comment_count;
+                COMMIT;
+                batch_start := batch_start + 500;
+            END LOOP;
+    END
+$$
+;
@@ -0,0 +1,62 @@
+-- Runs outside of a transaction (see the .conf file), so the indexes are built without locking writes.
+-- A failed concurrent build leaves an INVALID index, drop it before repairing and rerunning the migration.
+
+-- findItemsByOwner, findLastBookingsOfOwnerItems / findNextBookingsOfOwnerItems join by owner
+CREATE INDEX CONCURRENTLY IF NOT EXISTS items_owner_idx ON items (owner, id)
+;
+
+-- findRequestItemsList
+CREATE INDEX CONCURRENTLY IF NOT EXISTS items_request_id_idx ON items (request_id)
+;
+
+-- findBookings for a booker: booker_id = ? ORDER BY start_booking DESC, id DESC, countUserBookingsOfItem
+CREATE INDEX CONCURRENTLY IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_booking, id)
+;
+
+-- findBookings for an owner and the owner last / next booking window queries
+CREATE INDEX CONCURRENTLY IF NOT EXISTS bookings_owner_start_idx ON bookings (item_owner, start_booking, id)
+;
+
+-- findBookings for an owner with WAITING / REJECTED state
+CREATE INDEX CONCURRENTLY IF NOT EXISTS bookings_owner_status_idx ON bookings (item_owner, status, start_booking)
+;
+
+-- findBookingsOfItem, existsOverlappingBooking
+CREATE INDEX CONCURRENTLY IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start_booking, id)
+;
+
+-- findCommentByItemId, findCommentByItemIdIn
+CREATE INDEX CONCURRENTLY IF NOT EXISTS comments_item_id_idx ON comments (item_id)
+;
+
+-- findItemRequestsOfUser
+CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, created)
+;
+
+ALTER TABLE items
+    VALIDATE CONSTRAINT fk_items_owner
+;
+
+ALTER TABLE items
+    VALIDATE CONSTRAINT fk_items_request
+;
+
+ALTER TABLE bookings
+    VALIDATE CONSTRAINT fk_bookings_booker
+;
+
+ALTER TABLE bookings
+    VALIDATE CONSTRAINT fk_bookings_item
+;
+
+ALTER TABLE bookings
+    VALIDATE CONSTRAINT fk_bookings_item_owner
+;
+
+ALTER TABLE comments
+    VALIDATE CONSTRAINT fk_comments_item
+;
+
+ALTER TABLE requests
+    VALIDATE CONSTRAINT fk_requests_requester
+;
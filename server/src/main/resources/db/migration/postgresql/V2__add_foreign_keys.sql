@@ -0,0 +1,29 @@
+-- NOT VALID skips the scan of existing rows, so the constraints are added under a short lock.
+-- They are validated in V2_1 without blocking writes.
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_owner FOREIGN KEY (owner) REFERENCES users (id) ON DELETE CASCADE NOT VALID
+;
+
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_request FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE SET NULL NOT VALID
+;
+
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_booker FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE NOT VALID
+;
+
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE NOT VALID
+;
+
+ALTER TABLE bookings
+    ADD CONSTRAINT fk_bookings_item_owner FOREIGN KEY (item_owner) REFERENCES users (id) ON DELETE CASCADE NOT VALID
+;
+
+ALTER TABLE comments
+    ADD CONSTRAINT fk_comments_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE NOT VALID
+;
+
+ALTER TABLE requests
+    ADD CONSTRAINT fk_requests_requester FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE NOT VALID
+;
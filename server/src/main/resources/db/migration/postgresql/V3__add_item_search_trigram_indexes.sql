@@ -0,0 +1,8 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm
+;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS items_name_trgm_idx ON items USING gin (LOWER(name) gin_trgm_ops) WHERE available
+;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS items_description_trgm_idx ON items USING gin (LOWER(description) gin_trgm_ops) WHERE available
+;
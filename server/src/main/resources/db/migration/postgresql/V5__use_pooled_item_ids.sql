@@ -0,0 +1,5 @@
+-- Hibernate takes item ids from the identity sequence in blocks of 50, so inserts can be batched.
+-- Inserts relying on the column default still get a value of their own outside of any taken block.
+ALTER TABLE items
+    ALTER COLUMN id SET INCREMENT BY 50
+;
@@ -0,0 +1,14 @@
+-- Same as for items in V5: Hibernate takes ids of users, bookings, comments and requests
+-- from their identity sequences in blocks of 50, so their inserts can be batched.
+ALTER TABLE users
+    ALTER COLUMN id SET INCREMENT BY 50
+;
+ALTER TABLE bookings
+    ALTER COLUMN id SET INCREMENT BY 50
+;
+ALTER TABLE comments
+    ALTER COLUMN id SET INCREMENT BY 50
+;
+ALTER TABLE requests
+    ALTER COLUMN id SET INCREMENT BY 50
+;
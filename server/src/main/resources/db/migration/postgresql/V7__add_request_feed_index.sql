@@ -0,0 +1,5 @@
+-- Runs outside of a transaction (see the .conf file), so the index is built without locking writes.
+
+-- findRequestsFeed, findItemRequestsPageable: ORDER BY created DESC, id DESC with a keyset position
+CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_created_id_idx ON requests (created DESC, id DESC)
+;
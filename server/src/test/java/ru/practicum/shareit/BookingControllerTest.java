@@ -11,18 +11,28 @@ import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.export.BookingExport;
+import ru.practicum.shareit.booking.export.BookingExportFormat;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.status.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.User;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -109,6 +119,7 @@ class BookingControllerTest {
     void findBooking() {
         Booking booking = createBooking();
         BookingDto bookingDto = bookingMapper.toBookingDto(booking);
+        when(bookingService.getBookingEtag(booking.getBooker().getId(), booking.getId())).thenReturn("0-0-0");
         when(bookingService.findBooking(booking.getBooker().getId(), booking.getId())).thenReturn(bookingDto);
 
         String result = mvc.perform(get("/bookings/{id}", booking.getId())
@@ -131,7 +142,7 @@ class BookingControllerTest {
         List<BookingDto> bookingDtoList = new ArrayList<>();
         bookingDtoList.add(bookingDto);
         when(bookingService.findAllBookerBookings(bookingDto.getBooker().getId(), null, 0, 1))
-                .thenReturn(bookingDtoList);
+                .thenReturn(new CursorPage<>(bookingDtoList, null));
 
         String result = mvc.perform(get("/bookings?from=0&size=1")
                         .header("X-Sharer-User-Id", booking.getBooker().getId())
@@ -153,7 +164,7 @@ class BookingControllerTest {
         List<BookingDto> bookingDtoList = new ArrayList<>();
         bookingDtoList.add(bookingDto);
         when(bookingService.findAllOwnerBookings(bookingDto.getItem().getOwner(), null, 0, 1))
-                .thenReturn(bookingDtoList);
+                .thenReturn(new CursorPage<>(bookingDtoList, null));
 
         String result = mvc.perform(get("/bookings/owner?from=0&size=1")
                         .header("X-Sharer-User-Id", booking.getItem().getOwner())
@@ -166,5 +177,38 @@ class BookingControllerTest {
 
         assertEquals(mapper.writeValueAsString(bookingDtoList), result);
     }
-}
 
+    @Test
+    @SneakyThrows
+    void getAllUserBookingWithoutPageHasNextCursor() {
+        Booking booking = createBooking();
+        BookingDto bookingDto = bookingMapper.toBookingDto(booking);
+        List<BookingDto> bookingDtoList = List.of(bookingDto);
+        when(bookingService.findAllBookerBookings(bookingDto.getBooker().getId(), null, null, null))
+                .thenReturn(new CursorPage<>(bookingDtoList, "next"));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", booking.getBooker().getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(content().string(mapper.writeValueAsString(bookingDtoList)));
+    }
+
+    @Test
+    @SneakyThrows
+    void exportOwnerBookings() {
+        BookingExport export = new BookingExport(null, BookingExportFormat.CSV);
+        when(bookingService.prepareOwnerExport(2L, "PAST", "csv")).thenReturn(export);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("id\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bookingService).writeExport(eq(export), any());
+
+        mvc.perform(get("/bookings/owner/export?state=PAST&format=csv")
+                        .header("X-Sharer-User-Id", 2L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bookings.csv\""))
+                .andExpect(content().string("id\r\n"));
+    }
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({EntityCacheConfig.class, BookingServiceImpl.class, ItemAvailabilityIndex.class,
+        ItemBookingSummaries.class, BookingMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingOverlapStressTest {
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ItemBookingSummaries bookingSummaries;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long ownerId;
+    private final List<Long> bookerIds = new ArrayList<>();
+    private Item hotItem;
+    private Item otherItem;
+
+    private User createUser(String name) {
+        return userRepository.save(TestFixtures.newUser(name));
+    }
+
+    private Item createItem(String name) {
+        return itemRepository.save(TestFixtures.newItem(ownerId, name, name, true));
+    }
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser("owner").getId();
+        for (int i = 0; i < THREADS; i++) {
+            bookerIds.add(createUser("booker" + i).getId());
+        }
+        hotItem = createItem("hotItem");
+        otherItem = createItem("otherItem");
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private Booking createBooking(Long itemId, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItemId(itemId);
+        booking.setStart(start);
+        booking.setEnd(end);
+        return booking;
+    }
+
+    private static boolean overlaps(Booking first, Booking second) {
+        return first.getStart().isBefore(second.getEnd()) && second.getStart().isBefore(first.getEnd());
+    }
+
+    @Test
+    void concurrentBookingsOfOneItemNeverOverlapTest() throws InterruptedException {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        AtomicInteger otherItemBookings = new AtomicInteger();
+        Queue<Throwable> unexpectedErrors = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            Long bookerId = bookerIds.get(i);
+            Random random = new Random(i);
+            executor.submit(() -> {
+                try {
+                    startGate.await();
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                        LocalDateTime start = base.plusHours(random.nextInt(48));
+                        LocalDateTime end = start.plusHours(1 + random.nextInt(4));
+                        try {
+                            Booking booking = bookingService.addBooking(bookerId, createBooking(hotItem.getId(), start, end));
+                            bookingService.approved(ownerId, booking.getId(), random.nextBoolean());
+                        } catch (BadRequestException e) {
+                            // slot already taken by a concurrent booking
+                        }
+                        LocalDateTime otherStart = base.plusHours((long) attempt * THREADS + thread);
+                        bookingService.addBooking(bookerId, createBooking(otherItem.getId(), otherStart, otherStart.plusMinutes(30)));
+                        otherItemBookings.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    unexpectedErrors.add(e);
+                }
+            });
+        }
+        startGate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Unexpected errors: " + unexpectedErrors);
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, otherItemBookings.get());
+        List<Booking> activeBookings = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItemId().equals(hotItem.getId()))
+                .filter(booking -> booking.getStatus() != BookingStatus.REJECTED)
+                .collect(toList());
+        assertFalse(activeBookings.isEmpty());
+        for (int i = 0; i < activeBookings.size(); i++) {
+            for (int j = i + 1; j < activeBookings.size(); j++) {
+                Booking first = activeBookings.get(i);
+                Booking second = activeBookings.get(j);
+                assertFalse(overlaps(first, second), () -> "Overlapping bookings " + first + " and " + second);
+            }
+        }
+        assertEquals(0, bookingSummaries.verify());
+        assertEquals(hotItem.getVersion(), itemRepository.findAll().stream()
+                .filter(item -> item.getId().equals(hotItem.getId()))
+                .findFirst().orElseThrow().getVersion());
+    }
+}
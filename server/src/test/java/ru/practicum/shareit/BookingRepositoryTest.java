@@ -0,0 +1,140 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.export.BookingExportRow;
+import ru.practicum.shareit.booking.repository.BookingQuery;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRole;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({EntityCacheConfig.class, TestFixtures.class})
+class BookingRepositoryTest {
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private User booker;
+    private Long bookerId;
+    private Long ownerId;
+    private Item item;
+
+    private Booking past;
+    private Booking current;
+    private Booking future;
+    private Booking rejected;
+
+    private Booking createBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return fixtures.createBooking(item, booker, start, end, status);
+    }
+
+    @BeforeEach
+    void setUp() {
+        booker = fixtures.createUser("booker");
+        User owner = fixtures.createUser("owner");
+        bookerId = booker.getId();
+        ownerId = owner.getId();
+        item = fixtures.createItem(owner, "itemName", "itemDescription", true);
+        past = createBooking(now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        current = createBooking(now.minusDays(1), now.plusDays(1), BookingStatus.APPROVED);
+        future = createBooking(now.plusDays(2), now.plusDays(3), BookingStatus.WAITING);
+        rejected = createBooking(now.plusDays(4), now.plusDays(5), BookingStatus.REJECTED);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<Booking> find(BookingRole role, Long userId, BookingStatus state) {
+        return bookingRepository.findBookings(new BookingQuery(role, userId, state, now));
+    }
+
+    @Test
+    void findBookingsByStateTest() {
+        assertEquals(List.of(rejected, future, current, past), find(BookingRole.BOOKER, bookerId, BookingStatus.ALL));
+        assertEquals(List.of(past), find(BookingRole.BOOKER, bookerId, BookingStatus.PAST));
+        assertEquals(List.of(current), find(BookingRole.OWNER, ownerId, BookingStatus.CURRENT));
+        assertEquals(List.of(rejected, future), find(BookingRole.OWNER, ownerId, BookingStatus.FUTURE));
+        assertEquals(List.of(future), find(BookingRole.OWNER, ownerId, BookingStatus.WAITING));
+        assertEquals(List.of(rejected), find(BookingRole.BOOKER, bookerId, BookingStatus.REJECTED));
+        assertEquals(List.of(), find(BookingRole.OWNER, bookerId, BookingStatus.ALL));
+    }
+
+    @Test
+    void findBookingsAfterCursorTest() {
+        Booking sameStart = createBooking(current.getStart(), current.getEnd(), BookingStatus.APPROVED);
+        entityManager.flush();
+        List<Booking> pages = new ArrayList<>();
+        PageCursor cursor = null;
+        List<Booking> page;
+        do {
+            page = bookingRepository.findBookings(
+                    new BookingQuery(BookingRole.BOOKER, bookerId, BookingStatus.ALL, now).after(cursor).limit(2));
+            pages.addAll(page);
+            if (!page.isEmpty()) {
+                Booking last = page.get(page.size() - 1);
+                cursor = new PageCursor(last.getStart(), last.getId());
+            }
+        } while (page.size() == 2);
+
+        assertEquals(List.of(rejected.getId(), future.getId(), sameStart.getId(), current.getId(), past.getId()),
+                pages.stream().map(Booking::getId).collect(toList()));
+    }
+
+    @Test
+    void findBookingsAfterPositionTest() {
+        BookingQuery query = new BookingQuery(BookingRole.OWNER, ownerId, BookingStatus.ALL, now);
+        PageCursor position = bookingRepository.findPosition(query, 1).orElseThrow();
+
+        List<Booking> page = bookingRepository.findBookings(query.after(position).limit(2));
+
+        assertEquals(new PageCursor(rejected.getStart(), rejected.getId()), position);
+        assertEquals(List.of(future, current), page);
+        assertEquals(new PageCursor(past.getStart(), past.getId()), bookingRepository.findPosition(query, 4).orElseThrow());
+        assertTrue(bookingRepository.findPosition(query, 5).isEmpty());
+    }
+
+    @Test
+    void streamBookingsTest() {
+        List<BookingExportRow> rows;
+        try (Stream<BookingExportRow> stream = bookingRepository.streamBookings(
+                new BookingQuery(BookingRole.OWNER, ownerId, BookingStatus.FUTURE, now).limit(1))) {
+            rows = stream.collect(toList());
+        }
+
+        assertEquals(List.of(rejected.getId(), future.getId()),
+                rows.stream().map(BookingExportRow::getId).collect(toList()));
+        BookingExportRow row = rows.get(1);
+        assertEquals(item.getId(), row.getItemId());
+        assertEquals("itemName", row.getItemName());
+        assertEquals(bookerId, row.getBookerId());
+        assertEquals(future.getStart(), row.getStart());
+        assertEquals(future.getEnd(), row.getEnd());
+        assertEquals(BookingStatus.WAITING, row.getStatus());
+    }
+}
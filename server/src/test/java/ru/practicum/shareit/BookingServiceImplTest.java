@@ -1,5 +1,6 @@
 package ru.practicum.shareit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,30 +9,43 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.export.BookingExport;
+import ru.practicum.shareit.booking.export.BookingExportFormat;
+import ru.practicum.shareit.booking.export.BookingExportRow;
+import ru.practicum.shareit.booking.repository.BookingQuery;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRole;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceImplTest {
@@ -47,9 +61,18 @@ class BookingServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ItemAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private ItemBookingSummaries bookingSummaries;
+
     @Spy
     private BookingMapper bookingMapper;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
 
     public User createBooker() {
         User booker = new User();
@@ -73,8 +96,9 @@ class BookingServiceImplTest {
         Booking expectedBooking = new Booking();
         expectedBooking.setId(1L);
         expectedBooking.setItemId(1L);
-        expectedBooking.setStart(LocalDateTime.of(2023, 10, 20, 10, 00));
-        expectedBooking.setEnd(LocalDateTime.of(2023, 10, 21, 10, 00));
+        expectedBooking.setBookerId(1L);
+        expectedBooking.setStart(LocalDateTime.now().plusDays(1));
+        expectedBooking.setEnd(LocalDateTime.now().plusDays(2));
         expectedBooking.setBooker(createBooker());
         expectedBooking.setItem(createItem());
         expectedBooking.setStatus(BookingStatus.WAITING);
@@ -95,18 +119,9 @@ class BookingServiceImplTest {
         return listOfBookingsDto;
     }
 
-    private Pageable createPageRequestUsing(int page, int size) {
-        return PageRequest.of(page, size);
-    }
-
-    private Page<Booking> getBookings(int page, int size) {
-        Pageable pageRequest = createPageRequestUsing(page, size);
-        List<Booking> allBookings = new ArrayList<>();
-        allBookings.add(createBooking());
-        int start = (int) pageRequest.getOffset();
-        int end = Math.min((start + pageRequest.getPageSize()), allBookings.size());
-        List<Booking> pageContent = allBookings.subList(start, end);
-        return new PageImpl<>(pageContent, pageRequest, allBookings.size());
+    private BookingQuery bookingQuery(BookingRole role, Long userId, BookingStatus state, int limit) {
+        return argThat(query -> query.getRole() == role && query.getUserId().equals(userId)
+                && query.getState() == state && query.getCursor() == null && query.getLimit() == limit);
     }
 
     @Test
@@ -158,6 +173,47 @@ class BookingServiceImplTest {
         assertEquals("Item belong to owner", exception.getMessage());
     }
 
+    @Test
+    void addBookingWithOverlappingBookingTest() {
+        Booking booking = createBooking();
+        User booker = booking.getBooker();
+        Item item = booking.getItem();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
+        Mockito.when(itemRepository.findAvailableById(item.getId())).thenReturn(true);
+        Mockito.when(bookingRepository.existsOverlappingBooking(item.getId(),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED), booking.getStart(), booking.getEnd())).thenReturn(true);
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingServiceImpl.addBooking(booker.getId(), booking)
+        );
+
+        assertEquals("Item id : 1 already booked for these dates", exception.getMessage());
+        Mockito.verify(itemRepository).findForUpdate(item.getId());
+        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    void approvedWithOverlappingApprovedBookingTest() {
+        Booking booking = createBooking();
+        User booker = booking.getBooker();
+        Item item = booking.getItem();
+        Mockito.when(bookingRepository.findBookingById(booking.getId())).thenReturn(Optional.of(booking));
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
+        Mockito.when(bookingRepository.existsOverlappingBooking(item.getId(),
+                List.of(BookingStatus.APPROVED), booking.getStart(), booking.getEnd())).thenReturn(true);
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingServiceImpl.approved(item.getOwner(), booking.getId(), Boolean.TRUE)
+        );
+
+        assertEquals("Item id : 1 already booked for these dates", exception.getMessage());
+        Mockito.verify(bookingRepository, Mockito.never()).updateStatus(any(), any());
+    }
+
     @Test
     void approvedTest() {
         Booking expectedBooking = createBooking();
@@ -170,6 +226,7 @@ class BookingServiceImplTest {
         Booking actualBooking = bookingServiceImpl.approved(item.getOwner(), expectedBooking.getId(), Boolean.TRUE);
 
         assertEquals(expectedBooking, actualBooking);
+        Mockito.verify(bookingSummaries).refresh(eq(List.of(item.getId())), any());
     }
 
     @Test
@@ -262,14 +319,14 @@ class BookingServiceImplTest {
         Item item = booking.getItem();
         List<Booking> bookingList = createBookingList(booking);
         List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
-        Page<Booking> bookingPage = getBookings(0, 1);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findBookingByBookerIdPageable(PageRequest.of(0, 1), booker.getId())).thenReturn(bookingPage);
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.BOOKER, booker.getId(), BookingStatus.ALL, 1))).thenReturn(bookingList);
 
-        List<BookingDto> actualBookingList = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, 0, 1);
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, 0, 1);
 
-        assertEquals(expectedListOfBookingsDto, actualBookingList);
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
     }
 
     @Test
@@ -284,7 +341,59 @@ class BookingServiceImplTest {
                 () -> bookingServiceImpl.findAllBookerBookings(booker.getId(), null, 0, wrongPageableSetting)
         );
 
-        assertEquals("Wrong pageable settings : size is 0 , can't be < 1", exception.getMessage());
+        assertEquals("Wrong pageable settings : size is -1 , can't be < 1", exception.getMessage());
+    }
+
+    @Test
+    void findAllBookerBookingsWithOnlyOnePageableSettingTest() {
+        User booker = createBooker();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+
+        final BadRequestException fromException = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingServiceImpl.findAllBookerBookings(booker.getId(), null, 5, null)
+        );
+        final BadRequestException sizeException = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingServiceImpl.findAllBookerBookings(booker.getId(), null, null, 5)
+        );
+
+        assertEquals("Wrong pageable settings : size is not set , from is 5", fromException.getMessage());
+        assertEquals("Wrong pageable settings : from is not set , size is 5", sizeException.getMessage());
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void findAllBookerBookingsFromPositionTest() {
+        Booking booking = createBooking();
+        User booker = booking.getBooker();
+        Item item = booking.getItem();
+        List<Booking> bookingList = createBookingList(booking);
+        List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
+        PageCursor position = new PageCursor(booking.getStart().plusDays(1), 10L);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findPosition(bookingQuery(BookingRole.BOOKER, booker.getId(), BookingStatus.ALL, Integer.MAX_VALUE), eq(3)))
+                .thenReturn(Optional.of(position));
+        Mockito.when(bookingRepository.findBookings(argThat(query -> position.equals(query.getCursor())
+                && query.getLimit() == 2))).thenReturn(bookingList);
+
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, 3, 2);
+
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
+    }
+
+    @Test
+    void findAllBookerBookingsFromBeyondLastBookingTest() {
+        User booker = createBooker();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+        Mockito.when(bookingRepository.findPosition(any(), eq(30))).thenReturn(Optional.empty());
+
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, 30, 10);
+
+        assertEquals(List.of(), actualPage.getContent());
+        Mockito.verify(bookingRepository, Mockito.never()).findBookings(any());
     }
 
     @Test
@@ -296,12 +405,14 @@ class BookingServiceImplTest {
 
         List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findBookingByBookerId(booker.getId())).thenReturn(bookingList);
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.BOOKER, booker.getId(), BookingStatus.ALL, 1000))).thenReturn(bookingList);
 
-        List<BookingDto> actualBookingList = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, null, null);
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, null, null);
 
-        assertEquals(expectedListOfBookingsDto, actualBookingList);
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
+        assertNull(actualPage.getNextCursor());
     }
 
     @Test
@@ -313,12 +424,64 @@ class BookingServiceImplTest {
         List<Booking> bookingList = createBookingList(booking);
         List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findFutureBookingById(booker.getId())).thenReturn(bookingList);
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.BOOKER, booker.getId(), BookingStatus.FUTURE, 1000))).thenReturn(bookingList);
 
-        List<BookingDto> actualBookingList = bookingServiceImpl.findAllBookerBookings(booker.getId(), "FUTURE", null, null);
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllBookerBookings(booker.getId(), "FUTURE", null, null);
 
-        assertEquals(expectedListOfBookingsDto, actualBookingList);
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
+        assertNull(actualPage.getNextCursor());
+    }
+
+    @Test
+    void findAllBookerBookingsWithoutPageReturnsNextCursorTest() {
+        Booking booking = createBooking();
+        User booker = booking.getBooker();
+        Item item = booking.getItem();
+        List<Booking> bookingList = Collections.nCopies(1000, booking);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.BOOKER, booker.getId(), BookingStatus.ALL, 1000))).thenReturn(bookingList);
+
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllBookerBookings(booker.getId(), null, null, null);
+
+        assertEquals(1000, actualPage.getContent().size());
+        assertEquals(new PageCursor(booking.getStart(), booking.getId()), PageCursor.decode(actualPage.getNextCursor()));
+    }
+
+    @Test
+    void findBookerBookingsPageAfterCursorTest() {
+        Booking booking = createBooking();
+        User booker = booking.getBooker();
+        Item item = booking.getItem();
+        List<Booking> bookingList = createBookingList(booking);
+        List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
+        PageCursor cursor = new PageCursor(booking.getStart().plusDays(1), 10L);
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(argThat(query -> cursor.equals(query.getCursor())
+                && query.getState() == BookingStatus.WAITING && query.getLimit() == 1))).thenReturn(bookingList);
+
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findBookerBookingsPage(booker.getId(), "WAITING", cursor.encode(), 1);
+
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
+        assertEquals(new PageCursor(booking.getStart(), booking.getId()), PageCursor.decode(actualPage.getNextCursor()));
+    }
+
+    @Test
+    void findBookerBookingsPageWithWrongCursorTest() {
+        User booker = createBooker();
+        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingServiceImpl.findBookerBookingsPage(booker.getId(), null, "wrong", 1)
+        );
+
+        assertEquals("Wrong page cursor : wrong", exception.getMessage());
     }
 
     @Test
@@ -329,14 +492,14 @@ class BookingServiceImplTest {
         Long ownerId = item.getOwner();
         List<Booking> bookingList = createBookingList(booking);
         List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
-        Page<Booking> bookingPage = getBookings(0, 1);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findBookingByOwnerIdPageable(PageRequest.of(0, 1), ownerId)).thenReturn(bookingPage);
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.OWNER, ownerId, BookingStatus.ALL, 1))).thenReturn(bookingList);
 
-        List<BookingDto> actualBookingList = bookingServiceImpl.findAllOwnerBookings(ownerId, null, 0, 1);
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllOwnerBookings(ownerId, null, 0, 1);
 
-        assertEquals(expectedListOfBookingsDto, actualBookingList);
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
     }
 
     @Test
@@ -353,7 +516,7 @@ class BookingServiceImplTest {
                 () -> bookingServiceImpl.findAllOwnerBookings(ownerId, null, 0, wrongPageableSetting)
         );
 
-        assertEquals("Wrong pageable settings : size is 0 , can't be < 1", exception.getMessage());
+        assertEquals("Wrong pageable settings : size is -1 , can't be < 1", exception.getMessage());
     }
 
     @Test
@@ -365,12 +528,14 @@ class BookingServiceImplTest {
         List<Booking> bookingList = createBookingList(booking);
         List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findBookingByOwnerId(ownerId)).thenReturn(bookingList);
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.OWNER, ownerId, BookingStatus.ALL, 1000))).thenReturn(bookingList);
 
-        List<BookingDto> actualBookingList = bookingServiceImpl.findAllOwnerBookings(ownerId, null, null, null);
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllOwnerBookings(ownerId, null, null, null);
 
-        assertEquals(expectedListOfBookingsDto, actualBookingList);
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
+        assertNull(actualPage.getNextCursor());
     }
 
     @Test
@@ -383,12 +548,14 @@ class BookingServiceImplTest {
         List<Booking> bookingList = createBookingList(booking);
         List<BookingDto> expectedListOfBookingsDto = convertBookingListToBookingsDtoList(bookingList);
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(booker));
-        Mockito.when(itemRepository.findById(any())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findFutureBookingByOwnerId(ownerId)).thenReturn(bookingList);
+        Mockito.when(userRepository.findAllById(Set.of(booker.getId()))).thenReturn(List.of(booker));
+        Mockito.when(itemRepository.findAllById(Set.of(item.getId()))).thenReturn(List.of(item));
+        Mockito.when(bookingRepository.findBookings(bookingQuery(BookingRole.OWNER, ownerId, BookingStatus.FUTURE, 1000))).thenReturn(bookingList);
 
-        List<BookingDto> actualBookingList = bookingServiceImpl.findAllOwnerBookings(ownerId, "FUTURE", null, null);
+        CursorPage<BookingDto> actualPage = bookingServiceImpl.findAllOwnerBookings(ownerId, "FUTURE", null, null);
 
-        assertEquals(expectedListOfBookingsDto, actualBookingList);
+        assertEquals(expectedListOfBookingsDto, actualPage.getContent());
+        assertNull(actualPage.getNextCursor());
     }
 
     @Test
@@ -425,4 +592,68 @@ class BookingServiceImplTest {
 
         assertEquals("Not correct booking dates", exception.getMessage());
     }
+
+    private String writeExport(BookingExportFormat format) throws Exception {
+        BookingExportRow row = new BookingExportRow(1L, 2L, "item, \"big\"", 3L,
+                LocalDateTime.of(2023, 10, 20, 10, 0), LocalDateTime.of(2023, 10, 21, 10, 0), BookingStatus.APPROVED);
+        Mockito.when(bookingRepository.streamBookings(any())).thenReturn(Stream.of(row, row));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bookingServiceImpl.writeExport(
+                new BookingExport(new BookingQuery(BookingRole.BOOKER, 3L, BookingStatus.ALL, LocalDateTime.now()), format),
+                out);
+
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void writeNdjsonExportTest() throws Exception {
+        String line = "{\"id\":1,\"itemId\":2,\"itemName\":\"item, \\\"big\\\"\",\"bookerId\":3," +
+                "\"start\":\"2023-10-20T10:00:00\",\"end\":\"2023-10-21T10:00:00\",\"status\":\"APPROVED\"}\n";
+
+        assertEquals(line + line, writeExport(BookingExportFormat.NDJSON));
+    }
+
+    @Test
+    void writeCsvExportTest() throws Exception {
+        String line = "1,2,\"item, \"\"big\"\"\",3,2023-10-20T10:00:00,2023-10-21T10:00:00,APPROVED\r\n";
+
+        assertEquals("id,itemId,itemName,bookerId,start,end,status\r\n" + line + line,
+                writeExport(BookingExportFormat.CSV));
+    }
+
+    @Test
+    void prepareExportWithUnknownStateTest() {
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+
+        BookingExport export = bookingServiceImpl.prepareOwnerExport(1L, "UNKNOWN", "csv");
+
+        assertNull(export.getQuery());
+        assertEquals(BookingExportFormat.CSV, export.getFormat());
+    }
+
+    @Test
+    void prepareExportWithWrongFormatTest() {
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingServiceImpl.prepareBookerExport(1L, null, "xml")
+        );
+
+        assertEquals("Unknown export format : xml", exception.getMessage());
+    }
+
+    @Test
+    void prepareExportOfUnknownUserTest() {
+        Mockito.when(userRepository.existsById(1L)).thenReturn(false);
+
+        final NotFoundException exception = Assertions.assertThrows(
+                NotFoundException.class,
+                () -> bookingServiceImpl.prepareOwnerExport(1L, "ALL", "csv")
+        );
+
+        assertEquals("Не найден пользователь id: 1", exception.getMessage());
+        Mockito.verify(userRepository, Mockito.never()).findById(1L);
+    }
 }
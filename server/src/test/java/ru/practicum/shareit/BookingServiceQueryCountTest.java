@@ -0,0 +1,107 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@Slf4j
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({EntityCacheConfig.class, BookingServiceImpl.class, ItemAvailabilityIndex.class,
+        ItemBookingSummaries.class, BookingMapper.class, TestFixtures.class})
+class BookingServiceQueryCountTest {
+    private static final int ITEMS_COUNT = 20;
+    private static final int BOOKINGS_COUNT = 200;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = fixtures.createUser("owner");
+        booker = fixtures.createUser("booker");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS_COUNT; i++) {
+            items.add(fixtures.createItem(owner, "itemName" + i, "itemDescription" + i, true));
+        }
+        LocalDateTime start = LocalDateTime.now().minusDays(BOOKINGS_COUNT);
+        for (int i = 0; i < BOOKINGS_COUNT; i++) {
+            fixtures.createBooking(items.get(i % ITEMS_COUNT), booker, start.plusDays(i),
+                    start.plusDays(i).plusHours(1), BookingStatus.APPROVED);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long countStatementsOfBookingsPage(int pageSize) {
+        statistics.clear();
+        long startTime = System.nanoTime();
+
+        List<BookingDto> bookerPage = bookingService.findAllBookerBookings(booker.getId(), "ALL", 0, pageSize).getContent();
+        List<BookingDto> ownerPage = bookingService.findAllOwnerBookings(owner.getId(), "ALL", 0, pageSize).getContent();
+
+        long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+        entityManager.clear();
+        assertEquals(pageSize, bookerPage.size());
+        assertEquals(pageSize, ownerPage.size());
+        for (BookingDto bookingDto : bookerPage) {
+            assertNotNull(bookingDto.getBooker());
+            assertNotNull(bookingDto.getItem());
+        }
+        long statements = statistics.getPrepareStatementCount();
+        log.info("Booker and owner pages of {} bookings: {} statements, {} us", pageSize, statements, elapsedMicros);
+        return statements;
+    }
+
+    @Test
+    void bookingListStatementCountDoesNotGrowWithPageSizeTest() {
+        // the first call also puts the booker and the owner into the entity cache
+        countStatementsOfBookingsPage(1);
+        long smallPageStatements = countStatementsOfBookingsPage(1);
+
+        assertEquals(smallPageStatements, countStatementsOfBookingsPage(10));
+        assertEquals(smallPageStatements, countStatementsOfBookingsPage(BOOKINGS_COUNT));
+    }
+}
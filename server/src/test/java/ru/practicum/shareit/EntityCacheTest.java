@@ -0,0 +1,128 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.cache.CacheInvalidationChannel;
+import ru.practicum.shareit.cache.EntityCache;
+import ru.practicum.shareit.cache.LocalCacheInvalidationChannel;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EntityCacheTest {
+    private final Map<Long, String> names = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private CacheInvalidationChannel channel;
+    private EntityCache<User> userCache;
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        return copy;
+    }
+
+    private Optional<User> load(Long id) {
+        loads.incrementAndGet();
+        return Optional.ofNullable(names.get(id)).map(name -> {
+            User user = new User();
+            user.setId(id);
+            user.setName(name);
+            return user;
+        });
+    }
+
+    private String findName(EntityCache<User> cache, Long id) {
+        return cache.find(id, this::load).map(User::getName).orElse(null);
+    }
+
+    @BeforeEach
+    void setUp() {
+        names.put(1L, "userName");
+        channel = new LocalCacheInvalidationChannel();
+        userCache = new EntityCache<>("users", 100, Duration.ofMinutes(10), EntityCacheTest::copy, channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void findLoadsOnceAndReturnsCopiesTest() {
+        userCache.find(1L, this::load).get().setName("changedName");
+
+        assertEquals("userName", findName(userCache, 1L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void missingEntityIsNotCachedTest() {
+        assertNull(findName(userCache, 2L));
+        names.put(2L, "newUser");
+
+        assertEquals("newUser", findName(userCache, 2L));
+    }
+
+    @Test
+    void invalidateReachesOtherInstancesTest() {
+        EntityCache<User> otherInstanceCache = new EntityCache<>("users", 100, Duration.ofMinutes(10),
+                EntityCacheTest::copy, channel);
+        findName(userCache, 1L);
+        findName(otherInstanceCache, 1L);
+        names.put(1L, "newName");
+
+        userCache.invalidate(1L);
+
+        assertEquals("newName", findName(otherInstanceCache, 1L));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void entryIsNotCachedUntilTransactionCompletesTest() {
+        findName(userCache, 1L);
+        TransactionSynchronizationManager.initSynchronization();
+        names.put(1L, "uncommittedName");
+
+        userCache.invalidate(1L);
+        findName(userCache, 1L);
+        findName(userCache, 1L);
+        assertEquals(3, loads.get());
+
+        names.put(1L, "userName");
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals("userName", findName(userCache, 1L));
+        assertEquals("userName", findName(userCache, 1L));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void hitsAndMissesAreMeasuredPerRegionTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userCache.bindTo(registry);
+
+        findName(userCache, 1L);
+        findName(userCache, 1L);
+        findName(userCache, 1L);
+
+        assertEquals(2, registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import(EntityCacheConfig.class)
+class EntityInsertBatchingTest {
+    private static final int COUNT = 200;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void newEntitiesAreInsertedInBatchesTest() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> entities = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            user.setEmail("user" + i + "@email");
+            entityManager.persist(user);
+
+            ItemRequest request = new ItemRequest();
+            request.setDescription("request" + i);
+            request.setRequesterId(user.getId());
+            request.setCreated(now);
+            entityManager.persist(request);
+
+            Item item = new Item();
+            item.setName("item" + i);
+            item.setDescription("description");
+            item.setAvailable(true);
+            item.setOwner(user.getId());
+            item.setRequestId(request.getId());
+            entityManager.persist(item);
+
+            Booking booking = new Booking();
+            booking.setStart(now.plusDays(1));
+            booking.setEnd(now.plusDays(2));
+            booking.setStatus(BookingStatus.WAITING);
+            booking.setBookerId(user.getId());
+            booking.setItemId(item.getId());
+            booking.setItemName(item.getName());
+            booking.setItemOwner(user.getId());
+            entityManager.persist(booking);
+
+            Comment comment = new Comment();
+            comment.setText("comment" + i);
+            comment.setAuthorName(user.getName());
+            comment.setCreated(now);
+            comment.setItemId(item.getId());
+            entityManager.persist(comment);
+
+            entities.addAll(List.of(user, request, item, booking, comment));
+        }
+
+        assertEquals(0, statistics.getEntityInsertCount());
+        entityManager.flush();
+
+        assertEquals(5 * COUNT, statistics.getEntityInsertCount());
+        // per entity type: one sequence call per 50 ids plus one on first use, and one batched insert statement
+        assertEquals(5 * (COUNT / 50 + 1 + 1), statistics.getPrepareStatementCount());
+        Set<Object> ids = new HashSet<>();
+        for (Object entity : entities) {
+            Object id = entityManager.getId(entity);
+            assertNotNull(id);
+            ids.add(entity.getClass().getSimpleName() + id);
+        }
+        assertEquals(5 * COUNT, ids.size());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(EntityCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FlywayMigrationTest {
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void migrationsAreAppliedInOrderTest() {
+        List<String> versions = Arrays.stream(flyway.info().applied())
+                .map(MigrationInfo::getVersion)
+                .map(Object::toString)
+                .collect(toList());
+
+        assertEquals(List.of("1", "2", "2.1", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13"), versions);
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void repeatedMigrateKeepsDataTest() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail("user@email");
+        user = userRepository.save(user);
+
+        try {
+            assertEquals(0, flyway.migrate().migrationsExecuted);
+            assertTrue(userRepository.existsById(user.getId()));
+        } finally {
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    void cleanIsDisabledTest() {
+        assertThrows(FlywayException.class, flyway::clean);
+    }
+}
@@ -0,0 +1,182 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.FreeWindow;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.cache.CacheInvalidationChannel;
+import ru.practicum.shareit.cache.LocalCacheInvalidationChannel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAvailabilityIndexTest {
+    private static final Long ITEM_ID = 1L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private final CacheInvalidationChannel channel = new LocalCacheInvalidationChannel();
+
+    private ItemAvailabilityIndex availabilityIndex;
+
+    private final List<Booking> bookings = new ArrayList<>();
+
+    private Booking booking(long id, int startHour, int endHour, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItemId(ITEM_ID);
+        booking.setStart(DAY.plusHours(startHour));
+        booking.setEnd(DAY.plusHours(endHour));
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private void addBooking(long id, int startHour, int endHour, BookingStatus status) {
+        bookings.add(booking(id, startHour, endHour, status));
+    }
+
+    private ItemAvailabilityIndex createIndex(int maxItems) {
+        return new ItemAvailabilityIndex(bookingRepository, channel, maxItems, Duration.ofMinutes(10));
+    }
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = createIndex(2);
+        addBooking(1L, 0, 10, BookingStatus.APPROVED);
+        addBooking(2L, 2, 4, BookingStatus.WAITING);
+        addBooking(3L, 12, 14, BookingStatus.REJECTED);
+        addBooking(4L, 16, 18, BookingStatus.APPROVED);
+        Mockito.lenient().when(bookingRepository.findBookingsOfItem(ITEM_ID)).thenAnswer(invocation -> List.copyOf(bookings));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void overlapsTest() {
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(9), DAY.plusHours(11)));
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(17), DAY.plusHours(20)));
+        assertFalse(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(10), DAY.plusHours(16)));
+        assertFalse(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(18), DAY.plusHours(20)));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findBookingsOfItem(ITEM_ID);
+    }
+
+    @Test
+    void findFreeWindowsTest() {
+        List<FreeWindow> expectedWindows = List.of(
+                new FreeWindow(DAY.plusHours(10), DAY.plusHours(16)),
+                new FreeWindow(DAY.plusHours(18), DAY.plusHours(20)));
+
+        assertEquals(expectedWindows, availabilityIndex.findFreeWindows(ITEM_ID, DAY.plusHours(3), DAY.plusHours(20)));
+        assertEquals(List.of(), availabilityIndex.findFreeWindows(ITEM_ID, DAY.plusHours(1), DAY.plusHours(9)));
+    }
+
+    @Test
+    void recordedBookingIsAddedWithoutReloadTest() {
+        assertFalse(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(11), DAY.plusHours(12)));
+
+        availabilityIndex.recordBooking(booking(5L, 11, 12, BookingStatus.WAITING));
+        availabilityIndex.recordBooking(booking(6L, 21, 23, BookingStatus.WAITING));
+
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(11), DAY.plusHours(12)));
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(20), DAY.plusHours(22)));
+        assertEquals(List.of(new FreeWindow(DAY.plusHours(10), DAY.plusHours(11)),
+                        new FreeWindow(DAY.plusHours(12), DAY.plusHours(16)),
+                        new FreeWindow(DAY.plusHours(18), DAY.plusHours(21))),
+                availabilityIndex.findFreeWindows(ITEM_ID, DAY.plusHours(3), DAY.plusHours(23)));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findBookingsOfItem(ITEM_ID);
+    }
+
+    @Test
+    void recordedStatusChangeReplacesBookingTest() {
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(16), DAY.plusHours(17)));
+
+        availabilityIndex.recordBooking(booking(4L, 16, 18, BookingStatus.REJECTED));
+        availabilityIndex.recordBooking(booking(3L, 12, 14, BookingStatus.APPROVED));
+
+        assertFalse(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(16), DAY.plusHours(17)));
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(13), DAY.plusHours(15)));
+        assertEquals(List.of(new FreeWindow(DAY.plusHours(10), DAY.plusHours(12)),
+                        new FreeWindow(DAY.plusHours(14), DAY.plusHours(20))),
+                availabilityIndex.findFreeWindows(ITEM_ID, DAY.plusHours(3), DAY.plusHours(20)));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findBookingsOfItem(ITEM_ID);
+    }
+
+    @Test
+    void bookingIsRecordedOnlyAfterCommitTest() {
+        availabilityIndex.overlaps(ITEM_ID, DAY, DAY.plusHours(1));
+        TransactionSynchronizationManager.initSynchronization();
+
+        availabilityIndex.recordBooking(booking(5L, 21, 23, BookingStatus.WAITING));
+        availabilityIndex.recordBooking(booking(6L, 24, 26, BookingStatus.WAITING));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertFalse(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(20), DAY.plusHours(22)));
+        synchronizations.get(0).afterCommit();
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(20), DAY.plusHours(22)));
+        assertFalse(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(24), DAY.plusHours(25)));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findBookingsOfItem(ITEM_ID);
+    }
+
+    @Test
+    void otherInstancesReloadChangedItemTest() {
+        ItemAvailabilityIndex otherInstanceIndex = createIndex(2);
+        availabilityIndex.overlaps(ITEM_ID, DAY, DAY.plusHours(1));
+        assertFalse(otherInstanceIndex.overlaps(ITEM_ID, DAY.plusHours(20), DAY.plusHours(22)));
+        addBooking(5L, 21, 23, BookingStatus.WAITING);
+
+        availabilityIndex.recordBooking(bookings.get(4));
+
+        assertTrue(otherInstanceIndex.overlaps(ITEM_ID, DAY.plusHours(20), DAY.plusHours(22)));
+        assertTrue(availabilityIndex.overlaps(ITEM_ID, DAY.plusHours(20), DAY.plusHours(22)));
+        Mockito.verify(bookingRepository, Mockito.times(3)).findBookingsOfItem(ITEM_ID);
+    }
+
+    @Test
+    void indexKeepsAtMostMaxItemsTest() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        availabilityIndex.bindTo(registry);
+
+        for (long itemId = 1; itemId <= 5; itemId++) {
+            availabilityIndex.overlaps(itemId, DAY, DAY.plusHours(1));
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (cachedItems(registry) > 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(cachedItems(registry) <= 2, "cached " + cachedItems(registry));
+    }
+
+    private double cachedItems(SimpleMeterRegistry registry) {
+        return registry.get("cache.size").tag("cache", "bookingIntervals").gauge().value();
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaryRepository;
+import ru.practicum.shareit.booking.summary.ItemBookings;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Import({EntityCacheConfig.class, ItemBookingSummaries.class, TestFixtures.class})
+class ItemBookingSummariesTest {
+    @Autowired
+    private ItemBookingSummaries bookingSummaries;
+
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private Booking createBooking(Item item, User booker, LocalDateTime start, BookingStatus status) {
+        return fixtures.createBooking(item, booker, start, start.plusHours(1), status);
+    }
+
+    @Test
+    void refreshKeepsLastAndNextNotRejectedBookingsTest() {
+        User owner = fixtures.createUser("owner");
+        User booker = fixtures.createUser("booker");
+        Item item = fixtures.createItem(owner, "item");
+        Booking lastBooking = createBooking(item, booker, now.minusDays(3), BookingStatus.APPROVED);
+        createBooking(item, booker, now.minusDays(1), BookingStatus.REJECTED);
+        createBooking(item, booker, now.plusDays(1), BookingStatus.REJECTED);
+        Booking nextBooking = createBooking(item, booker, now.plusDays(2), BookingStatus.WAITING);
+        entityManager.flush();
+
+        assertEquals(1, bookingSummaries.refresh(List.of(item.getId()), now));
+        entityManager.flush();
+        entityManager.clear();
+
+        ItemBookings itemBookings = bookingSummaries.findItemBookings(List.of(item.getId())).get(item.getId());
+        assertEquals(lastBooking.getId(), itemBookings.getLastBooking().getId());
+        assertEquals(nextBooking.getId(), itemBookings.getNextBooking().getId());
+        assertEquals(nextBooking.getStart(), itemBookings.getRefreshAt());
+        assertEquals(0, bookingSummaries.refresh(List.of(item.getId()), now));
+    }
+
+    @Test
+    void startedNextBookingIsReadFromBookingsUntilRolledForwardTest() {
+        User owner = fixtures.createUser("owner");
+        User booker = fixtures.createUser("booker");
+        Item item = fixtures.createItem(owner, "item");
+        Booking startedBooking = createBooking(item, booker, now.minusDays(3), BookingStatus.APPROVED);
+        Booking nextBooking = createBooking(item, booker, now.plusDays(1), BookingStatus.APPROVED);
+        entityManager.flush();
+        bookingSummaries.refresh(List.of(item.getId()), now.minusDays(5));
+        entityManager.flush();
+        entityManager.clear();
+
+        ItemBookings itemBookings = bookingSummaries.findItemBookings(List.of(item.getId())).get(item.getId());
+        assertEquals(startedBooking.getId(), itemBookings.getLastBooking().getId());
+        assertEquals(nextBooking.getId(), itemBookings.getNextBooking().getId());
+        assertEquals(startedBooking.getId(), summaryRepository.findById(item.getId()).get().getNextBookingId());
+
+        assertEquals(1, bookingSummaries.rollForward());
+        entityManager.flush();
+        entityManager.clear();
+
+        ItemBookingSummary summary = summaryRepository.findById(item.getId()).get();
+        assertEquals(startedBooking.getId(), summary.getLastBookingId());
+        assertEquals(nextBooking.getId(), summary.getNextBookingId());
+        assertEquals(nextBooking.getStart(), summary.getRefreshAt());
+        assertEquals(0, bookingSummaries.rollForward());
+    }
+
+    @Test
+    void verifyRepairsSummariesThatDifferFromBookingsTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bookingSummaries.bindTo(registry);
+        double mismatchesBefore = registry.get("booking.summary.mismatches").functionCounter().count();
+        User owner = fixtures.createUser("owner");
+        User booker = fixtures.createUser("booker");
+        Item itemWithoutSummary = fixtures.createItem(owner, "itemWithoutSummary");
+        Booking missedBooking = createBooking(itemWithoutSummary, booker, now.plusDays(1), BookingStatus.WAITING);
+        Item itemWithWrongSummary = fixtures.createItem(owner, "itemWithWrongSummary");
+        Booking lastBooking = createBooking(itemWithWrongSummary, booker, now.minusDays(1), BookingStatus.APPROVED);
+        ItemBookingSummary wrongSummary = new ItemBookingSummary();
+        wrongSummary.setItemId(itemWithWrongSummary.getId());
+        entityManager.persist(wrongSummary);
+        Item itemWithoutBookings = fixtures.createItem(owner, "itemWithoutBookings");
+        entityManager.flush();
+
+        assertEquals(2, bookingSummaries.verify());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(missedBooking.getId(), summaryRepository.findById(itemWithoutSummary.getId()).get().getNextBookingId());
+        assertEquals(lastBooking.getId(), summaryRepository.findById(itemWithWrongSummary.getId()).get().getLastBookingId());
+        assertNull(summaryRepository.findById(itemWithoutBookings.getId()).orElse(null));
+        assertEquals(0, bookingSummaries.verify());
+        assertEquals(mismatchesBefore + 2, registry.get("booking.summary.mismatches").functionCounter().count());
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.comment.ItemCommentCounts;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "shareit.comment-count.batch-size=2")
+@Import({EntityCacheConfig.class, ItemCommentCounts.class, TestFixtures.class})
+class ItemCommentCountsTest {
+    @Autowired
+    private ItemCommentCounts commentCounts;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    /**
+     * Comments stored without counting them, like comments older than the count or added by an old instance.
+     */
+    private void createUncountedComments(Item item, int count) {
+        for (int i = 0; i < count; i++) {
+            fixtures.createComment(item, "author", "comment" + i, LocalDateTime.now());
+        }
+    }
+
+    @Test
+    void verifyRepairsCountsThatDifferFromCommentsTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        commentCounts.bindTo(registry);
+        double mismatchesBefore = registry.get("item.comment.count.mismatches").functionCounter().count();
+        User owner = fixtures.createUser("owner");
+        Item commentedItem = fixtures.createItem(owner, "commentedItem");
+        Item uncommentedItem = fixtures.createItem(owner, "uncommentedItem");
+        Item lastItem = fixtures.createItem(owner, "lastItem");
+        createUncountedComments(commentedItem, 3);
+        createUncountedComments(lastItem, 1);
+        entityManager.flush();
+        assertEquals(0, itemRepository.findById(commentedItem.getId()).orElseThrow().getCommentCount());
+
+        assertEquals(2, commentCounts.verify());
+        entityManager.clear();
+
+        assertEquals(3, itemRepository.findById(commentedItem.getId()).orElseThrow().getCommentCount());
+        assertEquals(0, itemRepository.findById(uncommentedItem.getId()).orElseThrow().getCommentCount());
+        assertEquals(1, itemRepository.findById(lastItem.getId()).orElseThrow().getCommentCount());
+        assertEquals(0, commentCounts.verify());
+        assertEquals(mismatchesBefore + 2, registry.get("item.comment.count.mismatches").functionCounter().count());
+    }
+
+    @Test
+    void verifyKeepsCountedCommentsTest() {
+        User owner = fixtures.createUser("owner");
+        Item item = fixtures.createItem(owner, "item");
+        createUncountedComments(item, 2);
+        entityManager.flush();
+        itemRepository.incrementCommentCount(item.getId());
+        itemRepository.incrementCommentCount(item.getId());
+        entityManager.clear();
+
+        assertEquals(0, commentCounts.verify());
+    }
+}
@@ -7,19 +7,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.availability.FreeWindow;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResult;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
@@ -90,11 +98,69 @@ class ItemControllerTest {
         assertEquals(mapper.writeValueAsString(expectedUpdatedItem), result);
     }
 
+    @Test
+    @SneakyThrows
+    void updateItems() {
+        List<Item> expectedUpdatedItems = List.of(createItem("newName", "newDescription", false));
+        when(itemService.updateItems(1L, expectedUpdatedItems)).thenReturn(expectedUpdatedItems);
+
+        String result = mvc.perform(patch("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType("application/json")
+                        .content(mapper.writeValueAsString(expectedUpdatedItems)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedUpdatedItems), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void importItems() {
+        List<Item> items = List.of(createItem("itemName", "itemDescription", true));
+        ItemImportResult expectedResult = new ItemImportResult();
+        expectedResult.setImported(1);
+        when(itemService.importItems(1L, items)).thenReturn(expectedResult);
+
+        String result = mvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType("application/json")
+                        .content(mapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedResult), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void importItemsFromNdjson() {
+        ItemImportResult expectedResult = new ItemImportResult();
+        expectedResult.addError(1, "Not found item name");
+        when(itemService.importItems(eq(1L), any(InputStream.class))).thenReturn(expectedResult);
+
+        String result = mvc.perform(post("/items/batch")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType("application/x-ndjson")
+                        .content("{\"description\":\"itemDescription\",\"available\":true}\n"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedResult), result);
+    }
+
     @Test
     @SneakyThrows
     void getItem() {
         Item item = createItem("itemName", "itemDescription", true);
         ItemDto expectedItemDto = itemMapper.toItemDto(item);
+        when(itemService.getItemEtag(item.getOwner(), item.getId())).thenReturn("0-1-2");
         when(itemService.getItem(item.getOwner(), item.getId())).thenReturn(expectedItemDto);
 
         String result = mvc.perform(get("/items/{id}", expectedItemDto.getId())
@@ -102,6 +168,7 @@ class ItemControllerTest {
                         .contentType("application/json")
                         .content(mapper.writeValueAsString(expectedItemDto)))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-1-2\""))
                 .andReturn()
                 .getResponse()
                 .getContentAsString();
@@ -137,7 +204,7 @@ class ItemControllerTest {
         ItemDto itemDto = itemMapper.toItemDto(item);
         List<ItemDto> expectedListOfSearchingItems = new ArrayList<>();
         expectedListOfSearchingItems.add(itemDto);
-        when(itemService.searchItem("itemName")).thenReturn(expectedListOfSearchingItems);
+        when(itemService.searchItem("itemName", null, null)).thenReturn(expectedListOfSearchingItems);
 
         String result = mvc.perform(get("/items/search?text=itemName")
                         .header("X-Sharer-User-Id", item.getOwner())
@@ -169,4 +236,41 @@ class ItemControllerTest {
 
         assertEquals(mapper.writeValueAsString(expectedComment), result);
     }
+
+    @Test
+    @SneakyThrows
+    void getComments() {
+        List<Comment> expectedComments = List.of(createComment());
+        when(itemService.getItemComments(1L, null, 1)).thenReturn(new CursorPage<>(expectedComments, "nextCursor"));
+
+        String result = mvc.perform(get("/items/{id}/comments", 1L)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "nextCursor"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedComments), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAvailability() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(1);
+        List<FreeWindow> expectedWindows = List.of(new FreeWindow(from, from.plusHours(2)),
+                new FreeWindow(from.plusHours(5), to));
+        when(itemService.getItemAvailability(1L, from, to)).thenReturn(expectedWindows);
+
+        String result = mvc.perform(get("/items/{id}/availability", 1L)
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-02T10:00:00"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedWindows), result);
+    }
 }
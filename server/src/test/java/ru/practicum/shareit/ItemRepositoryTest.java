@@ -0,0 +1,182 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchWord;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchWordsBackfill;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import({EntityCacheConfig.class, ItemSearchWordsBackfill.class})
+class ItemRepositoryTest {
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemSearchWordsBackfill searchWordsBackfill;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@email");
+        ownerId = entityManager.persist(owner).getId();
+    }
+
+    private Item createItem(String name, String description, Boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(ownerId);
+        entityManager.persist(item);
+        ItemSearchWord.of(item).forEach(entityManager::persist);
+        return item;
+    }
+
+    private Item newItem(String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription("Cordless");
+        item.setAvailable(true);
+        item.setOwner(ownerId);
+        return item;
+    }
+
+    private List<String> search(String text, int offset, int limit) {
+        return itemRepository.searchAvailableItems(text, offset, limit).stream()
+                .map(Item::getName)
+                .collect(toList());
+    }
+
+    @Test
+    void searchSkipsUnavailableItemsMatchedByNameTest() {
+        createItem("Drill", "Cordless", false);
+        createItem("Hammer", "Drill hammer", false);
+        createItem("Screwdriver", "Works as a drill", true);
+
+        assertEquals(List.of("Screwdriver"), search("drill", 0, 10));
+    }
+
+    @Test
+    void searchRanksNameMatchesFirstTest() {
+        createItem("Hammer drill", "Heavy", true);
+        createItem("Battery", "Fits any drill", true);
+        createItem("Drill", "Cordless", true);
+        createItem("Drill bits", "Set of ten", true);
+
+        assertEquals(List.of("Drill", "Drill bits", "Hammer drill", "Battery"), search("DRILL", 0, 10));
+    }
+
+    @Test
+    void searchPageTest() {
+        for (int i = 0; i < 5; i++) {
+            createItem("Saw " + i, "Sharp", true);
+        }
+
+        assertEquals(List.of("Saw 2", "Saw 3"), search("saw", 2, 2));
+    }
+
+    @Test
+    void searchTreatsWildcardsLiterallyTest() {
+        createItem("Glue", "Holds 100% of materials", true);
+        createItem("Tape", "Holds 100 kg", true);
+
+        assertEquals(List.of("Glue"), search("100%", 0, 10));
+        assertEquals(List.of(), search("_", 0, 10));
+    }
+
+    @Test
+    void searchMatchesWordsFromTheirStartTest() {
+        createItem("Sledgehammer", "Heavy", true);
+        createItem("Hammer", "Claw", true);
+        createItem("Hammer drill", "Heavy-duty", true);
+
+        assertEquals(List.of("Hammer", "Hammer drill"), search("hamm", 0, 10));
+        assertEquals(List.of("Hammer drill"), search("hammer dr", 0, 10));
+        assertEquals(List.of("Sledgehammer", "Hammer drill"), search("heavy", 0, 10));
+        assertEquals(List.of(), search("ammer", 0, 10));
+    }
+
+    @Test
+    void changedItemsAreFoundByNewWordsTest() {
+        Item drill = createItem("Drill", "Cordless", true);
+        Item saw = createItem("Saw", "Sharp", true);
+
+        itemRepository.patch(drill.getId(), storedItem -> storedItem.setName("Screwdriver"));
+        itemRepository.patchAll(List.of(saw.getId()), storedItem -> storedItem.setDescription("Cordless"));
+        itemRepository.insertAll(List.of(newItem("Cordless drill")));
+
+        assertEquals(List.of("Cordless drill"), search("drill", 0, 10));
+        assertEquals(List.of("Screwdriver"), search("screw", 0, 10));
+        assertEquals(List.of(), search("sharp", 0, 10));
+        assertEquals(List.of("Cordless drill", "Screwdriver", "Saw"), search("cordless", 0, 10));
+    }
+
+    @Test
+    void backfillIndexesItemsWithoutWordsTest() {
+        createItem("Drill", "Cordless", true);
+        createItem("Saw", "Sharp", true);
+        entityManager.flush();
+        jdbcTemplate.update("DELETE FROM item_search_words");
+        entityManager.clear();
+
+        assertEquals(List.of(), search("drill", 0, 10));
+        assertEquals(2, searchWordsBackfill.backfill());
+        assertEquals(0, searchWordsBackfill.backfill());
+        assertEquals(List.of("Drill"), search("drill", 0, 10));
+        assertEquals(List.of("Saw"), search("sharp", 0, 10));
+    }
+
+    @Test
+    void patchEvictsCachedItemTest() {
+        Item item = createItem("Drill", "Cordless", true);
+        itemRepository.findById(item.getId()).get().setName("Changed");
+        assertEquals("Drill", itemRepository.findById(item.getId()).get().getName());
+
+        itemRepository.patch(item.getId(), storedItem -> {
+            storedItem.setName("Hammer drill");
+            storedItem.setAvailable(false);
+        });
+
+        Item updatedItem = itemRepository.findById(item.getId()).get();
+        assertEquals("Hammer drill", updatedItem.getName());
+        assertEquals("Cordless", updatedItem.getDescription());
+        assertEquals(false, updatedItem.getAvailable());
+        assertEquals(1L, updatedItem.getVersion());
+    }
+
+    @Test
+    void patchOfConcurrentlyChangedItemFailsTest() {
+        Item item = createItem("Drill", "Cordless", true);
+        entityManager.flush();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> itemRepository.patch(item.getId(), storedItem -> {
+            jdbcTemplate.update("UPDATE items SET version = version + 1 WHERE id = ?", item.getId());
+            storedItem.setName("Hammer drill");
+        }));
+    }
+}
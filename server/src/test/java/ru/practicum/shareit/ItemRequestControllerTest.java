@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -21,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -95,6 +97,7 @@ class ItemRequestControllerTest {
         ItemRequestDto expectedItemRequestDto = requestDtoMapper.toItemRequestDto(createItemRequest());
         Long requesterId = 1L;
         Long requestId = 1L;
+        when(requestService.getRequestEtag(requesterId, requestId)).thenReturn("0-0");
         when(requestService.findRequestById(requesterId, requestId)).thenReturn(expectedItemRequestDto);
 
         String result = mvc.perform(get("/requests/{id}", requestId)
@@ -116,18 +119,57 @@ class ItemRequestControllerTest {
         Long requesterId = 1L;
         List<ItemRequestDto> expectedItemRequestDtoList = new ArrayList<>();
         expectedItemRequestDtoList.add(itemRequestDto);
-        when(requestService.findRequestsPageable(requesterId, 0, 2)).thenReturn(expectedItemRequestDtoList);
+        when(requestService.findRequestsPageable(requesterId, 0, 2))
+                .thenReturn(new CursorPage<>(expectedItemRequestDtoList, null));
 
         String result = mvc.perform(get("/requests/all?from=0&size=2")
                         .header("X-Sharer-User-Id", requesterId)
                         .contentType("application/json")
                         .content(mapper.writeValueAsString(expectedItemRequestDtoList)))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
                 .andReturn()
                 .getResponse()
                 .getContentAsString();
 
         assertEquals(mapper.writeValueAsString(expectedItemRequestDtoList), result);
     }
-}
 
+    @Test
+    @SneakyThrows
+    void getAllItemRequestWithoutPageableHasNextCursor() {
+        ItemRequestDto itemRequestDto = requestDtoMapper.toItemRequestDto(createItemRequest());
+        Long requesterId = 1L;
+        when(requestService.findRequestsPageable(requesterId, null, null))
+                .thenReturn(new CursorPage<>(List.of(itemRequestDto), "nextCursor"));
+
+        String result = mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", requesterId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "nextCursor"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(List.of(itemRequestDto)), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void getItemRequestsPageByCursor() {
+        ItemRequestDto itemRequestDto = requestDtoMapper.toItemRequestDto(createItemRequest());
+        Long requesterId = 1L;
+        when(requestService.findRequestsPage(requesterId, "", 1))
+                .thenReturn(new CursorPage<>(List.of(itemRequestDto), "nextCursor"));
+
+        String result = mvc.perform(get("/requests/all?cursor=&size=1")
+                        .header("X-Sharer-User-Id", requesterId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "nextCursor"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(List.of(itemRequestDto)), result);
+    }
+}
@@ -0,0 +1,306 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResult;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({EntityCacheConfig.class, ItemServiceImpl.class, ItemAvailabilityIndex.class, ItemBookingSummaries.class,
+        ItemTokenIndex.class, ItemMapper.class, TestFixtures.class})
+class ItemServiceQueryCountTest {
+    @Autowired
+    private ItemServiceImpl itemService;
+
+    @Autowired
+    private ItemBookingSummaries bookingSummaries;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void createItemWithHistory(User owner, User booker, int number) {
+        Item item = fixtures.createItem(owner, "itemName" + number, "itemDescription" + number, true);
+
+        LocalDateTime now = LocalDateTime.now();
+        fixtures.createBooking(item, booker, now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        fixtures.createBooking(item, booker, now.minusDays(1), now.minusHours(1), BookingStatus.APPROVED);
+        fixtures.createBooking(item, booker, now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED);
+        fixtures.createBooking(item, booker, now.plusDays(3), now.plusDays(4), BookingStatus.APPROVED);
+        bookingSummaries.refresh(List.of(item.getId()), now);
+
+        fixtures.createComment(item, booker.getName(), "Comment" + number, now.minusHours(1));
+    }
+
+    private long countStatementsOfGetUserItems(int itemsCount) {
+        User owner = fixtures.createUser("owner" + itemsCount);
+        User booker = fixtures.createUser("booker" + itemsCount);
+        for (int i = 0; i < itemsCount; i++) {
+            createItemWithHistory(owner, booker, i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ItemDto> userItems = itemService.getUserItems(owner.getId());
+
+        assertEquals(itemsCount, userItems.size());
+        for (ItemDto itemDto : userItems) {
+            assertNotNull(itemDto.getLastBooking());
+            assertNotNull(itemDto.getNextBooking());
+            assertEquals(1, itemDto.getComments().size());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getUserItemsStatementCountDoesNotGrowWithItemsCountTest() {
+        long fewItemsStatements = countStatementsOfGetUserItems(2);
+        long manyItemsStatements = countStatementsOfGetUserItems(50);
+
+        assertEquals(fewItemsStatements, manyItemsStatements);
+        assertEquals(4, manyItemsStatements);
+    }
+
+    private long countStatementsOfSearch(int itemsCount) {
+        User owner = fixtures.createUser("searchOwner" + itemsCount);
+        User booker = fixtures.createUser("searchBooker" + itemsCount);
+        for (int i = 0; i < itemsCount; i++) {
+            createItemWithHistory(owner, booker, i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ItemDto> foundItems = itemService.searchItem("itemname", null, null);
+
+        assertEquals(itemsCount, foundItems.size());
+        for (ItemDto itemDto : foundItems) {
+            assertEquals(1, itemDto.getComments().size());
+        }
+        entityManager.clear();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void searchItemStatementCountDoesNotGrowWithResultsCountTest() {
+        assertEquals(2, countStatementsOfSearch(3));
+    }
+
+    @Test
+    void searchItemStatementCountWithManyResultsTest() {
+        assertEquals(2, countStatementsOfSearch(100));
+    }
+
+    private long countStatementsOfGetItem(int commentsCount) {
+        User owner = fixtures.createUser("commentedOwner" + commentsCount);
+        User booker = fixtures.createUser("commentedBooker" + commentsCount);
+        Item item = fixtures.createItem(owner, "commentedItem");
+        LocalDateTime now = LocalDateTime.now();
+        fixtures.createBooking(item, booker, now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED);
+        Comment lastComment = null;
+        for (int i = 0; i < commentsCount; i++) {
+            Comment comment = new Comment();
+            comment.setText("Comment" + i);
+            lastComment = itemService.addComment(booker.getId(), item.getId(), comment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        ItemDto itemDto = itemService.getItem(booker.getId(), item.getId());
+
+        assertEquals(commentsCount, itemDto.getCommentCount());
+        assertEquals(Math.min(commentsCount, 10), itemDto.getComments().size());
+        assertEquals(lastComment.getId(), itemDto.getComments().get(0).getId());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getItemStatementCountDoesNotGrowWithCommentsCountTest() {
+        long fewCommentsStatements = countStatementsOfGetItem(3);
+        long manyCommentsStatements = countStatementsOfGetItem(100);
+
+        assertEquals(fewCommentsStatements, manyCommentsStatements);
+        assertEquals(2, manyCommentsStatements);
+    }
+
+    @Test
+    void getItemCommentsWalksCommentsNewestFirstTest() {
+        User owner = fixtures.createUser("pagedOwner");
+        User booker = fixtures.createUser("pagedBooker");
+        Item item = fixtures.createItem(owner, "pagedItem");
+        fixtures.createBooking(item, booker, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                BookingStatus.APPROVED);
+        List<Long> commentIds = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Comment comment = new Comment();
+            comment.setText("Comment" + i);
+            commentIds.add(0, itemService.addComment(booker.getId(), item.getId(), comment).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> pagedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Comment> page = itemService.getItemComments(item.getId(), cursor, 10);
+            page.getContent().forEach(comment -> pagedIds.add(comment.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(commentIds, pagedIds);
+    }
+
+    @Test
+    void updateItemUsesOneSelectAndOneUpdateTest() {
+        User owner = fixtures.createUser("updateOwner");
+        Item item = fixtures.createItem(owner, "itemName");
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Item changes = new Item();
+        changes.setAvailable(false);
+        Item updatedItem = itemService.updateItem(owner.getId(), item.getId(), changes);
+
+        assertEquals("itemName", updatedItem.getName());
+        assertEquals(false, updatedItem.getAvailable());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void updateItemsFlushesAllChangesTogetherTest() {
+        User owner = fixtures.createUser("bulkOwner");
+        List<Item> changes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Item itemChanges = new Item();
+            itemChanges.setId(fixtures.createItem(owner, "bulkItem" + i).getId());
+            itemChanges.setDescription("new description");
+            changes.add(itemChanges);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Item> updatedItems = itemService.updateItems(owner.getId(), changes);
+
+        assertEquals(20, updatedItems.size());
+        assertEquals(20, statistics.getEntityUpdateCount());
+        // items, batched update, then the stored search words and a batched insert of the new word
+        assertEquals(20, statistics.getEntityInsertCount());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void importItemsInsertsInBatchesTest() {
+        User owner = fixtures.createUser("importOwner");
+        ItemRequest request = fixtures.createRequest(owner, "requestDescription");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Item item = new Item();
+            item.setName("importedItem" + i);
+            item.setDescription("description");
+            item.setAvailable(true);
+            item.setRequestId(i % 2 == 0 ? request.getId() : null);
+            items.add(item);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        ItemImportResult result = itemService.importItems(owner.getId(), items);
+
+        assertEquals(2000, result.getImported());
+        assertEquals(0, result.getFailed());
+        // every item with the two search words of its name and description
+        assertEquals(2000 * 3, statistics.getEntityInsertCount());
+        // owner check, one sequence call per 50 ids, then a request check and batched inserts of items and words
+        // per chunk
+        assertEquals(1 + 40 + 2 + 2 * 2, statistics.getPrepareStatementCount());
+        assertEquals(1000L, entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(i) FROM Item i WHERE i.requestId = :requestId", Long.class)
+                .setParameter("requestId", request.getId())
+                .getSingleResult());
+    }
+
+    /**
+     * The server imports while it reads, so after the last line of a large import only the last chunk is left
+     * before the answer, well within the gateway's read timeout of 10 s.
+     */
+    @Test
+    void importItemsFromNdjsonFinishesSoonAfterLastLineTest() {
+        User owner = fixtures.createUser("ndjsonOwner");
+        entityManager.flush();
+        byte[] ndjson = "{\"name\":\"importedItem\",\"description\":\"description\",\"available\":true}\n"
+                .repeat(100_000).getBytes(UTF_8);
+        AtomicLong lastLineRead = new AtomicLong();
+        InputStream body = new ByteArrayInputStream(ndjson) {
+            @Override
+            public synchronized int read(byte[] bytes, int offset, int length) {
+                int read = super.read(bytes, offset, length);
+                if (read == -1 && lastLineRead.get() == 0) {
+                    lastLineRead.set(System.nanoTime());
+                }
+                return read;
+            }
+        };
+
+        ItemImportResult result = itemService.importItems(owner.getId(), body);
+        Duration afterLastLine = Duration.ofNanos(System.nanoTime() - lastLineRead.get());
+
+        assertEquals(100_000, result.getImported());
+        assertTrue(afterLastLine.compareTo(Duration.ofSeconds(2)) < 0, "answered " + afterLastLine + " after last line");
+    }
+}
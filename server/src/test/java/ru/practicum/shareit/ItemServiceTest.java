@@ -1,5 +1,6 @@
 package ru.practicum.shareit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,26 +10,42 @@ import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.FreeWindow;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaries;
+import ru.practicum.shareit.booking.summary.ItemBookings;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResult;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+import ru.practicum.shareit.request.matching.RequestMatchRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,8 +60,20 @@ class ItemServiceTest {
     private BookingRepository bookingRepository;
     @Mock
     private CommentRepository commentRepository;
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemAvailabilityIndex availabilityIndex;
+    @Mock
+    private ItemBookingSummaries bookingSummaries;
+    @Mock
+    private ItemTokenIndex itemTokenIndex;
+    @Mock
+    private RequestMatchRepository requestMatchRepository;
     @Spy
     private ItemMapper itemMapper;
+    @Spy
+    private ObjectMapper objectMapper;
 
     private Item createItem(String name, String description, Boolean available) {
         Item item = new Item();
@@ -56,6 +85,13 @@ class ItemServiceTest {
         return item;
     }
 
+    private void stubPatch(Item storedItem) {
+        Mockito.when(itemRepository.patch(eq(storedItem.getId()), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Item>>getArgument(1).accept(storedItem);
+            return Optional.of(storedItem);
+        });
+    }
+
     private List<ItemDto> createListItemsDto(List<Item> itemsList) {
         List<ItemDto> itemsDtoList = new ArrayList<>();
         for (Item item : itemsList) {
@@ -92,12 +128,6 @@ class ItemServiceTest {
         return expectedBooking;
     }
 
-    private List<Booking> createBookingList(Booking booking) {
-        List<Booking> bookingsList = new ArrayList<>();
-        bookingsList.add(booking);
-        return bookingsList;
-    }
-
     private Comment createComment() {
         Comment comment = new Comment();
         comment.setId(1L);
@@ -127,8 +157,7 @@ class ItemServiceTest {
     void updateItemTest() {
         Item oldItem = createItem("oldItemName", "oldItemDescription", true);
         Item newItem = createItem("newItemName", "newItemDescription", false);
-        Mockito.when(itemRepository.findById(oldItem.getId())).thenReturn(Optional.of(oldItem));
-        Mockito.when(itemRepository.findOwnerById(oldItem.getOwner())).thenReturn(oldItem.getOwner());
+        stubPatch(oldItem);
 
         Item actualItem = itemService.updateItem(newItem.getOwner(), newItem.getId(), newItem);
 
@@ -139,38 +168,146 @@ class ItemServiceTest {
     void updateItemWithEmptyNameTest() {
         Item oldItem = createItem("oldItemName", "oldItemDescription", true);
         Item newItem = createItem(null, "newItemDescription", false);
-        Mockito.when(itemRepository.findById(oldItem.getId())).thenReturn(Optional.of(oldItem));
-        Mockito.when(itemRepository.findOwnerById(oldItem.getOwner())).thenReturn(oldItem.getOwner());
-        Mockito.when(itemRepository.findNameById(oldItem.getId())).thenReturn(oldItem.getName());
+        stubPatch(oldItem);
 
         Item actualItem = itemService.updateItem(newItem.getOwner(), newItem.getId(), newItem);
 
-        assertEquals(newItem, actualItem);
+        assertEquals(createItem("oldItemName", "newItemDescription", false), actualItem);
     }
 
     @Test
     void updateItemWithEmptyDescriptionTestTest() {
         Item oldItem = createItem("oldItemName", "oldItemDescription", true);
         Item newItem = createItem("newItemName", null, false);
-        Mockito.when(itemRepository.findById(oldItem.getId())).thenReturn(Optional.of(oldItem));
-        Mockito.when(itemRepository.findOwnerById(oldItem.getOwner())).thenReturn(oldItem.getOwner());
-        Mockito.when(itemRepository.findDescriptionById(oldItem.getId())).thenReturn(oldItem.getDescription());
+        stubPatch(oldItem);
 
         Item actualItem = itemService.updateItem(newItem.getOwner(), newItem.getId(), newItem);
 
-        assertEquals(newItem, actualItem);
+        assertEquals(createItem("newItemName", "oldItemDescription", false), actualItem);
     }
 
     @Test
     void updateItemWithEmptyAvailableTest() {
         Item oldItem = createItem("oldItemName", "oldItemDescription", true);
         Item newItem = createItem("newItemName", "newItemDescription", null);
-        Mockito.when(itemRepository.findById(oldItem.getId())).thenReturn(Optional.of(oldItem));
-        Mockito.when(itemRepository.findOwnerById(oldItem.getOwner())).thenReturn(oldItem.getOwner());
-        Mockito.when(itemRepository.findAvailableById(oldItem.getId())).thenReturn(oldItem.getAvailable());
+        stubPatch(oldItem);
 
         Item actualItem = itemService.updateItem(newItem.getOwner(), newItem.getId(), newItem);
-        assertEquals(newItem, actualItem);
+        assertEquals(createItem("newItemName", "newItemDescription", true), actualItem);
+    }
+
+    @Test
+    void updateItemOfOtherOwnerTest() {
+        Item oldItem = createItem("oldItemName", "oldItemDescription", true);
+        Item newItem = createItem("newItemName", "newItemDescription", false);
+        stubPatch(oldItem);
+
+        final NotFoundException exception = Assertions.assertThrows(
+                NotFoundException.class,
+                () -> itemService.updateItem(2L, newItem.getId(), newItem)
+        );
+
+        assertEquals("User has not access to update item", exception.getMessage());
+        assertEquals("oldItemName", oldItem.getName());
+    }
+
+    @Test
+    void updateItemsTest() {
+        Item firstItem = createItem("firstItem", "firstDescription", true);
+        Item secondItem = createItem("secondItem", "secondDescription", true);
+        secondItem.setId(2L);
+        Item firstChanges = createItem(null, null, false);
+        Item secondChanges = createItem("newSecondItem", null, null);
+        secondChanges.setId(2L);
+        Mockito.when(itemRepository.patchAll(eq(Set.of(1L, 2L)), any())).thenAnswer(invocation -> {
+            List<Item> items = List.of(firstItem, secondItem);
+            items.forEach(invocation.<Consumer<Item>>getArgument(1));
+            return items;
+        });
+
+        List<Item> actualItems = itemService.updateItems(1L, List.of(firstChanges, secondChanges));
+
+        assertEquals(List.of(createItem("firstItem", "firstDescription", false), secondItem), actualItems);
+        assertEquals("newSecondItem", secondItem.getName());
+        assertEquals("secondDescription", secondItem.getDescription());
+    }
+
+    @Test
+    void updateItemsWithMissingItemTest() {
+        Item changes = createItem("newItemName", null, null);
+        Mockito.when(itemRepository.patchAll(eq(Set.of(1L)), any())).thenReturn(List.of());
+
+        final NotFoundException exception = Assertions.assertThrows(
+                NotFoundException.class,
+                () -> itemService.updateItems(1L, List.of(changes))
+        );
+
+        assertEquals("User has not access to update item", exception.getMessage());
+    }
+
+    @Test
+    void updateItemsWithRepeatedIdTest() {
+        Item changes = createItem("newItemName", null, null);
+
+        Assertions.assertThrows(
+                BadRequestException.class,
+                () -> itemService.updateItems(1L, List.of(changes, changes))
+        );
+        Mockito.verify(itemRepository, Mockito.never()).patchAll(any(), any());
+    }
+
+    @Test
+    void importItemsTest() {
+        Item item = createItem("itemName", "itemDescription", true);
+        Item requestedItem = createItem("requestedItem", "itemDescription", true);
+        requestedItem.setRequestId(1L);
+        Item unknownRequestItem = createItem("unknownRequestItem", "itemDescription", true);
+        unknownRequestItem.setRequestId(2L);
+        Item unavailableItem = createItem("unavailableItem", "itemDescription", null);
+        Mockito.when(userRepository.existsById(2L)).thenReturn(true);
+        Mockito.when(itemRequestRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(Set.of(1L));
+
+        ItemImportResult result = itemService.importItems(2L,
+                List.of(item, unavailableItem, requestedItem, unknownRequestItem));
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(new ItemImportResult.RowError(2, "Not found item available"),
+                new ItemImportResult.RowError(4, "Not found item request id: 2")), result.getErrors());
+        Mockito.verify(itemRepository).insertAll(List.of(item, requestedItem));
+        assertEquals(2L, item.getOwner());
+        assertNull(item.getId());
+    }
+
+    @Test
+    void importItemsFromNdjsonTest() {
+        String ndjson = "{\"name\":\"itemName\",\"description\":\"itemDescription\",\"available\":true}\n" +
+                "\n" +
+                "{\"name\":\"brokenItem\"\n" +
+                "{\"name\":\" \",\"description\":\"itemDescription\",\"available\":true}\n";
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+
+        ItemImportResult result = itemService.importItems(1L,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getRow());
+        assertEquals(new ItemImportResult.RowError(4, "Not found item name"), result.getErrors().get(1));
+        Item expectedItem = createItem("itemName", "itemDescription", true);
+        expectedItem.setId(null);
+        Mockito.verify(itemRepository).insertAll(List.of(expectedItem));
+    }
+
+    @Test
+    void importItemsOfUnknownOwnerTest() {
+        Mockito.when(userRepository.existsById(3L)).thenReturn(false);
+
+        Assertions.assertThrows(
+                NotFoundException.class,
+                () -> itemService.importItems(3L, List.of(createItem("itemName", "itemDescription", true)))
+        );
+        Mockito.verify(itemRepository, Mockito.never()).insertAll(any());
     }
 
     @Test
@@ -188,17 +325,57 @@ class ItemServiceTest {
     @Test
     void getItemTest() {
         Item expectedItem = createItem("itemName", "itemDescription", true);
-        List<Booking> bookings = createBookingList(createBooking());
+        Booking lastBooking = createBooking();
+        Booking nextBooking = createBooking();
+        nextBooking.setId(2L);
         List<Comment> comments = createCommentList(createComment());
         Mockito.when(itemRepository.findById(expectedItem.getId())).thenReturn(Optional.of(expectedItem));
-        Mockito.when(bookingRepository.findLastItemBooking(expectedItem.getId(), expectedItem.getOwner())).thenReturn(bookings);
-        Mockito.when(bookingRepository.findNextItemBooking(expectedItem.getId(),expectedItem.getOwner()))
-                .thenReturn(bookings);
-        Mockito.when(commentRepository.findCommentByItemId(expectedItem.getId())).thenReturn(comments);
+        Mockito.when(bookingSummaries.findItemBookings(List.of(expectedItem.getId()))).thenReturn(Map.of(expectedItem.getId(),
+                new ItemBookings(expectedItem.getId(), nextBooking.getStart(), lastBooking, nextBooking)));
+        Mockito.when(commentRepository.findItemComments(expectedItem.getId(), null, 10)).thenReturn(comments);
 
         ItemDto actualItem = itemService.getItem(expectedItem.getOwner(), expectedItem.getId());
 
         assertEquals(itemMapper.toItemDto(expectedItem), actualItem);
+        assertEquals(lastBooking, actualItem.getLastBooking());
+        assertEquals(nextBooking, actualItem.getNextBooking());
+    }
+
+    @Test
+    void getItemByNotOwnerTest() {
+        Item expectedItem = createItem("itemName", "itemDescription", true);
+        Mockito.when(itemRepository.findById(expectedItem.getId())).thenReturn(Optional.of(expectedItem));
+
+        ItemDto actualItem = itemService.getItem(createBooker().getId(), expectedItem.getId());
+
+        assertNull(actualItem.getLastBooking());
+        assertNull(actualItem.getNextBooking());
+        Mockito.verifyNoInteractions(bookingSummaries);
+    }
+
+    @Test
+    void getItemAvailabilityTest() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        List<FreeWindow> expectedWindows = List.of(new FreeWindow(from, to));
+        Mockito.when(itemRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(availabilityIndex.findFreeWindows(1L, from, to)).thenReturn(expectedWindows);
+
+        assertEquals(expectedWindows, itemService.getItemAvailability(1L, from, to));
+    }
+
+    @Test
+    void getItemAvailabilityWithWrongPeriodTest() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        Mockito.when(itemRepository.existsById(1L)).thenReturn(true);
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> itemService.getItemAvailability(1L, from, from)
+        );
+
+        assertEquals("Wrong availability period : from 2030-01-01T00:00 is not before to 2030-01-01T00:00",
+                exception.getMessage());
     }
 
     @Test
@@ -207,24 +384,18 @@ class ItemServiceTest {
         List<Comment> comments = new ArrayList<>();
         item.setComments(comments);
         User owner = createOwner();
-        List<Long> itemsIdsList = new ArrayList<>();
-        itemsIdsList.add(item.getOwner());
         List<Item> listOfUserItems = new ArrayList<>();
         listOfUserItems.add(item);
         Booking lastBooking = createBooking();
         Booking nextBooking = createBooking();
-        List<Booking> bookings = createBookingList(createBooking());
+        nextBooking.setId(2L);
         item.setLastBooking(lastBooking);
         item.setNextBooking(nextBooking);
         List<ItemDto> expectedListOfUserItemsDto = createListItemsDto(listOfUserItems);
         Mockito.when(userRepository.findById(item.getOwner())).thenReturn(Optional.of(owner));
-        Mockito.when(itemRepository.findIdByOwner(item.getOwner())).thenReturn(itemsIdsList);
-        Mockito.when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findNextItemBooking(item.getId(),item.getOwner()))
-                .thenReturn(bookings);
-        Mockito.when(bookingRepository.findLastItemBooking(item.getId(),item.getOwner()))
-                .thenReturn(bookings);
-
+        Mockito.when(itemRepository.findItemsByOwner(item.getOwner())).thenReturn(listOfUserItems);
+        Mockito.when(bookingSummaries.findItemBookings(List.of(item.getId()))).thenReturn(Map.of(item.getId(),
+                new ItemBookings(item.getId(), nextBooking.getStart(), lastBooking, nextBooking)));
 
         List<ItemDto> actualUserItemsDtoList = itemService.getUserItems(owner.getId());
 
@@ -239,10 +410,10 @@ class ItemServiceTest {
         List<Item> searchingItems = new ArrayList<>();
         searchingItems.add(item);
         List<ItemDto> expectedSearchingItemsDtoList = createListItemsDto(searchingItems);
-        Mockito.when(itemRepository.searchItemByNameOrDescription(anyString())).thenReturn(searchingItems);
-        Mockito.when(commentRepository.findCommentByItemId(item.getId())).thenReturn(comments);
+        Mockito.when(itemRepository.searchAvailableItems("itemName", 0, 1000)).thenReturn(searchingItems);
+        Mockito.when(commentRepository.findLatestCommentsOfItems(List.of(item.getId()), 10)).thenReturn(comments);
 
-        List<ItemDto> actualListOfSearchingItemsDto = itemService.searchItem("itemName");
+        List<ItemDto> actualListOfSearchingItemsDto = itemService.searchItem("itemName", null, null);
 
         assertEquals(expectedSearchingItemsDtoList, actualListOfSearchingItemsDto);
     }
@@ -251,11 +422,31 @@ class ItemServiceTest {
     void searchItemWithEmptyTextTest() {
         List<ItemDto> expectedSearchingItemsDtoList = new ArrayList<>();
 
-        List<ItemDto> actualListOfSearchingItemsDto = itemService.searchItem("");
+        List<ItemDto> actualListOfSearchingItemsDto = itemService.searchItem("", null, null);
 
         assertEquals(expectedSearchingItemsDtoList, actualListOfSearchingItemsDto);
     }
 
+    @Test
+    void searchItemPageTest() {
+        Item item = createItem("itemName", "itemDescription", true);
+        Mockito.when(itemRepository.searchAvailableItems("item", 10, 5)).thenReturn(List.of(item));
+
+        List<ItemDto> actualListOfSearchingItemsDto = itemService.searchItem("item", 10, 5);
+
+        assertEquals(1, actualListOfSearchingItemsDto.size());
+    }
+
+    @Test
+    void searchItemWithWrongPageableSettingsTest() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> itemService.searchItem("item", -1, 5)
+        );
+
+        assertEquals("Wrong pageable settings : from is -1 , can't be < 0", exception.getMessage());
+    }
+
     @Test
     void addCommentTest() {
         Item item = createItem("itemName", "itemDescription", true);
@@ -268,6 +459,31 @@ class ItemServiceTest {
         Comment actualComment = itemService.addComment(owner.getId(), item.getId(), createComment());
 
         assertEquals(expectedComment.getText(), actualComment.getText());
+        Mockito.verify(itemRepository).incrementCommentCount(item.getId());
+    }
+
+    @Test
+    void getItemCommentsReturnsCursorOfLastCommentTest() {
+        Comment comment = createComment();
+        comment.setCreated(LocalDateTime.of(2030, 1, 1, 0, 0));
+        Mockito.when(itemRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(commentRepository.findItemComments(1L, null, 1)).thenReturn(List.of(comment));
+
+        CursorPage<Comment> page = itemService.getItemComments(1L, null, 1);
+
+        assertEquals(List.of(comment), page.getContent());
+        assertEquals(new PageCursor(comment.getCreated(), comment.getId()), PageCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getItemCommentsWithWrongSizeTest() {
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> itemService.getItemComments(1L, null, 0)
+        );
+
+        assertEquals("Wrong pageable settings : size is 0 , can't be < 1", exception.getMessage());
+        Mockito.verifyNoInteractions(commentRepository);
     }
 
     @Test
@@ -0,0 +1,111 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class ItemTokenIndexTest {
+    private static final Long OWNER_ID = 1L;
+    private static final Long REQUESTER_ID = 2L;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemTokenIndex itemTokenIndex;
+
+    private final List<Item> items = new ArrayList<>();
+
+    private Item addItem(long id, Long owner, String name, String description) {
+        Item item = new Item();
+        item.setId(id);
+        item.setOwner(owner);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(true);
+        items.add(item);
+        return item;
+    }
+
+    private List<Long> matchedIds(String text, Long requesterId, int minScore) {
+        return itemTokenIndex.match(text, requesterId, minScore, 10).stream()
+                .map(ItemTokenIndex.Candidate::getItemId)
+                .collect(toList());
+    }
+
+    @BeforeEach
+    void setUp() {
+        itemTokenIndex = new ItemTokenIndex(itemRepository, Duration.ofHours(1), 3);
+        addItem(1L, OWNER_ID, "Дрель ударная", "Мощная дрель с набором свёрл");
+        addItem(2L, OWNER_ID, "Отвёртка", "Аккумуляторная, подходит как дрель");
+        addItem(3L, REQUESTER_ID, "Дрель", "Своя дрель запрашивающего");
+        addItem(4L, OWNER_ID, "Стремянка", "Для набора высоты");
+        Mockito.lenient().when(itemRepository.findAvailableItemsAfter(eq(0L), any())).thenReturn(items);
+    }
+
+    @Test
+    void tokenizeTest() {
+        assertEquals(List.of("нужна", "дрель", "сверлами", "10мм"),
+                new ArrayList<>(ItemTokenIndex.tokenize("Нужна ДРЕЛЬ, со свёрлами 10мм! Дрель")));
+        assertTrue(ItemTokenIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void matchScoresNameWordsHigherTest() {
+        itemTokenIndex.refresh();
+
+        List<ItemTokenIndex.Candidate> candidates = itemTokenIndex.match("Нужна дрель", REQUESTER_ID, 1, 10);
+
+        assertEquals(List.of(1L, 2L), candidates.stream().map(ItemTokenIndex.Candidate::getItemId).collect(toList()));
+        assertEquals(List.of(2, 1), candidates.stream().map(ItemTokenIndex.Candidate::getScore).collect(toList()));
+    }
+
+    @Test
+    void matchSkipsOwnItemsAndLowScoresTest() {
+        itemTokenIndex.refresh();
+
+        assertEquals(List.of(1L), matchedIds("дрель", REQUESTER_ID, 2));
+        assertEquals(List.of(3L), matchedIds("дрель", OWNER_ID, 2));
+    }
+
+    @Test
+    void matchSkipsTooCommonWordsTest() {
+        addItem(5L, OWNER_ID, "Дрель сетевая", "Без аккумулятора");
+        itemTokenIndex.refresh();
+
+        assertTrue(matchedIds("дрель", REQUESTER_ID, 1).isEmpty());
+        assertEquals(List.of(4L), matchedIds("дрель для набора", REQUESTER_ID, 1));
+    }
+
+    @Test
+    void refreshReindexesChangedItemsTest() {
+        itemTokenIndex.refresh();
+        Item item = addItem(6L, OWNER_ID, "Палатка", "Трёхместная");
+        Item unavailableItem = items.get(0);
+        unavailableItem.setAvailable(false);
+        Mockito.when(itemRepository.findAllById(any())).thenReturn(List.of(unavailableItem, item));
+
+        itemTokenIndex.invalidate(List.of(1L, 6L));
+        itemTokenIndex.refresh();
+
+        assertEquals(List.of(6L), matchedIds("палатка", REQUESTER_ID, 2));
+        assertEquals(List.of(2L), matchedIds("дрель", REQUESTER_ID, 1));
+        assertEquals(4, itemTokenIndex.size());
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+import ru.practicum.shareit.request.matching.RequestMatchRepository;
+import ru.practicum.shareit.request.matching.RequestMatcher;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({EntityCacheConfig.class, TestFixtures.class})
+class RequestMatcherTest {
+    @Autowired
+    private RequestMatchRepository requestMatchRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private ItemTokenIndex createIndex() {
+        return new ItemTokenIndex(itemRepository, Duration.ofHours(1), 10000);
+    }
+
+    private RequestMatcher createMatcher(ItemTokenIndex itemTokenIndex, int queueCapacity) {
+        return new RequestMatcher(itemTokenIndex, itemRequestRepository, itemRepository, requestMatchRepository,
+                transactionManager, 0, queueCapacity, 10, Duration.ofMillis(10), 0.5, 2, 20);
+    }
+
+    private static List<Long> itemIds(List<RequestMatchDto> matches) {
+        return matches.stream().map(RequestMatchDto::getItemId).collect(toList());
+    }
+
+    @Test
+    void matchRequestsStoresBestItemsOfOtherOwnersTest() {
+        User owner = fixtures.createUser("owner");
+        User requester = fixtures.createUser("requester");
+        Item drill = fixtures.createItem(owner, "Дрель ударная", "Мощная, с набором сверл", true);
+        Item screwdriver = fixtures.createItem(owner, "Шуруповерт", "Может работать как дрель со сверлами", true);
+        fixtures.createItem(owner, "Дрель старая", "Сломана", false);
+        fixtures.createItem(requester, "Дрель", "Своя дрель", true);
+        fixtures.createItem(owner, "Палатка", "Трехместная", true);
+        ItemRequest drillRequest = fixtures.createRequest(requester, "Нужна дрель со сверлами");
+        ItemRequest boatRequest = fixtures.createRequest(requester, "Нужна лодка");
+        entityManager.flush();
+        RequestMatcher requestMatcher = createMatcher(createIndex(), 10);
+
+        requestMatcher.matchRequests(List.of(drillRequest.getId(), boatRequest.getId()));
+        requestMatcher.matchRequests(List.of(drillRequest.getId()));
+
+        List<RequestMatchDto> matches = requestMatchRepository.findRequestMatches(drillRequest.getId());
+        assertEquals(List.of(drill.getId(), screwdriver.getId()), itemIds(matches));
+        assertEquals(List.of(2, 2), matches.stream().map(RequestMatchDto::getScore).collect(toList()));
+        assertEquals("Нужна дрель со сверлами", matches.get(0).getRequestDescription());
+        assertEquals("Дрель ударная", matches.get(0).getItemName());
+        assertTrue(requestMatchRepository.findRequestMatches(boatRequest.getId()).isEmpty());
+        assertEquals(List.of(drillRequest.getId()),
+                requestMatchRepository.findItemMatches(drill.getId(), PageRequest.of(0, 10)).stream()
+                        .map(RequestMatchDto::getRequestId)
+                        .collect(toList()));
+    }
+
+    @Test
+    void matchRequestsSkipsItemsChangedAfterIndexingTest() {
+        User owner = fixtures.createUser("changedOwner");
+        User requester = fixtures.createUser("changedRequester");
+        Item tent = fixtures.createItem(owner, "Палатка", "Трехместная палатка", true);
+        Item otherTent = fixtures.createItem(owner, "Палатка туристическая", "Легкая", true);
+        entityManager.flush();
+        ItemTokenIndex itemTokenIndex = createIndex();
+        itemTokenIndex.refresh();
+        tent.setAvailable(false);
+        ItemRequest itemRequest = fixtures.createRequest(requester, "Ищу палатку или палатка");
+        entityManager.flush();
+
+        createMatcher(itemTokenIndex, 10).matchRequests(List.of(itemRequest.getId()));
+
+        assertEquals(List.of(otherTent.getId()), itemIds(requestMatchRepository.findRequestMatches(itemRequest.getId())));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void submitDropsRequestsWhenQueueStaysFullTest() {
+        RequestMatcher fullMatcher = createMatcher(createIndex(), 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        fullMatcher.bindTo(registry);
+
+        fullMatcher.submit(1L);
+        fullMatcher.submit(2L);
+
+        assertEquals(1, registry.get("request.matching.queue.size").gauge().value());
+        assertEquals(1, registry.get("request.matching.requests").tag("result", "dropped").functionCounter().count());
+    }
+}
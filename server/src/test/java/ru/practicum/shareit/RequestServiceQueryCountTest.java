@@ -0,0 +1,184 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestDtoMapper;
+import ru.practicum.shareit.request.matching.ItemTokenIndex;
+import ru.practicum.shareit.request.matching.RequestMatcher;
+import ru.practicum.shareit.request.service.RequestServiceImpl;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "shareit.request-matching.workers=0"
+})
+@Import({EntityCacheConfig.class, RequestServiceImpl.class, RequestMatcher.class, ItemTokenIndex.class,
+        ItemRequestDtoMapper.class, TestFixtures.class})
+class RequestServiceQueryCountTest {
+    @Autowired
+    private RequestServiceImpl requestService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private ItemRequest createRequestWithItems(User requester, User owner, int number) {
+        ItemRequest itemRequest = fixtures.createRequest(requester, "requestDescription" + number);
+        for (int i = 0; i < 2; i++) {
+            fixtures.createItem(owner, "itemName" + number + "_" + i, itemRequest);
+        }
+        return itemRequest;
+    }
+
+    private List<ItemRequest> createRequests(String prefix, int requestsCount, boolean sameRequester) {
+        User owner = fixtures.createUser(prefix + "Owner");
+        User requester = fixtures.createUser(prefix + "Requester");
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < requestsCount; i++) {
+            User author = sameRequester ? requester : fixtures.createUser(prefix + "Requester" + i);
+            requests.add(createRequestWithItems(author, owner, i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        return requests;
+    }
+
+    @Test
+    void requestEtagChangesWhenItemIsReplacedTest() {
+        User owner = fixtures.createUser("etagOwner");
+        User requester = fixtures.createUser("etagRequester");
+        ItemRequest itemRequest = fixtures.createRequest(requester, "requestDescription");
+        Item item = fixtures.createItem(owner, "itemName", itemRequest);
+        entityManager.flush();
+        String etag = requestService.getRequestEtag(requester.getId(), itemRequest.getId());
+
+        entityManager.remove(item);
+        fixtures.createItem(owner, "replacement", itemRequest);
+        entityManager.flush();
+
+        assertNotEquals(etag, requestService.getRequestEtag(requester.getId(), itemRequest.getId()));
+    }
+
+    private void assertHydrated(List<ItemRequestDto> requests, int requestsCount) {
+        assertEquals(requestsCount, requests.size());
+        for (ItemRequestDto request : requests) {
+            assertNotNull(request.getRequester());
+            assertEquals(2, request.getItems().size());
+        }
+    }
+
+    private long countStatementsOfFindItemRequests(int requestsCount) {
+        List<ItemRequest> requests = createRequests("own" + requestsCount, requestsCount, true);
+
+        assertHydrated(requestService.findItemRequests(requests.get(0).getRequesterId()), requestsCount);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countStatementsOfFindRequestsPageable(int requestsCount) {
+        createRequests("all" + requestsCount, requestsCount, false);
+        User reader = fixtures.createUser("reader" + requestsCount);
+        entityManager.flush();
+        statistics.clear();
+
+        assertHydrated(requestService.findRequestsPageable(reader.getId(), 0, requestsCount).getContent(), requestsCount);
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void findItemRequestsStatementCountDoesNotGrowWithRequestsCountTest() {
+        long fewRequestsStatements = countStatementsOfFindItemRequests(2);
+        long manyRequestsStatements = countStatementsOfFindItemRequests(30);
+
+        assertEquals(fewRequestsStatements, manyRequestsStatements);
+        assertEquals(3, manyRequestsStatements);
+    }
+
+    @Test
+    void findRequestsPageableStatementCountDoesNotGrowWithRequestsCountTest() {
+        long fewRequestsStatements = countStatementsOfFindRequestsPageable(2);
+        long manyRequestsStatements = countStatementsOfFindRequestsPageable(30);
+
+        assertEquals(fewRequestsStatements, manyRequestsStatements);
+        assertEquals(4, manyRequestsStatements);
+    }
+
+    @Test
+    void findRequestsPageWalksFeedWithoutCountTest() {
+        createRequests("feed", 5, false);
+        User reader = fixtures.createUser("feedReader");
+        entityManager.flush();
+        statistics.clear();
+
+        CursorPage<ItemRequestDto> firstPage = requestService.findRequestsPage(reader.getId(), "", 3);
+        assertHydrated(firstPage.getContent(), 3);
+        assertEquals(4, statistics.getPrepareStatementCount());
+
+        CursorPage<ItemRequestDto> lastPage = requestService.findRequestsPage(reader.getId(), firstPage.getNextCursor(), 3);
+        assertHydrated(lastPage.getContent(), 2);
+        assertNull(lastPage.getNextCursor());
+        List<Long> ids = new ArrayList<>();
+        firstPage.getContent().forEach(request -> ids.add(request.getId()));
+        lastPage.getContent().forEach(request -> ids.add(request.getId()));
+        assertEquals(5, new HashSet<>(ids).size());
+    }
+
+    @Test
+    void findRequestsPageableStartsAfterFromRequestsTest() {
+        createRequests("offset", 5, false);
+        User reader = fixtures.createUser("offsetReader");
+        entityManager.flush();
+        List<ItemRequestDto> feed = requestService.findRequestsPageable(reader.getId(), 0, 5).getContent();
+
+        List<ItemRequestDto> page = requestService.findRequestsPageable(reader.getId(), 2, 2).getContent();
+
+        assertHydrated(page, 2);
+        assertEquals(feed.subList(2, 4), page);
+        assertTrue(requestService.findRequestsPageable(reader.getId(), 5, 2).getContent().isEmpty());
+    }
+
+    @Test
+    void findRequestByIdStatementCountTest() {
+        ItemRequest itemRequest = createRequests("byId", 1, true).get(0);
+
+        ItemRequestDto request = requestService.findRequestById(itemRequest.getRequesterId(), itemRequest.getId());
+
+        assertEquals(2, request.getItems().size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+}
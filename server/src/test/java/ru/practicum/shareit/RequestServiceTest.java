@@ -7,24 +7,32 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoMapper;
+import ru.practicum.shareit.request.matching.RequestMatchRepository;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.RequestServiceImpl;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +46,12 @@ class RequestServiceTest {
     @Mock
     private ItemRequestRepository itemRequestRepository;
 
+    @Mock
+    private RequestMatchRepository requestMatchRepository;
+
+    @Mock
+    private RequestMatcher requestMatcher;
+
     @Spy
     private ItemRequestDtoMapper itemRequestDtoMapper;
 
@@ -46,6 +60,7 @@ class RequestServiceTest {
         itemRequest.setId(1L);
         itemRequest.setDescription("requestDescription");
         itemRequest.setRequester(createRequester());
+        itemRequest.setRequesterId(1L);
         List<Item> items = new ArrayList<>();
         itemRequest.setItems(items);
 
@@ -68,20 +83,6 @@ class RequestServiceTest {
         return requester;
     }
 
-    private Pageable createPageRequestUsing(int page, int size) {
-        return PageRequest.of(page, size);
-    }
-
-    private Page<ItemRequest> getRequests(int page, int size) {
-        Pageable pageRequest = createPageRequestUsing(page, size);
-        List<ItemRequest> allItemRequests = new ArrayList<>();
-        allItemRequests.add(createRequest());
-        int start = (int) pageRequest.getOffset();
-        int end = Math.min((start + pageRequest.getPageSize()), allItemRequests.size());
-        List<ItemRequest> pageContent = allItemRequests.subList(start, end);
-        return new PageImpl<>(pageContent, pageRequest, allItemRequests.size());
-    }
-
     @Test
     void addItemRequestTest() {
         ItemRequest expectedItemRequest = createRequest();
@@ -125,15 +126,42 @@ class RequestServiceTest {
     void findRequestsPageableTest() {
         ItemRequest itemRequest = createRequest();
         User requester = createRequester();
-        Pageable pageableSize = createPageRequestUsing(0, 1);
         List<ItemRequestDto> expectedItemRequest = new ArrayList<>();
         expectedItemRequest.add(itemRequestDtoMapper.toItemRequestDto(itemRequest));
         Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(requester));
-        Mockito.when(itemRequestRepository.findItemRequestsOfOtherUsersPageable(pageableSize, requester.getId())).thenReturn(getRequests(0, 1));
+        Mockito.when(userRepository.findAllById(Set.of(requester.getId()))).thenReturn(List.of(requester));
+        Mockito.when(itemRequestRepository.findRequestsFeed(requester.getId(), null, 1)).thenReturn(List.of(itemRequest));
 
-        List<ItemRequestDto> actualRequestList = requestService.findRequestsPageable(requester.getId(), 0, 1);
+        CursorPage<ItemRequestDto> actualPage = requestService.findRequestsPageable(requester.getId(), 0, 1);
 
-        assertEquals(expectedItemRequest, actualRequestList);
+        assertEquals(expectedItemRequest, actualPage.getContent());
+        assertNull(actualPage.getNextCursor());
+    }
+
+    @Test
+    void findRequestsPageableFromPositionTest() {
+        ItemRequest itemRequest = createRequest();
+        User requester = createRequester();
+        PageCursor position = new PageCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 7L);
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(requester));
+        Mockito.when(userRepository.findAllById(Set.of(requester.getId()))).thenReturn(List.of(requester));
+        Mockito.when(itemRequestRepository.findFeedPosition(2L, 4)).thenReturn(Optional.of(position));
+        Mockito.when(itemRequestRepository.findRequestsFeed(2L, position, 2)).thenReturn(List.of(itemRequest));
+
+        CursorPage<ItemRequestDto> actualPage = requestService.findRequestsPageable(2L, 4, 2);
+
+        assertEquals(List.of(itemRequestDtoMapper.toItemRequestDto(itemRequest)), actualPage.getContent());
+    }
+
+    @Test
+    void findRequestsPageableFromBeyondLastRequestTest() {
+        Mockito.when(itemRequestRepository.findFeedPosition(null, 10)).thenReturn(Optional.empty());
+
+        CursorPage<ItemRequestDto> actualPage = requestService.findRequestsPageable(null, 10, 2);
+
+        assertTrue(actualPage.getContent().isEmpty());
+        assertNull(actualPage.getNextCursor());
+        Mockito.verify(itemRequestRepository, Mockito.never()).findRequestsFeed(any(), any(), Mockito.anyInt());
     }
 
     @Test
@@ -144,11 +172,75 @@ class RequestServiceTest {
         requestList.add(itemRequest);
         List<ItemRequestDto> expectedItemRequest = new ArrayList<>();
         expectedItemRequest.add(itemRequestDtoMapper.toItemRequestDto(requestList.get(0)));
-        Mockito.when(userRepository.findById(any())).thenReturn(Optional.of(requester));
-        Mockito.when(itemRequestRepository.findAllItemRequests()).thenReturn(requestList);
+        Mockito.when(userRepository.findById(requester.getId())).thenReturn(Optional.of(requester));
+        Mockito.when(userRepository.findAllById(Set.of(requester.getId()))).thenReturn(List.of(requester));
+        Mockito.when(itemRequestRepository.findRequestsFeed(requester.getId(), null, 1000)).thenReturn(requestList);
+
+        CursorPage<ItemRequestDto> actualPage = requestService.findRequestsPageable(requester.getId(), null, null);
+
+        assertEquals(expectedItemRequest, actualPage.getContent());
+        assertNull(actualPage.getNextCursor());
+    }
+
+    @Test
+    void findAllRequestsWithoutPageableReturnsNextCursorTest() {
+        ItemRequest itemRequest = createRequest();
+        itemRequest.setCreated(LocalDateTime.of(2024, 1, 1, 12, 0));
+        User requester = createRequester();
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(requester));
+        Mockito.when(userRepository.findAllById(Set.of(requester.getId()))).thenReturn(List.of(requester));
+        Mockito.when(itemRequestRepository.findRequestsFeed(2L, null, 1000))
+                .thenReturn(Collections.nCopies(1000, itemRequest));
+
+        CursorPage<ItemRequestDto> actualPage = requestService.findRequestsPageable(2L, null, null);
+
+        assertEquals(1000, actualPage.getContent().size());
+        assertEquals(new PageCursor(itemRequest.getCreated(), itemRequest.getId()),
+                PageCursor.decode(actualPage.getNextCursor()));
+    }
+
+    @Test
+    void findRequestsPageReturnsNextCursorOfFullPageTest() {
+        ItemRequest itemRequest = createRequest();
+        itemRequest.setCreated(LocalDateTime.of(2024, 1, 1, 12, 0));
+        User requester = createRequester();
+        Mockito.when(userRepository.findById(2L)).thenReturn(Optional.of(requester));
+        Mockito.when(userRepository.findAllById(Set.of(requester.getId()))).thenReturn(List.of(requester));
+        Mockito.when(itemRequestRepository.findRequestsFeed(2L, null, 1)).thenReturn(List.of(itemRequest));
+
+        CursorPage<ItemRequestDto> page = requestService.findRequestsPage(2L, "", 1);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(new PageCursor(itemRequest.getCreated(), itemRequest.getId()),
+                PageCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void findRequestsPageAfterCursorTest() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 5L);
+        Mockito.when(itemRequestRepository.findRequestsFeed(null, cursor, 20)).thenReturn(List.of());
+
+        CursorPage<ItemRequestDto> page = requestService.findRequestsPage(null, cursor.encode(), null);
+
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void findRequestsPageableWithWrongSizeTest() {
+        assertThrows(BadRequestException.class, () -> requestService.findRequestsPageable(null, 0, 0));
+        assertThrows(BadRequestException.class, () -> requestService.findRequestsPageable(null, -1, 10));
+        assertThrows(BadRequestException.class, () -> requestService.findRequestsPageable(null, 0, null));
+        assertThrows(BadRequestException.class, () -> requestService.findRequestsPageable(null, null, 10));
+        assertThrows(BadRequestException.class, () -> requestService.findRequestsPage(null, null, 0));
+    }
+
+    @Test
+    void getRequestEtagOfMissingRequestTest() {
+        Mockito.when(itemRequestRepository.existsById(7L)).thenReturn(false);
 
-        List<ItemRequestDto> actualRequestList = requestService.findRequestsPageable(requester.getId(), null, null);
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> requestService.getRequestEtag(1L, 7L));
 
-        assertEquals(expectedItemRequest, actualRequestList);
+        assertEquals("Не найден запрос на вещь id: 7", exception.getMessage());
     }
 }
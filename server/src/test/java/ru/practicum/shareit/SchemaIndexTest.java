@@ -0,0 +1,147 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.cache.EntityCacheConfig;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest
+@Import(EntityCacheConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SchemaIndexTest {
+    private static final int USERS = 100;
+    private static final int ITEMS = 500;
+    private static final int BOOKINGS = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Fills the tables so the H2 optimizer estimates costs on realistic row counts instead of empty tables.
+     * ANALYZE commits, so the rows are removed after the class instead of being rolled back.
+     */
+    @BeforeAll
+    void fillTables() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> requests = new ArrayList<>();
+        for (long i = 1; i <= USERS; i++) {
+            users.add(new Object[]{i, "user" + i, "user" + i + "@email"});
+            requests.add(new Object[]{i, "request" + i, Timestamp.valueOf(now), i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO requests (id, description, created, requester_id) VALUES (?, ?, ?, ?)",
+                requests);
+
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        for (long i = 1; i <= ITEMS; i++) {
+            items.add(new Object[]{i, "item" + i, "description" + i, true, i % USERS + 1, i % 10 == 0 ? i / 10 : null});
+            comments.add(new Object[]{i, "comment" + i, "author", Timestamp.valueOf(now), i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO items (id, name, description, available, owner, request_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", items);
+        jdbcTemplate.batchUpdate("INSERT INTO comments (id, text, author, created, item_id) VALUES (?, ?, ?, ?, ?)",
+                comments);
+
+        List<Object[]> bookings = new ArrayList<>();
+        String[] statuses = {"WAITING", "APPROVED", "REJECTED"};
+        for (long i = 1; i <= BOOKINGS; i++) {
+            long itemId = i % ITEMS + 1;
+            LocalDateTime start = now.minusDays(BOOKINGS / 2).plusDays(i);
+            bookings.add(new Object[]{i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)),
+                    statuses[(int) (i % 3)], (i + 7) % USERS + 1, itemId, "item" + itemId, itemId % USERS + 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (id, start_booking, end_booking, status, booker_id, item_id, " +
+                "item_name, item_owner) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", bookings);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    void clearTables() {
+        jdbcTemplate.execute("DELETE FROM bookings");
+        jdbcTemplate.execute("DELETE FROM comments");
+        jdbcTemplate.execute("DELETE FROM items");
+        jdbcTemplate.execute("DELETE FROM requests");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    /**
+     * H2 adds its own index for every foreign key and may prefer it over a composite one, so the index columns
+     * are checked separately from the plan, which only has to avoid a full table scan.
+     */
+    private void assertUsesIndex(String query, String index, String... columns) {
+        List<String> indexColumns = jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS " +
+                "WHERE INDEX_NAME = ? ORDER BY ORDINAL_POSITION", String.class, index.toUpperCase());
+        assertEquals(Arrays.stream(columns).map(String::toUpperCase).collect(toList()), indexColumns);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+        assertFalse(plan.contains("tableScan"), () -> "Expected index lookup in plan: " + plan);
+    }
+
+    @Test
+    void ownerItemsUseOwnerIndexTest() {
+        assertUsesIndex("SELECT * FROM items WHERE owner = 1 ORDER BY id", "items_owner_idx", "owner", "id");
+    }
+
+    @Test
+    void requestItemsUseRequestIndexTest() {
+        assertUsesIndex("SELECT * FROM items WHERE request_id = 1", "items_request_id_idx", "request_id");
+    }
+
+    @Test
+    void bookerBookingsUseBookerStartIndexTest() {
+        assertUsesIndex("SELECT * FROM bookings WHERE booker_id = 1 ORDER BY start_booking DESC, id DESC",
+                "bookings_booker_start_idx", "booker_id", "start_booking", "id");
+    }
+
+    @Test
+    void ownerBookingsUseOwnerStartIndexTest() {
+        assertUsesIndex("SELECT * FROM bookings WHERE item_owner = 1 AND end_booking < NOW() " +
+                "ORDER BY start_booking DESC, id DESC", "bookings_owner_start_idx", "item_owner", "start_booking", "id");
+    }
+
+    @Test
+    void ownerBookingsByStatusUseOwnerStatusIndexTest() {
+        assertUsesIndex("SELECT * FROM bookings WHERE item_owner = 1 AND status = 'WAITING' " +
+                "ORDER BY start_booking DESC, id DESC", "bookings_owner_status_idx", "item_owner", "status", "start_booking");
+    }
+
+    @Test
+    void itemBookingsUseItemStartIndexTest() {
+        assertUsesIndex("SELECT COUNT(*) FROM bookings WHERE item_id = 1 AND status IN ('WAITING', 'APPROVED') " +
+                "AND start_booking < NOW() AND end_booking > NOW()", "bookings_item_start_idx", "item_id", "start_booking", "id");
+    }
+
+    @Test
+    void itemCommentsUseItemCreatedIndexTest() {
+        assertUsesIndex("SELECT * FROM comments WHERE item_id = 1 ORDER BY created DESC, id DESC LIMIT 10",
+                "comments_item_created_idx", "item_id", "created", "id");
+    }
+
+    @Test
+    void userRequestsUseRequesterIndexTest() {
+        assertUsesIndex("SELECT * FROM requests WHERE requester_id = 1", "requests_requester_created_idx",
+                "requester_id", "created");
+    }
+
+    @Test
+    void requestsFeedUsesCreatedIndexTest() {
+        assertUsesIndex("SELECT * FROM requests WHERE requester_id <> 1 AND created <= NOW() " +
+                "ORDER BY created DESC, id DESC LIMIT 20", "requests_created_id_idx", "created", "id");
+    }
+}
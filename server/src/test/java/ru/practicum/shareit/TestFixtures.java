@@ -0,0 +1,95 @@
+package ru.practicum.shareit;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchWord;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persists the users, items and bookings repository tests start from. Import it into a {@code @DataJpaTest};
+ * tests that save outside of the test transaction use the static factories with their repositories.
+ */
+@Component
+class TestFixtures {
+    private final TestEntityManager entityManager;
+
+    TestFixtures(TestEntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    static User newUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@email");
+        return user;
+    }
+
+    static Item newItem(Long ownerId, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(ownerId);
+        return item;
+    }
+
+    User createUser(String name) {
+        return entityManager.persist(newUser(name));
+    }
+
+    Item createItem(User owner, String name) {
+        return createItem(owner, name, "description", true);
+    }
+
+    Item createItem(User owner, String name, String description, boolean available) {
+        return persistItem(newItem(owner.getId(), name, description, available));
+    }
+
+    Item createItem(User owner, String name, ItemRequest request) {
+        Item item = newItem(owner.getId(), name, "description", true);
+        item.setRequestId(request.getId());
+        return persistItem(item);
+    }
+
+    private Item persistItem(Item item) {
+        entityManager.persist(item);
+        ItemSearchWord.of(item).forEach(entityManager::persist);
+        return item;
+    }
+
+    Booking createBooking(Item item, User booker, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(status);
+        booking.setBookerId(booker.getId());
+        booking.setItemId(item.getId());
+        booking.setItemName(item.getName());
+        booking.setItemOwner(item.getOwner());
+        return entityManager.persist(booking);
+    }
+
+    ItemRequest createRequest(User requester, String description) {
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setDescription(description);
+        itemRequest.setRequesterId(requester.getId());
+        itemRequest.setCreated(LocalDateTime.now());
+        return entityManager.persist(itemRequest);
+    }
+
+    Comment createComment(Item item, String authorName, String text, LocalDateTime created) {
+        Comment comment = new Comment();
+        comment.setText(text);
+        comment.setAuthorName(authorName);
+        comment.setCreated(created);
+        comment.setItemId(item.getId());
+        return entityManager.persist(comment);
+    }
+}
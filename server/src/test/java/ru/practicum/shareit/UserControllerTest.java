@@ -17,6 +17,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -82,6 +84,7 @@ class UserControllerTest {
     void getUser() {
         User user = createUser("userName", "user@user.com");
         UserDto expectedUser = userMapper.toUserDto(user);
+        when(userService.getUserEtag(user.getId())).thenReturn("0");
         when(userService.getUser(user.getId())).thenReturn(expectedUser);
 
         String result = mvc.perform(get("/users/{id}", expectedUser.getId())
@@ -95,6 +98,18 @@ class UserControllerTest {
         assertEquals(mapper.writeValueAsString(expectedUser), result);
     }
 
+    @Test
+    @SneakyThrows
+    void getNotModifiedUser() {
+        when(userService.getUserEtag(1L)).thenReturn("0");
+
+        mvc.perform(get("/users/{id}", 1L)
+                        .header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+
+        verify(userService, never()).getUser(1L);
+    }
+
     @Test
     @SneakyThrows
     void getAllUser() {
@@ -1,11 +1,13 @@
 package ru.practicum.shareit;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -15,6 +17,7 @@ import ru.practicum.shareit.user.service.UserServiceImpl;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -37,6 +40,13 @@ class UserServiceTest {
         return user;
     }
 
+    private void stubPatch(User storedUser) {
+        Mockito.when(userRepository.patch(Mockito.eq(storedUser.getId()), Mockito.any())).thenAnswer(invocation -> {
+            invocation.<Consumer<User>>getArgument(1).accept(storedUser);
+            return Optional.of(storedUser);
+        });
+    }
+
     @Test
     void createUserTest() {
         User expectedUser = createUser("userName", "user@email");
@@ -51,7 +61,7 @@ class UserServiceTest {
     void updateUserTest() {
         User oldUser = createUser("oldUserName", "oldUser@email");
         User newUser = createUser("newUserName", "newUser@email");
-        Mockito.when(userRepository.findById(oldUser.getId())).thenReturn(Optional.of(newUser));
+        stubPatch(oldUser);
 
         User updatedUser = userService.update(newUser, oldUser.getId());
 
@@ -62,26 +72,34 @@ class UserServiceTest {
     void updateUserWithEmptyName() {
         User oldUser = createUser("oldUserName", "oldUser@email");
         User newUser = createUser(null, "newUserEmail");
-        String oldUserName = oldUser.getName();
-        Mockito.when(userRepository.findById(oldUser.getId())).thenReturn(Optional.of(newUser));
-        Mockito.when(userRepository.findNameById(oldUser.getId())).thenReturn(oldUserName);
+        stubPatch(oldUser);
 
         User updatedUser = userService.update(newUser, oldUser.getId());
 
-        assertEquals(updatedUser, newUser);
+        assertEquals(createUser("oldUserName", "newUserEmail"), updatedUser);
     }
 
     @Test
     void updateUserWithEmptyEmail() {
         User oldUser = createUser("oldUserName", "oldUser@email");
         User newUser = createUser("newUserName", null);
-        String oldUserEmail = oldUser.getEmail();
-        Mockito.when(userRepository.findById(oldUser.getId())).thenReturn(Optional.of(newUser));
-        Mockito.when(userRepository.findEmailById(oldUser.getId())).thenReturn(oldUserEmail);
+        stubPatch(oldUser);
 
         User updatedUser = userService.update(newUser, oldUser.getId());
 
-        assertEquals(updatedUser, newUser);
+        assertEquals(createUser("newUserName", "oldUser@email"), updatedUser);
+    }
+
+    @Test
+    void updateMissingUser() {
+        User newUser = createUser("newUserName", null);
+
+        final NotFoundException exception = Assertions.assertThrows(
+                NotFoundException.class,
+                () -> userService.update(newUser, 2L)
+        );
+
+        assertEquals("User not found id: 2", exception.getMessage());
     }
 
     @Test